@@ -1,7 +1,7 @@
 package org.jihedamine;
 
 import org.jihedamine.bucket.Bucket;
-import org.jihedamine.bucket.SequentialNumbersBucket;
+import org.jihedamine.bucket.LazySequentialNumbersBucket;
 import org.jihedamine.consoleapp.LotteryApplication;
 import org.jihedamine.lotterydraw.LotteryDraw;
 import org.jihedamine.prizestrategy.PercentagesOfHalfPotPrizeStrategy;
@@ -59,7 +59,8 @@ public class MainApplication {
             ticketPrice = Double.valueOf(args[4]);
         }
 
-        Bucket<Integer> bucket = new SequentialNumbersBucket(startIndex, nbItems);
+        // the balls are not materialized so that the startup cost does not depend on the number of balls
+        Bucket<Integer> bucket = new LazySequentialNumbersBucket(startIndex, nbItems);
 
         PrizeStrategy prizeStrategy = new PercentagesOfHalfPotPrizeStrategy(pricesPercentages);
 
@@ -1,9 +1,9 @@
 package org.jihedamine.bucket;
 
 import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
 
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class provides a skeletal implementation of the Bucket interface to minimize the efforts to implement this interface
@@ -20,6 +20,11 @@ public abstract class AbstractBucket<T> implements Bucket<T> {
      */
     protected List<T> items;
 
+    /**
+     * Random source used to pick the items of the bucket
+     */
+    protected RandomSource randomSource = RandomSource.threadLocal();
+
     /**
      * {@inheritDoc}
      * @return {@inheritDoc}
@@ -31,8 +36,13 @@ public abstract class AbstractBucket<T> implements Bucket<T> {
             throw new EmptyBucketException();
         }
 
-        int ballIndex = ThreadLocalRandom.current().nextInt(0, items.size());
-        return items.remove(ballIndex);
+        int ballIndex = randomSource.nextInt(items.size());
+        int lastIndex = items.size() - 1;
+        // fill the gap with the last item instead of shifting the items that follow the picked one
+        T item = items.get(ballIndex);
+        items.set(ballIndex, items.get(lastIndex));
+        items.remove(lastIndex);
+        return item;
     }
 
     /**
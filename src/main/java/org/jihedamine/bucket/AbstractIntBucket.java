@@ -0,0 +1,269 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+import org.jihedamine.util.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * This class provides a skeletal implementation of the IntBucket interface to minimize the efforts to implement this interface
+ * <p>
+ * This class stores the bucket items in a primitive int array
+ * and provides default implementations for {@link IntBucket#pickInt()} and {@link Bucket#size()}
+ * <p>
+ * The items of the bucket are the first {@link #size} elements of the {@link #items} array.
+ * Picking an item moves the last item of the bucket to the position of the picked item,
+ * so that a pick is done in constant time whatever the size of the bucket.
+ * <p>
+ * Copies created with {@link #shareItemsWith(AbstractIntBucket)} share the items array with the copied bucket.
+ * A bucket copies the array only when it is picked from for the first time while the array is shared.
+ * <p>
+ * {@link #contains(int)}, {@link #removeItem(int)} and {@link #returnItem(int)} look items up in an index mapping each item to its position,
+ * which assumes the items of the bucket are distinct.
+ * The index is only built by the first call to either method, and then kept up to date by the picks,
+ * so that buckets that are only picked from randomly do not pay for it.
+ *
+ * @author Jihed Amine Maaref on 24-Dec-16.
+ */
+public abstract class AbstractIntBucket implements IntBucket {
+
+    /**
+     * Array containing the items of the bucket in its first {@link #size} elements
+     */
+    protected int[] items;
+
+    /**
+     * Number of items in the bucket
+     */
+    protected int size;
+
+    /**
+     * Random source used to pick the items of the bucket
+     */
+    protected RandomSource randomSource = RandomSource.threadLocal();
+
+    // Whether the items array may be read by another bucket, in which case it must be copied before being modified
+    private boolean itemsShared;
+
+    // Maps each item of the bucket to its position in the items array, or null until an item is looked up
+    private IntIntHashMap itemPositions;
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        if (size == 0) {
+            throw new EmptyBucketException();
+        }
+
+        copyItemsIfShared();
+
+        int itemIndex = randomSource.nextInt(size);
+        int item = items[itemIndex];
+        // fill the gap with the last item instead of shifting the items that follow the picked one
+        items[itemIndex] = items[--size];
+        updateItemPositions(item, itemIndex);
+        return item;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The picked items are shuffled into the tail of the items array, which is then copied out in one block.
+     * @param n {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public int[] pickItems(int n) throws EmptyBucketException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Can't pick a negative number of items: " + n);
+        }
+        if (n > size) {
+            throw new EmptyBucketException();
+        }
+        copyItemsIfShared();
+
+        int firstPickedIndex = size - n;
+        for (int lastIndex = size - 1; lastIndex >= firstPickedIndex; lastIndex--) {
+            int itemIndex = randomSource.nextInt(lastIndex + 1);
+            int item = items[itemIndex];
+            items[itemIndex] = items[lastIndex];
+            items[lastIndex] = item;
+            if (itemPositions != null) {
+                itemPositions.put(items[itemIndex], itemIndex);
+                itemPositions.remove(item, -1);
+            }
+        }
+        size = firstPickedIndex;
+        return Arrays.copyOfRange(items, firstPickedIndex, firstPickedIndex + n);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param k {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int[] pickSample(int k) throws EmptyBucketException {
+        if (k > size) {
+            throw new EmptyBucketException();
+        }
+        return pickPositions(FloydSampler.sample(size, k, randomSource));
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param k {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int[] parallelPickSample(int k) throws EmptyBucketException {
+        if (k > size) {
+            throw new EmptyBucketException();
+        }
+        return pickPositions(FloydSampler.parallelSample(size, k, randomSource));
+    }
+
+    // Removes the items at the distinct positions passed as parameter and returns them in the same order
+    private int[] pickPositions(int[] positions) {
+        copyItemsIfShared();
+
+        int[] sample = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sample[i] = items[positions[i]];
+        }
+
+        // Removing the highest positions first guarantees that the last item moved into a freed position
+        // is never one of the picked items
+        int[] sortedPositions = Arrays.copyOf(positions, positions.length);
+        Arrays.sort(sortedPositions);
+        for (int i = sortedPositions.length - 1; i >= 0; i--) {
+            int position = sortedPositions[i];
+            int item = items[position];
+            items[position] = items[--size];
+            updateItemPositions(item, position);
+        }
+        return sample;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first call builds the index of the positions of the items, in linear time.
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean contains(int item) {
+        return itemPositions().containsKey(item);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first call builds the index of the positions of the items, in linear time.
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean removeItem(int item) {
+        int position = itemPositions().get(item, -1);
+        if (position < 0) {
+            return false;
+        }
+        copyItemsIfShared();
+
+        items[position] = items[--size];
+        updateItemPositions(item, position);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The item is appended after the last item of the bucket. The items array grows by half when it is full,
+     * so that putting items back is done in amortized constant time.
+     * @param item {@inheritDoc}
+     */
+    @Override
+    public void returnItem(int item) {
+        if (itemsShared || size == items.length) {
+            items = Arrays.copyOf(items, Math.max(size + (size >> 1), size + 1));
+            itemsShared = false;
+        }
+
+        items[size] = item;
+        if (itemPositions != null) {
+            itemPositions.put(item, size);
+        }
+        size++;
+    }
+
+    private IntIntHashMap itemPositions() {
+        if (itemPositions == null) {
+            itemPositions = new IntIntHashMap(size);
+            for (int i = 0; i < size; i++) {
+                itemPositions.put(items[i], i);
+            }
+        }
+        return itemPositions;
+    }
+
+    // Updates the index, if it was built, once the removed item was replaced at its position by the last item of the bucket
+    private void updateItemPositions(int removedItem, int position) {
+        if (itemPositions != null) {
+            itemPositions.remove(removedItem, -1);
+            if (position != size) {
+                itemPositions.put(items[position], position);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Makes the bucket passed as parameter hold the same items as this bucket without copying the items array.
+     * <p>
+     * Both buckets copy the array before their next modification of the items.
+     * @param copy The bucket that receives the items of this bucket
+     * @param randomSource The random source the bucket passed as parameter picks its items with
+     * @param <B> The type of the bucket that receives the items
+     * @return The bucket passed as parameter
+     */
+    protected <B extends AbstractIntBucket> B shareItemsWith(B copy, RandomSource randomSource) {
+        AbstractIntBucket sharingBucket = copy;
+        sharingBucket.randomSource = randomSource;
+        sharingBucket.items = this.items;
+        sharingBucket.size = this.size;
+        sharingBucket.itemsShared = true;
+        sharingBucket.itemPositions = null;
+        this.itemsShared = true;
+        return copy;
+    }
+
+    /**
+     * Gives this bucket its own copy of the items array if the array is shared with another bucket.
+     * Must be called before any modification of the {@link #items} array.
+     */
+    protected void copyItemsIfShared() {
+        if (itemsShared) {
+            items = Arrays.copyOf(items, size);
+            itemsShared = false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+/**
+ * Adapts a {@link Bucket} of Integer items that is not an {@link IntBucket} to the {@link IntBucket} interface.
+ *
+ * @see IntBucket#of(Bucket)
+ *
+ * @author Jihed Amine Maaref on 24-Dec-16.
+ */
+class BoxedIntBucket implements IntBucket {
+
+    private final Bucket<Integer> bucket;
+
+    BoxedIntBucket(Bucket<Integer> bucket) {
+        this.bucket = bucket;
+    }
+
+    @Override
+    public IntBucket getCopy() {
+        return new BoxedIntBucket(bucket.getCopy());
+    }
+
+    /**
+     * The adapted bucket picks its items on its own, so its random source can't be replaced
+     * @param randomSource The random source the copy would use
+     * @return Nothing, as this operation is not supported
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public IntBucket getCopy(RandomSource randomSource) {
+        throw new UnsupportedOperationException("The random source of a " + bucket.getClass().getSimpleName() + " can't be replaced");
+    }
+
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        return bucket.pickItem();
+    }
+
+    @Override
+    public Integer pickItem() throws EmptyBucketException {
+        return bucket.pickItem();
+    }
+
+    @Override
+    public int size() {
+        return bucket.size();
+    }
+}
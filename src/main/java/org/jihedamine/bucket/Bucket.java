@@ -12,6 +12,9 @@ import org.jihedamine.bucket.exceptions.EmptyBucketException;
 public interface Bucket<T> {
     /**
      * Creates a new bucket instance which items are identical copies of the calling bucket items.
+     * <p>
+     * Implementations may share the storage of the items between the calling bucket and the copy
+     * until an item is picked from either of them, so that copying a bucket that is never picked from is cheap.
      * @return New bucket instance which items are identical copies of the calling bucket items.
      */
     Bucket<T> getCopy();
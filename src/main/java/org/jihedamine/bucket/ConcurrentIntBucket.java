@@ -0,0 +1,53 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.random.RandomSource;
+
+/**
+ * A ConcurrentIntBucket is an {@link IntBucket} that can be picked from by several threads without external synchronization.
+ * <p>
+ * Every operation of the bucket is atomic: two threads never pick the same item,
+ * and {@link #pickItems(int)} picks all of its items or none of them.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public interface ConcurrentIntBucket extends IntBucket {
+
+    /**
+     * Returns a ConcurrentIntBucket view of the bucket passed as parameter.
+     * <p>
+     * If the bucket already is a ConcurrentIntBucket, it is returned as is.
+     * A {@link SequentialNumbersBucket} or a {@link LazySequentialNumbersBucket} that holds every number of its sequence
+     * is replaced by stripes of consecutive numbers, each guarded by its own lock, so that threads picking concurrently
+     * mostly lock different stripes. Each pick is drawn uniformly from the whole bucket with the random source of the bucket.
+     * Otherwise, the returned ConcurrentIntBucket delegates to the bucket while holding a single lock,
+     * so the bucket must not be used directly anymore.
+     * @param bucket Bucket of int items
+     * @return A ConcurrentIntBucket picking the items of the bucket passed as parameter
+     */
+    static ConcurrentIntBucket of(IntBucket bucket) {
+        if (bucket instanceof ConcurrentIntBucket) {
+            return (ConcurrentIntBucket) bucket;
+        }
+        StripedIntBucket stripedBucket = StripedIntBucket.of(bucket);
+        if (stripedBucket != null) {
+            return stripedBucket;
+        }
+        return new SynchronizedIntBucket(bucket);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    ConcurrentIntBucket getCopy();
+
+    /**
+     * {@inheritDoc}
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     */
+    @Override
+    ConcurrentIntBucket getCopy(RandomSource randomSource);
+}
@@ -0,0 +1,390 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a thread-safe implementation of the IntBucket interface
+ * that lets any number of threads pick, remove and put back items without locking.
+ * <p>
+ * The items are shuffled once when the bucket is constructed and are never modified afterwards.
+ * Whether each item is still in the bucket is kept in a bitmap of atomic words, one bit per item of the sequence.
+ * Picking an item is a single fetch-and-add of an atomic cursor over the shuffled items,
+ * followed by clearing the bit of the item under the cursor, which only fails if the item was removed.
+ * The threads picking concurrently therefore only share the cursor, so that picks scale with the number of threads,
+ * and once the cursor has passed the last item, a pick knows the bucket is sold out from the index it got.
+ * Removing an item and putting it back only clear and set its bit. An item that is put back is also pushed
+ * on a stack of primitive items, guarded by a lock, that the picks only look at once the cursor has passed the last item.
+ * The size of the bucket is kept in a {@link LongAdder} that the picks update without contending with each other.
+ * <p>
+ * The order in which the items are picked is fixed when the bucket is constructed, items put back aside.
+ * A copy only copies the bitmap of the bucket it was copied from. It lists and shuffles the items it holds
+ * when it is picked from for the first time, so that copies do not pick the items in the same order
+ * and copying a bucket which copy is never picked from costs one bit per item.
+ * <p>
+ * Example: <code>ConcurrentShuffledBucket(2, 5)</code> is a bucket that contains the 5 integer items
+ * <code>2, 3, 4, 5, 6</code> in a random order.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class ConcurrentShuffledBucket implements ConcurrentIntBucket {
+
+    private final int firstValue;
+
+    private final int nbItems;
+
+    // Random source used to shuffle the items of the bucket and of its copies
+    private final RandomSource randomSource;
+
+    // Shuffled items of the bucket, the items before the cursor having already been picked.
+    // A copy lists and shuffles its items on its first pick, under the lock of the bucket, before which the items are null.
+    private volatile int[] items;
+
+    // Index of the next item to pick. It exceeds the number of items once they have all been passed,
+    // and is a long so that the picks from a sold out bucket can't make it overflow.
+    private final AtomicLong cursor = new AtomicLong();
+
+    // Bit i of the word i / 64 is set while the item firstValue + i is in the bucket
+    private final AtomicLongArray availableItems;
+
+    // Number of items in the bucket when it was constructed
+    private final int initialSize;
+
+    // Items put back minus items picked and removed since the bucket was constructed
+    private final LongAdder sizeChanges = new LongAdder();
+
+    // Stack of the items put back into the bucket, which the cursor may have passed already.
+    // An item picked or removed since it was put back is left on the stack and skipped when it is popped.
+    private final Object returnedItemsLock = new Object();
+
+    private int[] returnedItems = new int[0];
+
+    // Written under the lock of the returned items, and read without it to skip the lock while no item was put back
+    private volatile int nbReturnedItems;
+
+    private ConcurrentShuffledBucket(int firstValue, int nbItems, int[] items, AtomicLongArray availableItems, int size,
+                                     RandomSource randomSource) {
+        // used by the getCopy method to instantiate a copy of the current bucket
+        this.firstValue = firstValue;
+        this.nbItems = nbItems;
+        this.items = items;
+        this.availableItems = availableItems;
+        this.initialSize = size;
+        this.randomSource = randomSource;
+    }
+
+    /**
+     * Constructs a bucket of integer items that form a sequence, in a random order
+     * @param firstValue The first value of the sequence of bucket items
+     * @param nbItems The number of bucket items
+     */
+    public ConcurrentShuffledBucket(int firstValue, int nbItems) {
+        this(firstValue, nbItems, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a bucket of integer items that form a sequence, shuffled with the random source passed as parameter
+     * <p>
+     * The random source is only used when the bucket is constructed and when its copies are first picked from,
+     * never by the other picks.
+     * @param firstValue The first value of the sequence of bucket items
+     * @param nbItems The number of bucket items
+     * @param randomSource The random source used to shuffle the items of the bucket and of its copies
+     */
+    public ConcurrentShuffledBucket(int firstValue, int nbItems, RandomSource randomSource) {
+        // a negative number of items results in an empty bucket
+        this(firstValue, Math.max(nbItems, 0), sequence(firstValue, Math.max(nbItems, 0)),
+                allAvailable(Math.max(nbItems, 0)), Math.max(nbItems, 0), randomSource);
+        shuffle(items, randomSource);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method advances the cursor with a fetch-and-add until it clears the bit of an item, without locking.
+     * The stack of the items put back is only looked at, under its lock, once the cursor has passed the last item.
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        int[] items = ownItems();
+        while (true) {
+            long index = cursor.getAndIncrement();
+            if (index >= items.length) {
+                return pickReturnedItem();
+            }
+            int item = items[(int) index];
+            // the bit is only clear if the item was removed before the cursor reached it
+            if (clearBit(item - firstValue)) {
+                sizeChanges.decrement();
+                return item;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The items are picked one by one. If concurrent picks empty the bucket before all of them are picked,
+     * the items picked so far are put back before the exception is thrown.
+     * @param n {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public int[] pickItems(int n) throws EmptyBucketException {
+        // a negative n is not a number of items, and would fail once the items of the bucket are listed
+        if (n < 0) {
+            throw new IllegalArgumentException("Can't pick a negative number of items: " + n);
+        }
+        if (n > size()) {
+            throw new EmptyBucketException();
+        }
+        int[] pickedItems = new int[n];
+        for (int i = 0; i < n; i++) {
+            try {
+                pickedItems[i] = pickInt();
+            } catch (EmptyBucketException e) {
+                for (int j = 0; j < i; j++) {
+                    returnItem(pickedItems[j]);
+                }
+                throw e;
+            }
+        }
+        return pickedItems;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method reads the bit of the item, without locking.
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean contains(int item) {
+        long offset = (long) item - firstValue;
+        return offset >= 0 && offset < nbItems && (availableItems.get((int) (offset >>> 6)) & (1L << offset)) != 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method clears the bit of the item, without locking.
+     * An item that a concurrent pick clears first is not removed.
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean removeItem(int item) {
+        if (!contains(item) || !clearBit(item - firstValue)) {
+            return false;
+        }
+        sizeChanges.decrement();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method sets the bit of the item without locking, then pushes it on the stack of the items put back under its lock.
+     * @param item {@inheritDoc}
+     * @throws IllegalArgumentException if the item is not an item of the sequence of the bucket or if it is in the bucket already
+     */
+    @Override
+    public void returnItem(int item) {
+        long offset = (long) item - firstValue;
+        if (offset < 0 || offset >= nbItems) {
+            throw new IllegalArgumentException("Item " + item + " is not an item of the sequence starting from "
+                    + firstValue + " and having " + nbItems + " items");
+        }
+        if (!setBit((int) offset)) {
+            throw new IllegalArgumentException("Item " + item + " is in the bucket already");
+        }
+        synchronized (returnedItemsLock) {
+            if (nbReturnedItems == returnedItems.length) {
+                returnedItems = Arrays.copyOf(returnedItems, Math.max(2 * nbReturnedItems, 1));
+            }
+            returnedItems[nbReturnedItems] = item;
+            nbReturnedItems++;
+        }
+        sizeChanges.increment();
+    }
+
+    /**
+     * Returns the first value of the sequence of bucket items
+     * @return The first value of the sequence of bucket items
+     */
+    @Override
+    public int lowestItem() {
+        return firstValue;
+    }
+
+    /**
+     * Returns the last value of the sequence of bucket items
+     * @return The last value of the sequence of bucket items
+     */
+    @Override
+    public int highestItem() {
+        return firstValue + nbItems - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The size is summed without locking, so it may not account for the picks, removals and returns in progress.
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return (int) Math.max(initialSize + sizeChanges.sum(), 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy copies the bitmap of the items of this bucket.
+     * It lists and shuffles its items on its first pick, which takes a time proportional to the size of the sequence.
+     * @return {@inheritDoc}
+     */
+    @Override
+    public ConcurrentShuffledBucket getCopy() {
+        return getCopy(randomSource.split());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy copies the bitmap of the items of this bucket.
+     * It lists and shuffles its items with the random source passed as parameter on its first pick.
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public ConcurrentShuffledBucket getCopy(RandomSource randomSource) {
+        AtomicLongArray copiedItems = new AtomicLongArray(availableItems.length());
+        int copySize = 0;
+        for (int i = 0; i < copiedItems.length(); i++) {
+            long bits = availableItems.get(i);
+            copiedItems.set(i, bits);
+            copySize += Long.bitCount(bits);
+        }
+        return new ConcurrentShuffledBucket(firstValue, nbItems, null, copiedItems, copySize, randomSource);
+    }
+
+    // Pops the items put back until it clears the bit of one of them, the cursor having passed the last item
+    private int pickReturnedItem() throws EmptyBucketException {
+        if (nbReturnedItems > 0) {
+            synchronized (returnedItemsLock) {
+                while (nbReturnedItems > 0) {
+                    nbReturnedItems--;
+                    int item = returnedItems[nbReturnedItems];
+                    if (clearBit(item - firstValue)) {
+                        sizeChanges.decrement();
+                        return item;
+                    }
+                }
+            }
+        }
+        throw new EmptyBucketException();
+    }
+
+    // Returns the shuffled items of the bucket, after listing them if the bucket is a copy that was not picked from yet
+    private int[] ownItems() {
+        int[] ownItems = items;
+        if (ownItems == null) {
+            synchronized (this) {
+                ownItems = items;
+                if (ownItems == null) {
+                    int nbAvailable = 0;
+                    for (int i = 0; i < availableItems.length(); i++) {
+                        nbAvailable += Long.bitCount(availableItems.get(i));
+                    }
+                    ownItems = new int[nbAvailable];
+                    int nbListed = 0;
+                    for (int offset = 0; offset < nbItems; offset++) {
+                        if ((availableItems.get(offset >>> 6) & (1L << offset)) != 0) {
+                            if (nbListed == ownItems.length) {
+                                // items put back while the items are listed may outnumber the items counted
+                                ownItems = Arrays.copyOf(ownItems, Math.max(2 * nbListed, 1));
+                            }
+                            ownItems[nbListed++] = firstValue + offset;
+                        }
+                    }
+                    // the items removed concurrently are skipped by the picks
+                    if (nbListed < ownItems.length) {
+                        ownItems = Arrays.copyOf(ownItems, nbListed);
+                    }
+                    shuffle(ownItems, randomSource);
+                    items = ownItems;
+                }
+            }
+        }
+        return ownItems;
+    }
+
+    // Clears the bit of the item at the offset passed as parameter, and returns whether it was set
+    private boolean clearBit(int offset) {
+        int word = offset >>> 6;
+        long bit = 1L << offset;
+        while (true) {
+            long bits = availableItems.get(word);
+            if ((bits & bit) == 0) {
+                return false;
+            }
+            if (availableItems.compareAndSet(word, bits, bits & ~bit)) {
+                return true;
+            }
+        }
+    }
+
+    // Sets the bit of the item at the offset passed as parameter, and returns whether it was clear
+    private boolean setBit(int offset) {
+        int word = offset >>> 6;
+        long bit = 1L << offset;
+        while (true) {
+            long bits = availableItems.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+            if (availableItems.compareAndSet(word, bits, bits | bit)) {
+                return true;
+            }
+        }
+    }
+
+    private static AtomicLongArray allAvailable(int nbItems) {
+        AtomicLongArray availableItems = new AtomicLongArray((int) (((long) nbItems + 63) >>> 6));
+        for (int i = 0; i < nbItems >>> 6; i++) {
+            availableItems.set(i, -1L);
+        }
+        if ((nbItems & 63) != 0) {
+            availableItems.set(nbItems >>> 6, (1L << nbItems) - 1);
+        }
+        return availableItems;
+    }
+
+    private static int[] sequence(int firstValue, int nbItems) {
+        int[] sequence = new int[nbItems];
+        for (int i = 0; i < nbItems; i++) {
+            sequence[i] = firstValue + i;
+        }
+        return sequence;
+    }
+
+    private static void shuffle(int[] items, RandomSource randomSource) {
+        for (int i = items.length - 1; i > 0; i--) {
+            int j = randomSource.nextInt(i + 1);
+            int item = items[i];
+            items[i] = items[j];
+            items[j] = item;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.jihedamine.bucket;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Releases the native memory of direct and mapped byte buffers without waiting for them to be garbage collected.
+ * <p>
+ * The memory is released with <code>sun.misc.Unsafe.invokeCleaner</code> when the running JVM provides it.
+ * Otherwise, the memory is released when the buffers are garbage collected.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public final class DirectBufferCleaner {
+
+    private static final Logger LOG = Logger.getLogger(DirectBufferCleaner.class.getName());
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.log(Level.FINE, "Direct buffers will be released by the garbage collector", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private DirectBufferCleaner() {
+        // Constructor is private as utility class shouldn't be instantiated
+    }
+
+    /**
+     * Releases the native memory of the buffer. The buffer must not be accessed afterwards.
+     * @param buffer A direct or mapped byte buffer that is not a slice or a duplicate of another buffer
+     */
+    public static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            LOG.log(Level.FINE, "Direct buffer will be released by the garbage collector", e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.jihedamine.bucket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Array of ints stored outside of the Java heap, in direct byte buffers or in buffers mapped to a file.
+ * <p>
+ * A byte buffer can't hold more than 2GB, so the ints are split into chunks of at most 2<sup>27</sup> ints.
+ * <p>
+ * The array counts the buckets that reference it: it is created with one reference,
+ * {@link #retain()} adds a reference and {@link #release()} removes one.
+ * The native memory is released when the last reference is removed.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+class DirectIntArray {
+
+    private static final int DEFAULT_CHUNK_SHIFT = 27;
+
+    private final int chunkShift;
+    private final int chunkMask;
+
+    private final ByteBuffer[] buffers;
+    private final IntBuffer[] chunks;
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    /**
+     * Allocates an array of ints outside of the Java heap
+     * @param length The number of ints of the array
+     */
+    DirectIntArray(int length) {
+        this(length, DEFAULT_CHUNK_SHIFT);
+    }
+
+    DirectIntArray(int length, int chunkShift) {
+        this(new ByteBuffer[nbChunks(length, chunkShift)], chunkShift);
+        for (int chunk = 0; chunk < buffers.length; chunk++) {
+            buffers[chunk] = ByteBuffer.allocateDirect(chunkLength(length, chunk, chunkShift) * Integer.BYTES).order(ByteOrder.nativeOrder());
+            chunks[chunk] = buffers[chunk].asIntBuffer();
+        }
+    }
+
+    private DirectIntArray(ByteBuffer[] buffers, int chunkShift) {
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+        this.buffers = buffers;
+        this.chunks = new IntBuffer[buffers.length];
+    }
+
+    /**
+     * Maps a region of a file holding big-endian packed ints to an array of ints.
+     * Modifications of the array are written to the file.
+     * @param channel The channel of the file, opened for reading and writing
+     * @param position The position in the file of the first int of the array
+     * @param length The number of ints of the array
+     * @return An array of ints mapped to the file, with one reference
+     * @throws IOException if the file can't be mapped
+     */
+    static DirectIntArray map(FileChannel channel, long position, int length) throws IOException {
+        DirectIntArray array = new DirectIntArray(new ByteBuffer[nbChunks(length, DEFAULT_CHUNK_SHIFT)], DEFAULT_CHUNK_SHIFT);
+        int chunk = 0;
+        try {
+            for (; chunk < array.buffers.length; chunk++) {
+                long chunkPosition = position + ((long) chunk << DEFAULT_CHUNK_SHIFT) * Integer.BYTES;
+                long chunkSize = (long) chunkLength(length, chunk, DEFAULT_CHUNK_SHIFT) * Integer.BYTES;
+                array.buffers[chunk] = channel.map(FileChannel.MapMode.READ_WRITE, chunkPosition, chunkSize);
+                array.chunks[chunk] = array.buffers[chunk].asIntBuffer();
+            }
+        } catch (IOException | RuntimeException e) {
+            // unmap the chunks mapped before the failure
+            for (int mappedChunk = 0; mappedChunk < chunk; mappedChunk++) {
+                DirectBufferCleaner.free(array.buffers[mappedChunk]);
+            }
+            throw e;
+        }
+        return array;
+    }
+
+    int get(int index) {
+        return chunks[index >>> chunkShift].get(index & chunkMask);
+    }
+
+    void set(int index, int value) {
+        chunks[index >>> chunkShift].put(index & chunkMask, value);
+    }
+
+    /**
+     * Copies the first ints of this array into a new array, chunk by chunk
+     * @param length The number of ints to copy
+     * @return A new array holding the first ints of this array, with one reference
+     */
+    DirectIntArray copy(int length) {
+        DirectIntArray copy = new DirectIntArray(length, chunkShift);
+        for (int chunk = 0; chunk < copy.chunks.length; chunk++) {
+            IntBuffer source = chunks[chunk].duplicate();
+            source.limit(copy.chunks[chunk].capacity());
+            source.position(0);
+            IntBuffer target = copy.chunks[chunk].duplicate();
+            target.put(source);
+        }
+        return copy;
+    }
+
+    /**
+     * Writes the modifications of the chunks mapped to a file to the storage device holding the file
+     */
+    void force() {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the array is referenced by more than one bucket
+     * @return true if the array is referenced by more than one bucket
+     */
+    boolean isShared() {
+        return references.get() > 1;
+    }
+
+    void retain() {
+        references.incrementAndGet();
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            for (int chunk = 0; chunk < buffers.length; chunk++) {
+                DirectBufferCleaner.free(buffers[chunk]);
+                buffers[chunk] = null;
+                chunks[chunk] = null;
+            }
+        }
+    }
+
+    private static int nbChunks(int length, int chunkShift) {
+        return (int) (((long) length + (1 << chunkShift) - 1) >>> chunkShift);
+    }
+
+    private static int chunkLength(int length, int chunk, int chunkShift) {
+        return Math.min(length - (chunk << chunkShift), 1 << chunkShift);
+    }
+}
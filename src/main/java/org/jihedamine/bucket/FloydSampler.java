@@ -0,0 +1,177 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.random.RandomSource;
+import org.jihedamine.util.IntIntHashMap;
+
+import java.util.stream.IntStream;
+
+/**
+ * Sampling engine that picks k distinct positions out of the positions <code>0</code> to <code>n - 1</code>
+ * using Robert Floyd's sampling algorithm.
+ * <p>
+ * The cost of a sample depends on k only, whatever the value of n.
+ * The sampled positions are returned in a uniformly random order, so that any of them is as likely to be first.
+ * <p>
+ * {@link #parallelSample(int, int, RandomSource)} splits the positions into contiguous ranges
+ * and samples each range on its own core with its own split of the random generator.
+ * Only the drawing of the number of positions sampled in each range and the gathering of the sampled positions run on the calling thread.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public final class FloydSampler {
+
+    private FloydSampler() {
+        // Constructor is private as utility class shouldn't be instantiated
+    }
+
+    /**
+     * Returns k distinct positions picked uniformly among the positions <code>0</code> to <code>n - 1</code>,
+     * in a uniformly random order.
+     * @param n The number of positions to pick from
+     * @param k The number of positions to pick
+     * @param random The random generator used to pick the positions
+     * @return An array of k distinct positions between <code>0</code> and <code>n - 1</code>
+     * @throws IllegalArgumentException if k is negative or greater than n
+     */
+    public static int[] sample(int n, int k, RandomSource random) {
+        checkArguments(n, k);
+        int[] positions = new int[k];
+        sampleRange(0, n, k, random, positions, 0);
+        shuffle(positions, random);
+        return positions;
+    }
+
+    /**
+     * Returns k distinct positions picked uniformly among the positions <code>0</code> to <code>n - 1</code>,
+     * in a uniformly random order, sampling ranges of positions in parallel.
+     * <p>
+     * The range each sampled position falls in is first drawn, one sampled position at a time,
+     * so that the number of positions picked in each range follows the distribution it would have in a sequential sample.
+     * The sequence of these ranges is a uniformly random order of the ranges, which becomes the order of the sample.
+     * Each range is then sampled and shuffled independently on its own core,
+     * which keeps the sample unbiased and free of duplicates,
+     * and the sampled positions of the ranges are finally gathered in the order of the sequence.
+     * <p>
+     * Drawing the range of a sampled position takes <code>log(r)</code> steps for <code>r</code> ranges,
+     * and gathering the positions doesn't use the random generator, so that the Floyd sampling and the shuffling,
+     * which are the most expensive steps, are the ones that are run in parallel.
+     * @param n The number of positions to pick from
+     * @param k The number of positions to pick
+     * @param random The random generator used to pick the positions, which is split once per range
+     * @return An array of k distinct positions between <code>0</code> and <code>n - 1</code>
+     * @throws IllegalArgumentException if k is negative or greater than n
+     */
+    public static int[] parallelSample(int n, int k, RandomSource random) {
+        return parallelSample(n, k, random, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Same as parallelSample(int, int, RandomSource), splitting the positions into at most maxRanges ranges
+    static int[] parallelSample(int n, int k, RandomSource random, int maxRanges) {
+        checkArguments(n, k);
+        int nbRanges = Math.max(1, Math.min(maxRanges, k));
+
+        int[] rangeStarts = new int[nbRanges + 1];
+        for (int range = 0; range < nbRanges; range++) {
+            rangeStarts[range + 1] = (int) ((long) n * (range + 1) / nbRanges);
+        }
+
+        // Draw, one position at a time, the range each sampled position falls in.
+        // The sample array holds the range of each sampled position until the positions are gathered.
+        int[] sample = new int[k];
+        int[] rangeSampleSizes = new int[nbRanges];
+        RemainingPositions remainingPositions = new RemainingPositions(rangeStarts);
+        for (int i = 0; i < k; i++) {
+            int range = remainingPositions.removeAt(random.nextInt(n - i));
+            sample[i] = range;
+            rangeSampleSizes[range]++;
+        }
+
+        RandomSource[] rangeRandoms = new RandomSource[nbRanges];
+        for (int range = 0; range < nbRanges; range++) {
+            rangeRandoms[range] = random.split();
+        }
+
+        int[][] rangeSamples = new int[nbRanges][];
+        IntStream.range(0, nbRanges).parallel().forEach(range -> {
+            int[] rangeSample = new int[rangeSampleSizes[range]];
+            sampleRange(rangeStarts[range], rangeStarts[range + 1] - rangeStarts[range], rangeSample.length,
+                    rangeRandoms[range], rangeSample, 0);
+            shuffle(rangeSample, rangeRandoms[range]);
+            rangeSamples[range] = rangeSample;
+        });
+
+        // Replace the range of each sampled position by the next position sampled in that range
+        int[] gatheredPositions = new int[nbRanges];
+        for (int i = 0; i < k; i++) {
+            int range = sample[i];
+            sample[i] = rangeSamples[range][gatheredPositions[range]++];
+        }
+        return sample;
+    }
+
+    // Floyd's algorithm: writes k distinct positions among [from, from + n) at positions[offset] to positions[offset + k - 1]
+    private static void sampleRange(int from, int n, int k, RandomSource random, int[] positions, int offset) {
+        IntIntHashMap sampled = new IntIntHashMap(k);
+        int i = offset;
+        for (int j = n - k; j < n; j++) {
+            int position = random.nextInt(j + 1);
+            if (sampled.containsKey(position)) {
+                position = j;
+            }
+            sampled.put(position, position);
+            positions[i++] = from + position;
+        }
+    }
+
+    private static void shuffle(int[] positions, RandomSource random) {
+        for (int i = positions.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int position = positions[i];
+            positions[i] = positions[j];
+            positions[j] = position;
+        }
+    }
+
+    private static void checkArguments(int n, int k) {
+        if (k < 0 || k > n) {
+            throw new IllegalArgumentException("Can't sample " + k + " positions out of " + n);
+        }
+    }
+
+    // Counts the positions that remain to be sampled in each range in a Fenwick tree,
+    // so that finding the range of the i-th remaining position and removing it takes log(r) steps
+    private static final class RemainingPositions {
+
+        private final int[] tree;
+        private final int highestBit;
+
+        RemainingPositions(int[] rangeStarts) {
+            int nbRanges = rangeStarts.length - 1;
+            tree = new int[nbRanges + 1];
+            for (int i = 1; i <= nbRanges; i++) {
+                tree[i] += rangeStarts[i] - rangeStarts[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= nbRanges) {
+                    tree[parent] += tree[i];
+                }
+            }
+            highestBit = Integer.highestOneBit(nbRanges);
+        }
+
+        // Returns the range of the remaining position of index position, which is no longer remaining
+        int removeAt(int position) {
+            int index = 0;
+            for (int bit = highestBit; bit > 0; bit >>= 1) {
+                int next = index + bit;
+                if (next < tree.length && tree[next] <= position) {
+                    index = next;
+                    position -= tree[next];
+                }
+            }
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i]--;
+            }
+            return index;
+        }
+    }
+}
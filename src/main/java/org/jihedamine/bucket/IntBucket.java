@@ -0,0 +1,177 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+/**
+ * An IntBucket is a {@link Bucket} of int items that can be picked without boxing them.
+ * <p>
+ * Callers that only deal with primitive numbers (such as {@link org.jihedamine.lotterydraw.LotteryDraw})
+ * should use {@link #pickInt()} rather than {@link #pickItem()} so that no {@link Integer} is allocated per pick.
+ *
+ * @author Jihed Amine Maaref on 24-Dec-16.
+ */
+public interface IntBucket extends Bucket<Integer> {
+
+    /**
+     * Returns an IntBucket view of the bucket passed as parameter.
+     * <p>
+     * If the bucket already is an IntBucket, it is returned as is.
+     * Otherwise, the returned IntBucket delegates to the bucket and unboxes the items it picks.
+     * @param bucket Bucket of integer items
+     * @return An IntBucket picking the items of the bucket passed as parameter
+     */
+    static IntBucket of(Bucket<Integer> bucket) {
+        if (bucket instanceof IntBucket) {
+            return (IntBucket) bucket;
+        }
+        return new BoxedIntBucket(bucket);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    IntBucket getCopy();
+
+    /**
+     * Creates a new bucket instance which items are identical copies of the calling bucket items
+     * and which picks its items with the random source passed as parameter.
+     * <p>
+     * Copies created with a seeded random source pick the same items in the same order,
+     * which makes it possible to replay the picks of a bucket.
+     * @param randomSource The random source used by the new bucket instance to pick its items
+     * @return New bucket instance which items are identical copies of the calling bucket items
+     * @throws UnsupportedOperationException if the bucket does not let its random source be replaced
+     */
+    IntBucket getCopy(RandomSource randomSource);
+
+    /**
+     * Gets a random item from the bucket as a primitive int. The item is removed from the bucket items.
+     * @return The item that was picked from the bucket.
+     * @throws EmptyBucketException if the bucket doesn't have any items.
+     */
+    int pickInt() throws EmptyBucketException;
+
+    /**
+     * Gets n random items from the bucket in one operation. The items are removed from the bucket items.
+     * <p>
+     * The operation is atomic: if the bucket has fewer than n items, no item is picked.
+     * Implementations are free to pick the whole block of items at once rather than one item at a time.
+     * The default implementation checks the size of the bucket once, then picks the items with {@link #pickInt()}.
+     * @param n The number of items to pick
+     * @return The items that were picked from the bucket, in a random order
+     * @throws EmptyBucketException if the bucket has fewer than n items, in which case no item is picked
+     * @throws IllegalArgumentException if n is negative, in which case no item is picked
+     */
+    default int[] pickItems(int n) throws EmptyBucketException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Can't pick a negative number of items: " + n);
+        }
+        if (n > size()) {
+            throw new EmptyBucketException();
+        }
+        int[] pickedItems = new int[n];
+        for (int i = 0; i < n; i++) {
+            pickedItems[i] = pickInt();
+        }
+        return pickedItems;
+    }
+
+    /**
+     * Picks k distinct random items from the bucket at once. The items are removed from the bucket items.
+     * <p>
+     * The picked items are returned in a uniformly random order.
+     * Implementations sample the items with {@link FloydSampler} so that the cost of a sample depends on k
+     * rather than on the size of the bucket.
+     * The default implementation calls {@link #pickItems(int)}.
+     * @param k The number of items to pick
+     * @return The items that were picked from the bucket
+     * @throws EmptyBucketException if the bucket has fewer than k items, in which case no item is picked
+     */
+    default int[] pickSample(int k) throws EmptyBucketException {
+        return pickItems(k);
+    }
+
+    /**
+     * Same as {@link #pickSample(int)}, but the sample is allowed to be computed on several cores.
+     * The default implementation calls {@link #pickSample(int)}.
+     * @param k The number of items to pick
+     * @return The items that were picked from the bucket
+     * @throws EmptyBucketException if the bucket has fewer than k items, in which case no item is picked
+     */
+    default int[] parallelPickSample(int k) throws EmptyBucketException {
+        return pickSample(k);
+    }
+
+    /**
+     * Returns whether the item passed as parameter is in the bucket.
+     * <p>
+     * Buckets that support targeted removal answer in constant time.
+     * The default implementation throws an {@link UnsupportedOperationException}.
+     * @param item The item to look for
+     * @return true if the item is in the bucket
+     * @throws UnsupportedOperationException if the bucket does not support looking up its items
+     */
+    default boolean contains(int item) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support looking up its items");
+    }
+
+    /**
+     * Removes the item passed as parameter from the bucket, if the bucket holds it.
+     * <p>
+     * Buckets that support targeted removal remove the item in constant time.
+     * The default implementation throws an {@link UnsupportedOperationException}.
+     * @param item The item to remove
+     * @return true if the item was in the bucket and was removed, false if the bucket did not hold the item
+     * @throws UnsupportedOperationException if the bucket does not support removing a specific item
+     */
+    default boolean removeItem(int item) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support removing a specific item");
+    }
+
+    /**
+     * Puts back into the bucket an item that was picked or removed from it, so that it can be picked again.
+     * <p>
+     * The item must not be in the bucket already.
+     * Buckets that support targeted removal put the item back in constant time.
+     * The default implementation throws an {@link UnsupportedOperationException}.
+     * @param item The item to put back into the bucket
+     * @throws UnsupportedOperationException if the bucket does not support putting items back
+     */
+    default void returnItem(int item) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support putting items back");
+    }
+
+    /**
+     * Returns a value that is lower than or equal to every item of the bucket, including the items that were picked from it.
+     * <p>
+     * Together with {@link #highestItem()}, it lets callers index the items of the bucket in an array.
+     * The default implementation returns {@link Integer#MIN_VALUE}, as the bucket doesn't know the bounds of its items.
+     * @return A lower bound of the items of the bucket
+     */
+    default int lowestItem() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns a value that is greater than or equal to every item of the bucket, including the items that were picked from it.
+     * <p>
+     * The default implementation returns {@link Integer#MAX_VALUE}, as the bucket doesn't know the bounds of its items.
+     * @return An upper bound of the items of the bucket
+     */
+    default int highestItem() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Boxes the item returned by {@link #pickInt()}.
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    default Integer pickItem() throws EmptyBucketException {
+        return pickInt();
+    }
+}
@@ -0,0 +1,318 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+import org.jihedamine.util.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * This class is an implementation of the IntBucket interface
+ * holding the same items as a {@link SequentialNumbersBucket} without materializing them.
+ * <p>
+ * The bucket only stores the first value of the sequence, its current size
+ * and the positions of the items that were displaced by the picks.
+ * Each pick swaps a random position with the last position of the bucket, as a Fisher-Yates shuffle would,
+ * but only the displaced positions are recorded in a sparse map.
+ * <p>
+ * Constructing the bucket is done in constant time whatever the number of items,
+ * and the memory used by the bucket grows with the number of picks rather than with the number of items.
+ * This makes it suitable for lottery draws with hundreds of millions of balls.
+ * <p>
+ * {@link #contains(int)} and {@link #removeItem(int)} look items up in the reverse map of the displaced positions,
+ * which is only built by the first call to either method and then kept up to date by the picks.
+ * <p>
+ * Example: <code>LazySequentialNumbersBucket(2, 5)</code> is a bucket that contains 5 integer items
+ * which form a sequence starting from 2 and having 5 items. The bucket items are: <code>2, 3, 4, 5, 6</code>.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LazySequentialNumbersBucket implements IntBucket {
+
+    private final int firstValue;
+    private final int lastValue;
+
+    // read by StripedIntBucket to split the bucket into stripes picked with the same random source
+    final RandomSource randomSource;
+
+    private int size;
+
+    // Maps each displaced position to the offset from firstValue of the item it now holds.
+    // A position that is not in the map holds the item firstValue + position.
+    private IntIntHashMap displacedItems;
+
+    // Whether the displaced items map may be read by another bucket, in which case it must be copied before being modified
+    private boolean displacedItemsShared;
+
+    // Maps the offset of each displaced item to its position, or null until an item is looked up.
+    // An item that is not in the map is at the position equal to its offset, if it is still in the bucket.
+    private IntIntHashMap itemPositions;
+
+    private LazySequentialNumbersBucket(int firstValue, int lastValue, int size, IntIntHashMap displacedItems,
+                                        RandomSource randomSource) {
+        // used by the getCopy method to instantiate a copy of the current bucket
+        this.firstValue = firstValue;
+        this.lastValue = lastValue;
+        this.randomSource = randomSource;
+        this.size = size;
+        this.displacedItems = displacedItems;
+    }
+
+    /**
+     * Constructs a bucket of integer items that form a sequence, without materializing the items
+     * @param firstValue The first value of the sequence of bucket items
+     * @param nbItems The number of bucket items
+     */
+    public LazySequentialNumbersBucket(int firstValue, int nbItems) {
+        this(firstValue, nbItems, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a bucket of integer items that form a sequence, without materializing the items,
+     * which items are picked with the random source passed as parameter
+     * @param firstValue The first value of the sequence of bucket items
+     * @param nbItems The number of bucket items
+     * @param randomSource The random source used to pick the items of the bucket
+     */
+    public LazySequentialNumbersBucket(int firstValue, int nbItems, RandomSource randomSource) {
+        // a negative number of items results in an empty bucket
+        this(firstValue, firstValue + Math.max(nbItems, 0) - 1, Math.max(nbItems, 0), new IntIntHashMap(), randomSource);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        if (size == 0) {
+            throw new EmptyBucketException();
+        }
+
+        copyDisplacedItemsIfShared();
+        return firstValue + removePosition(randomSource.nextInt(size));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The items are sampled with {@link #pickSample(int)}.
+     * @param n {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int[] pickItems(int n) throws EmptyBucketException {
+        return pickSample(n);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param k {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int[] pickSample(int k) throws EmptyBucketException {
+        if (k > size) {
+            throw new EmptyBucketException();
+        }
+        return pickPositions(FloydSampler.sample(size, k, randomSource));
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param k {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int[] parallelPickSample(int k) throws EmptyBucketException {
+        if (k > size) {
+            throw new EmptyBucketException();
+        }
+        return pickPositions(FloydSampler.parallelSample(size, k, randomSource));
+    }
+
+    // Removes the items at the distinct positions passed as parameter and returns them in the same order
+    private int[] pickPositions(int[] positions) {
+        copyDisplacedItemsIfShared();
+
+        int[] sample = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sample[i] = firstValue + displacedItems.get(positions[i], positions[i]);
+        }
+
+        // Removing the highest positions first guarantees that the last item moved into a freed position
+        // is never one of the picked items
+        int[] sortedPositions = Arrays.copyOf(positions, positions.length);
+        Arrays.sort(sortedPositions);
+        for (int i = sortedPositions.length - 1; i >= 0; i--) {
+            removePosition(sortedPositions[i]);
+        }
+        return sample;
+    }
+
+    // Removes the item at the position passed as parameter and returns its offset from firstValue
+    private int removePosition(int position) {
+        int lastPosition = --size;
+        int removedOffset = displacedItems.get(position, position);
+
+        // move the last item to the removed position, then forget the last position which is out of the bucket
+        if (position != lastPosition) {
+            displacedItems.put(position, displacedItems.get(lastPosition, lastPosition));
+        }
+        displacedItems.remove(lastPosition, lastPosition);
+
+        if (itemPositions != null) {
+            itemPositions.remove(removedOffset, -1);
+            if (position != lastPosition) {
+                int movedOffset = displacedItems.get(position, position);
+                if (movedOffset == position) {
+                    itemPositions.remove(movedOffset, -1);
+                } else {
+                    itemPositions.put(movedOffset, position);
+                }
+            }
+        }
+
+        return removedOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first call builds the reverse map of the displaced positions, in time proportional to the number of picks.
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean contains(int item) {
+        return positionOf(item) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first call builds the reverse map of the displaced positions, in time proportional to the number of picks.
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean removeItem(int item) {
+        int position = positionOf(item);
+        if (position < 0) {
+            return false;
+        }
+        copyDisplacedItemsIfShared();
+        removePosition(position);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The item is put at the position that follows the last position of the bucket, which is recorded as displaced.
+     * @param item {@inheritDoc}
+     * @throws IllegalArgumentException if the item is lower than the first value of the sequence or if the bucket is full
+     */
+    @Override
+    public void returnItem(int item) {
+        long offset = (long) item - firstValue;
+        if (offset < 0 || offset >= Integer.MAX_VALUE || size == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Item " + item + " is not an item of the sequence starting from " + firstValue);
+        }
+        copyDisplacedItemsIfShared();
+
+        int position = size++;
+        if (offset != position) {
+            displacedItems.put(position, (int) offset);
+            if (itemPositions != null) {
+                itemPositions.put((int) offset, position);
+            }
+        }
+    }
+
+    /**
+     * Returns the first value of the sequence of bucket items
+     * @return The first value of the sequence of bucket items
+     */
+    @Override
+    public int lowestItem() {
+        return firstValue;
+    }
+
+    /**
+     * Returns the last value of the sequence of bucket items
+     * @return The last value of the sequence of bucket items
+     */
+    @Override
+    public int highestItem() {
+        return lastValue;
+    }
+
+    // Returns the position of the item passed as parameter, or -1 if the item is not in the bucket
+    private int positionOf(int item) {
+        long offset = (long) item - firstValue;
+        if (offset < 0 || offset >= Integer.MAX_VALUE) {
+            return -1;
+        }
+
+        if (itemPositions == null) {
+            IntIntHashMap positions = new IntIntHashMap(displacedItems.size());
+            displacedItems.forEach((position, displacedOffset) -> {
+                if (position != displacedOffset) {
+                    positions.put(displacedOffset, position);
+                }
+            });
+            itemPositions = positions;
+        }
+
+        // The item is in the bucket only if its position is in the bucket and still holds it
+        int position = itemPositions.get((int) offset, (int) offset);
+        return position < size && displacedItems.get(position, position) == offset ? position : -1;
+    }
+
+    private void copyDisplacedItemsIfShared() {
+        if (displacedItemsShared) {
+            displacedItems = new IntIntHashMap(displacedItems);
+            displacedItemsShared = false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the displaced positions of this bucket until either of them is picked from.
+     * @return {@inheritDoc}
+     */
+    @Override
+    public LazySequentialNumbersBucket getCopy() {
+        return getCopy(randomSource.split());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the displaced positions of this bucket until either of them is picked from.
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public LazySequentialNumbersBucket getCopy(RandomSource randomSource) {
+        LazySequentialNumbersBucket copy = new LazySequentialNumbersBucket(firstValue, lastValue, size, displacedItems, randomSource);
+        copy.displacedItemsShared = true;
+        this.displacedItemsShared = true;
+        return copy;
+    }
+}
@@ -0,0 +1,317 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.BucketInitializationException;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is an implementation of the IntBucket interface which items are read from a file of packed ints.
+ * <p>
+ * The file holds the items as consecutive 4 bytes big-endian ints, as written by {@link java.io.DataOutputStream#writeInt(int)},
+ * for instance the serial numbers of pre-printed tickets.
+ * The file is mapped to memory rather than read, so that opening the bucket neither parses the file nor copies it to the heap,
+ * whatever its size.
+ * <p>
+ * A pick swaps the picked item with the last item of the bucket inside the mapping,
+ * so that once the bucket is closed the file holds all of its original items:
+ * the remaining items first, then the picked items in reverse order of picking.
+ * <p>
+ * The number of remaining items is kept in a state file next to the items file, named after it with the
+ * {@value #STATE_FILE_SUFFIX} suffix, together with whether a bucket has the file open.
+ * Each pick writes the number of remaining items to the mapped state file right after its swap,
+ * and the swap is preceded by a record of the pick in the state file, so that a swap interrupted halfway can be completed.
+ * A bucket opened again on the same file, after a restart of the process for instance, resumes with the items that were not picked yet.
+ * <p>
+ * Closing the bucket writes the items and the state to the storage device, and marks the state closed last.
+ * Opening a file which state is not marked closed throws a {@link BucketInitializationException}, as another bucket may have it open.
+ * If the process that had it open stopped without closing the bucket, {@link #recover(Path)} opens the file again:
+ * it completes the pick that was interrupted, if any, and resumes with the items that were not picked yet.
+ * The picks of a process that stopped are kept by the operating system, which writes the mapped files to the storage device,
+ * but the picks since the bucket was last closed may be lost if the operating system itself stops.
+ * <p>
+ * Only the picks from the bucket itself are written to the file. Copies of the bucket are {@link OffHeapIntBucket}s
+ * holding their own copy of the remaining items outside of the heap, and their picks are not written to the file.
+ * In particular, a {@link org.jihedamine.lotterydraw.LotteryDraw} constructed from this bucket picks its balls and its tickets
+ * from two such copies: its picks are not persisted, and it holds twice the remaining items outside of the heap until it is closed.
+ * <p>
+ * The bucket must be closed once it is no longer needed, to write its picks to the storage device and unmap the files.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class MappedFileBucket implements IntBucket, AutoCloseable {
+
+    /**
+     * Suffix appended to the name of the items file to get the name of the state file
+     */
+    public static final String STATE_FILE_SUFFIX = ".state";
+
+    // Layout of the state file: the number of remaining items, whether a bucket has the items file open,
+    // then the record of the last pick: the number of remaining items once it is done, the index and the item it picks
+    private static final int SIZE_POSITION = 0;
+    private static final int OPEN_POSITION = Integer.BYTES;
+    private static final int PICK_SIZE_POSITION = 2 * Integer.BYTES;
+    private static final int PICK_INDEX_POSITION = 3 * Integer.BYTES;
+    private static final int PICK_ITEM_POSITION = 4 * Integer.BYTES;
+    private static final int STATE_FILE_SIZE = 5 * Integer.BYTES;
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int NO_PICK = -1;
+
+    private final RandomSource randomSource;
+
+    private final DirectIntArray items;
+
+    // Holds the number of remaining items and whether the items file is open
+    private final MappedByteBuffer state;
+
+    private int size;
+
+    private boolean closed;
+
+    /**
+     * Opens a bucket which items are the packed ints of the file passed as parameter
+     * @param itemsFile The file holding the items as 4 bytes big-endian ints
+     * @throws BucketInitializationException if the file can't be mapped, if its size is not a multiple of 4 bytes,
+     * or if it is open or was not closed by the bucket that opened it last
+     */
+    public MappedFileBucket(Path itemsFile) throws BucketInitializationException {
+        this(itemsFile, RandomSource.threadLocal());
+    }
+
+    /**
+     * Opens a bucket which items are the packed ints of the file passed as parameter
+     * and which are picked with the random source passed as parameter
+     * @param itemsFile The file holding the items as 4 bytes big-endian ints
+     * @param randomSource The random source used to pick the items of the bucket
+     * @throws BucketInitializationException if the file can't be mapped, if its size is not a multiple of 4 bytes,
+     * or if it is open or was not closed by the bucket that opened it last
+     */
+    public MappedFileBucket(Path itemsFile, RandomSource randomSource) throws BucketInitializationException {
+        this(itemsFile, randomSource, false);
+    }
+
+    /**
+     * Opens again a file that was not closed by the bucket that opened it last, because its process stopped for instance.
+     * The pick that was interrupted, if any, is completed, and the bucket resumes with the items that were not picked yet.
+     * <p>
+     * The file must not be open by another bucket, which would then write its picks over the picks of the returned bucket.
+     * @param itemsFile The file holding the items as 4 bytes big-endian ints
+     * @return A bucket which items are the items of the file that were not picked yet
+     * @throws BucketInitializationException if the file can't be mapped or if its size is not a multiple of 4 bytes
+     */
+    public static MappedFileBucket recover(Path itemsFile) throws BucketInitializationException {
+        return recover(itemsFile, RandomSource.threadLocal());
+    }
+
+    /**
+     * Same as {@link #recover(Path)}, the items being picked with the random source passed as parameter
+     * @param itemsFile The file holding the items as 4 bytes big-endian ints
+     * @param randomSource The random source used to pick the items of the bucket
+     * @return A bucket which items are the items of the file that were not picked yet
+     * @throws BucketInitializationException if the file can't be mapped or if its size is not a multiple of 4 bytes
+     */
+    public static MappedFileBucket recover(Path itemsFile, RandomSource randomSource) throws BucketInitializationException {
+        return new MappedFileBucket(itemsFile, randomSource, true);
+    }
+
+    private MappedFileBucket(Path itemsFile, RandomSource randomSource, boolean recover) throws BucketInitializationException {
+        this.randomSource = randomSource;
+        Path stateFile = Paths.get(itemsFile.toString() + STATE_FILE_SUFFIX);
+
+        // The mappings stay valid once the channels are closed
+        try (FileChannel itemsChannel = FileChannel.open(itemsFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel stateChannel = FileChannel.open(stateFile,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            long fileSize = itemsChannel.size();
+            if (fileSize % Integer.BYTES != 0 || fileSize / Integer.BYTES > Integer.MAX_VALUE) {
+                throw new BucketInitializationException("Items file size must be a multiple of 4 bytes holding at most "
+                        + Integer.MAX_VALUE + " items");
+            }
+            int nbItems = (int) (fileSize / Integer.BYTES);
+
+            boolean newState = stateChannel.size() < STATE_FILE_SIZE;
+            this.state = stateChannel.map(FileChannel.MapMode.READ_WRITE, 0, STATE_FILE_SIZE);
+            try {
+                if (newState) {
+                    state.putInt(SIZE_POSITION, nbItems);
+                    state.putInt(OPEN_POSITION, CLOSED);
+                    state.putInt(PICK_SIZE_POSITION, NO_PICK);
+                }
+                if (state.getInt(OPEN_POSITION) != CLOSED && !recover) {
+                    throw new BucketInitializationException("Items file " + itemsFile
+                            + " is open or was not closed, so it can only be opened again with MappedFileBucket.recover");
+                }
+                this.size = state.getInt(SIZE_POSITION);
+                if (size < 0 || size > nbItems) {
+                    throw new BucketInitializationException("State file " + stateFile + " does not match the items file");
+                }
+
+                this.items = DirectIntArray.map(itemsChannel, 0, nbItems);
+            } catch (IOException | RuntimeException e) {
+                DirectBufferCleaner.free(state);
+                throw e;
+            }
+
+            if (recover) {
+                completeInterruptedPick();
+            }
+            // marking the file open is written to the storage device before any pick modifies the items
+            state.putInt(OPEN_POSITION, OPEN);
+            state.force();
+        } catch (IOException e) {
+            throw new BucketInitializationException("Can't map items file " + itemsFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The picked item is swapped with the last item of the bucket in the file, and the number of remaining items is written
+     * to the state file. The pick is written to the storage device when the bucket is closed.
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        checkNotClosed();
+        if (size == 0) {
+            throw new EmptyBucketException();
+        }
+
+        return pick(size - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The picked items are swapped with the last items of the bucket in the file, and the number of remaining items is written
+     * to the state file after each of them. The picks are written to the storage device when the bucket is closed.
+     * @param n {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public int[] pickItems(int n) throws EmptyBucketException {
+        checkNotClosed();
+        if (n < 0) {
+            throw new IllegalArgumentException("Can't pick a negative number of items: " + n);
+        }
+        if (n > size) {
+            throw new EmptyBucketException();
+        }
+
+        int[] pickedItems = new int[n];
+        for (int i = 0; i < n; i++) {
+            pickedItems[i] = pick(size - 1);
+        }
+        return pickedItems;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy is an {@link OffHeapIntBucket} holding a copy of the remaining items of this bucket outside of the heap.
+     * Its picks are not written to the file.
+     * @return {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public OffHeapIntBucket getCopy() {
+        return getCopy(randomSource.split());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy is an {@link OffHeapIntBucket} holding a copy of the remaining items of this bucket outside of the heap.
+     * Its picks are not written to the file.
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public OffHeapIntBucket getCopy(RandomSource randomSource) {
+        checkNotClosed();
+        return new OffHeapIntBucket(items.copy(size), size, randomSource);
+    }
+
+    /**
+     * Writes the picks of the bucket to the storage device and unmaps the files.
+     * The items are written to the storage device, then the number of remaining items,
+     * and the state is marked closed last, so that the file is only opened again once all of them were written.
+     * The bucket can no longer be picked from or copied once it is closed. Closing a closed bucket has no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            items.force();
+            state.putInt(SIZE_POSITION, size);
+            state.force();
+            state.putInt(OPEN_POSITION, CLOSED);
+            state.force();
+            items.release();
+            DirectBufferCleaner.free(state);
+        }
+    }
+
+    // Picks one of the items up to the last index passed as parameter, swaps it with the item at the last index,
+    // and makes the last index the number of remaining items
+    private int pick(int lastIndex) {
+        int index = randomSource.nextInt(lastIndex + 1);
+        int item = items.get(index);
+        // the pick is recorded before the swap, the number of remaining items it leads to being written last
+        state.putInt(PICK_INDEX_POSITION, index);
+        state.putInt(PICK_ITEM_POSITION, item);
+        state.putInt(PICK_SIZE_POSITION, lastIndex);
+        items.set(index, items.get(lastIndex));
+        items.set(lastIndex, item);
+        state.putInt(SIZE_POSITION, lastIndex);
+        size = lastIndex;
+        return item;
+    }
+
+    // Completes the swap of the recorded pick if the number of remaining items was not written after it
+    private void completeInterruptedPick() {
+        int lastIndex = state.getInt(PICK_SIZE_POSITION);
+        int index = state.getInt(PICK_INDEX_POSITION);
+        if (lastIndex != NO_PICK && lastIndex == size - 1 && index >= 0 && index <= lastIndex) {
+            int item = state.getInt(PICK_ITEM_POSITION);
+            // the picked item is already at the last index if the swap was done
+            if (items.get(lastIndex) != item) {
+                items.set(index, items.get(lastIndex));
+                items.set(lastIndex, item);
+            }
+            size = lastIndex;
+        }
+        items.force();
+        state.putInt(SIZE_POSITION, size);
+        state.putInt(PICK_SIZE_POSITION, NO_PICK);
+        state.force();
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("The bucket is closed");
+        }
+    }
+}
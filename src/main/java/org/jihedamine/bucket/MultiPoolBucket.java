@@ -0,0 +1,298 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.BucketInitializationException;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+/**
+ * This class is an implementation of the IntBucket interface which items are held by several independent pools,
+ * each pool having a number of items to draw.
+ * <p>
+ * It describes lottery formats such as "5 balls out of 50 plus 2 bonus balls out of 12" as a single bucket:
+ * {@link #pickDraw()} picks the number of items to draw of each pool from that pool,
+ * in one call and into one array where the items of each pool follow the items of the previous pools.
+ * The other picks, {@link #pickItems(int)} and {@link #pickSample(int)} included, pick their items uniformly
+ * from the union of the pools, whatever their number of items.
+ * <p>
+ * The pools are copies of the buckets passed to the constructor which all pick their items with the random source of this bucket,
+ * so that a seeded random source replays the picks of every pool.
+ * <p>
+ * The pools must hold distinct numbers, for instance 1 to 50 for the balls and 51 to 62 for the bonus balls,
+ * otherwise a picked number doesn't tell which pool it was picked from.
+ * The pools are not checked, as it would require enumerating their items.
+ * <p>
+ * Example: <code>MultiPoolBucket(new IntBucket[] {new SequentialNumbersBucket(1, 50), new SequentialNumbersBucket(51, 12)}, new int[] {5, 2})</code>
+ * is a bucket which <code>pickDraw()</code> returns 5 numbers between 1 and 50 followed by 2 numbers between 51 and 62.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class MultiPoolBucket implements IntBucket {
+
+    private final RandomSource randomSource;
+
+    private final IntBucket[] pools;
+
+    // The number of items to draw from each pool, the number at index i being the number of items to draw from the pool at index i
+    private final int[] nbDraws;
+
+    private final int drawSize;
+
+    private int size;
+
+    private MultiPoolBucket(MultiPoolBucket bucket, RandomSource randomSource) {
+        // used by the getCopy method to instantiate a copy of the current bucket
+        this.randomSource = randomSource;
+        this.pools = new IntBucket[bucket.pools.length];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = bucket.pools[i].getCopy(randomSource);
+        }
+        this.nbDraws = bucket.nbDraws;
+        this.drawSize = bucket.drawSize;
+        this.size = bucket.size;
+    }
+
+    /**
+     * Constructs a bucket of several pools of items
+     * @param pools The pools of items of the bucket
+     * @param nbDraws The number of items to draw from each pool, the number at index i being the number of items to draw from the pool at index i
+     * @throws BucketInitializationException if the pools and numbers of draws do not have the same length,
+     * if there is no pool or if a pool has fewer items than its number of draws
+     * @throws UnsupportedOperationException if a pool does not let its random source be replaced
+     */
+    public MultiPoolBucket(IntBucket[] pools, int[] nbDraws) throws BucketInitializationException {
+        this(pools, nbDraws, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a bucket of several pools of items which are picked with the random source passed as parameter
+     * @param pools The pools of items of the bucket
+     * @param nbDraws The number of items to draw from each pool, the number at index i being the number of items to draw from the pool at index i
+     * @param randomSource The random source used to pick the items of every pool
+     * @throws BucketInitializationException if the pools and numbers of draws do not have the same length,
+     * if there is no pool or if a pool has fewer items than its number of draws
+     * @throws UnsupportedOperationException if a pool does not let its random source be replaced
+     */
+    public MultiPoolBucket(IntBucket[] pools, int[] nbDraws, RandomSource randomSource) throws BucketInitializationException {
+        if (pools.length == 0) {
+            throw new BucketInitializationException("A multi-pool bucket needs at least one pool");
+        }
+        if (pools.length != nbDraws.length) {
+            throw new BucketInitializationException("Pools and numbers of draws must have the same length");
+        }
+
+        this.randomSource = randomSource;
+        this.pools = new IntBucket[pools.length];
+        this.nbDraws = nbDraws.clone();
+        long drawSize = 0;
+        long size = 0;
+        for (int i = 0; i < pools.length; i++) {
+            if (this.nbDraws[i] < 0 || this.nbDraws[i] > pools[i].size()) {
+                throw new BucketInitializationException("Number of draws of pool " + i + " must be between 0 and the size of the pool");
+            }
+            // The pools are copied so that they are only picked from through this bucket
+            this.pools[i] = pools[i].getCopy(randomSource);
+            drawSize += this.nbDraws[i];
+            size += pools[i].size();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new BucketInitializationException("A multi-pool bucket can't hold more than " + Integer.MAX_VALUE + " items");
+        }
+        this.drawSize = (int) drawSize;
+        this.size = (int) size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The item is picked uniformly from the union of the pools.
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        if (size == 0) {
+            throw new EmptyBucketException();
+        }
+
+        // Each pool is chosen with a probability proportional to its size, then picks one of its items uniformly
+        int position = randomSource.nextInt(size);
+        int pool = 0;
+        while (position >= pools[pool].size()) {
+            position -= pools[pool].size();
+            pool++;
+        }
+        size--;
+        return pools[pool].pickInt();
+    }
+
+    /**
+     * Picks the number of items to draw of each pool from that pool.
+     * The items of each pool are sampled from that pool and returned in the order of the pools.
+     * @return The {@link #getDrawSize()} picked items, the items of each pool following the items of the previous pools
+     * @throws EmptyBucketException if a pool holds fewer items than its number of draws, in which case no item is picked
+     */
+    public int[] pickDraw() throws EmptyBucketException {
+        return pickDraw(false);
+    }
+
+    /**
+     * Same as {@link #pickDraw()}, but the sample of each pool is allowed to be computed on several cores.
+     * @return The {@link #getDrawSize()} picked items, the items of each pool following the items of the previous pools
+     * @throws EmptyBucketException if a pool holds fewer items than its number of draws, in which case no item is picked
+     */
+    public int[] parallelPickDraw() throws EmptyBucketException {
+        return pickDraw(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws UnsupportedOperationException if a pool does not support looking up its items
+     */
+    @Override
+    public boolean contains(int item) {
+        for (IntBucket pool : pools) {
+            if (pool.contains(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param item {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws UnsupportedOperationException if a pool does not support removing a specific item
+     */
+    @Override
+    public boolean removeItem(int item) {
+        for (IntBucket pool : pools) {
+            if (pool.removeItem(item)) {
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The item is put back into the first pool which bounds contain it,
+     * so that it can be picked again in the draws of its own pool.
+     * @param item {@inheritDoc}
+     * @throws IllegalArgumentException if the item is not within the bounds of any pool
+     * @throws UnsupportedOperationException if the pool of the item does not support putting items back
+     */
+    @Override
+    public void returnItem(int item) {
+        for (IntBucket pool : pools) {
+            if (item >= pool.lowestItem() && item <= pool.highestItem()) {
+                pool.returnItem(item);
+                size++;
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Item " + item + " is not within the bounds of any pool");
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws UnsupportedOperationException if a pool does not let its random source be replaced
+     */
+    @Override
+    public MultiPoolBucket getCopy() {
+        return getCopy(randomSource.split());
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws UnsupportedOperationException if a pool does not let its random source be replaced
+     */
+    @Override
+    public MultiPoolBucket getCopy(RandomSource randomSource) {
+        return new MultiPoolBucket(this, randomSource);
+    }
+
+    /**
+     * Returns the number of items picked by a draw, which is the sum of the numbers of draws of the pools
+     * @return The number of items picked by a draw
+     */
+    public int getDrawSize() {
+        return drawSize;
+    }
+
+    /**
+     * Returns the number of pools of the bucket
+     * @return The number of pools of the bucket
+     */
+    public int getNbPools() {
+        return pools.length;
+    }
+
+    /**
+     * Returns the number of items drawn from the pool at the index passed as parameter
+     * @param pool The index of the pool
+     * @return The number of items drawn from the pool
+     */
+    public int getNbDraws(int pool) {
+        return nbDraws[pool];
+    }
+
+    /**
+     * Returns the lowest of the lower bounds of the pools
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int lowestItem() {
+        int lowestItem = Integer.MAX_VALUE;
+        for (IntBucket pool : pools) {
+            lowestItem = Math.min(lowestItem, pool.lowestItem());
+        }
+        return lowestItem;
+    }
+
+    /**
+     * Returns the highest of the upper bounds of the pools
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int highestItem() {
+        int highestItem = Integer.MIN_VALUE;
+        for (IntBucket pool : pools) {
+            highestItem = Math.max(highestItem, pool.highestItem());
+        }
+        return highestItem;
+    }
+
+    private int[] pickDraw(boolean parallel) {
+        for (int i = 0; i < pools.length; i++) {
+            if (pools[i].size() < nbDraws[i]) {
+                throw new EmptyBucketException();
+            }
+        }
+        int[] pickedItems = new int[drawSize];
+        int offset = 0;
+        for (int i = 0; i < pools.length; i++) {
+            int[] poolItems = parallel ? pools[i].parallelPickSample(nbDraws[i]) : pools[i].pickSample(nbDraws[i]);
+            System.arraycopy(poolItems, 0, pickedItems, offset, nbDraws[i]);
+            offset += nbDraws[i];
+        }
+        size -= drawSize;
+        return pickedItems;
+    }
+}
@@ -0,0 +1,182 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+/**
+ * This class is an implementation of the IntBucket interface which items are stored outside of the Java heap.
+ * <p>
+ * The items are packed ints held in direct byte buffers, so that a draw of a billion balls
+ * neither grows the heap nor lengthens garbage collection pauses.
+ * The JVM must be allowed to allocate enough direct memory (see the <code>-XX:MaxDirectMemorySize</code> option).
+ * <p>
+ * Like {@link AbstractIntBucket}, picking an item moves the last item of the bucket to the position of the picked item,
+ * so that a pick is done in constant time.
+ * Copies share the items of the bucket until either of them is picked from.
+ * <p>
+ * The bucket must be closed once it is no longer needed, to release its memory without waiting for the garbage collector.
+ * The memory shared with copies is released once the bucket and all of its copies are closed.
+ * <p>
+ * Example: <code>OffHeapIntBucket(2, 5)</code> is a bucket that contains 5 integer items
+ * which form a sequence starting from 2 and having 5 items. The bucket items are: <code>2, 3, 4, 5, 6</code>.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class OffHeapIntBucket implements IntBucket, AutoCloseable {
+
+    private final RandomSource randomSource;
+
+    private DirectIntArray items;
+
+    private int size;
+
+    private boolean closed;
+
+    OffHeapIntBucket(DirectIntArray items, int size, RandomSource randomSource) {
+        // used by the getCopy methods of this bucket and of MappedFileBucket to instantiate a copy of a bucket
+        this.items = items;
+        this.size = size;
+        this.randomSource = randomSource;
+    }
+
+    /**
+     * Constructs a bucket of integer items that form a sequence, stored outside of the Java heap
+     * @param firstValue The first value of the sequence of bucket items
+     * @param nbItems The number of bucket items
+     */
+    public OffHeapIntBucket(int firstValue, int nbItems) {
+        this(firstValue, nbItems, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a bucket of integer items that form a sequence, stored outside of the Java heap,
+     * which items are picked with the random source passed as parameter
+     * @param firstValue The first value of the sequence of bucket items
+     * @param nbItems The number of bucket items
+     * @param randomSource The random source used to pick the items of the bucket
+     */
+    public OffHeapIntBucket(int firstValue, int nbItems, RandomSource randomSource) {
+        this.randomSource = randomSource;
+        // a negative number of items results in an empty bucket
+        this.size = Math.max(nbItems, 0);
+        this.items = new DirectIntArray(size);
+        for (int i = 0; i < size; i++) {
+            items.set(i, firstValue + i);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        checkNotClosed();
+        if (size == 0) {
+            throw new EmptyBucketException();
+        }
+        copyItemsIfShared();
+
+        int itemIndex = randomSource.nextInt(size);
+        int item = items.get(itemIndex);
+        // fill the gap with the last item instead of shifting the items that follow the picked one
+        items.set(itemIndex, items.get(--size));
+        return item;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The picked items are shuffled into the tail of the bucket items, which is then copied out.
+     * @param n {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public int[] pickItems(int n) throws EmptyBucketException {
+        checkNotClosed();
+        if (n < 0) {
+            throw new IllegalArgumentException("Can't pick a negative number of items: " + n);
+        }
+        if (n > size) {
+            throw new EmptyBucketException();
+        }
+        copyItemsIfShared();
+
+        int[] pickedItems = new int[n];
+        for (int i = 0; i < n; i++) {
+            int lastIndex = size - 1 - i;
+            int itemIndex = randomSource.nextInt(lastIndex + 1);
+            pickedItems[i] = items.get(itemIndex);
+            items.set(itemIndex, items.get(lastIndex));
+        }
+        size -= n;
+        return pickedItems;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public OffHeapIntBucket getCopy() {
+        return getCopy(randomSource.split());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the items of this bucket until either of them is picked from. The copy must be closed as well.
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IllegalStateException if the bucket is closed
+     */
+    @Override
+    public OffHeapIntBucket getCopy(RandomSource randomSource) {
+        checkNotClosed();
+        items.retain();
+        return new OffHeapIntBucket(items, size, randomSource);
+    }
+
+    /**
+     * Releases the memory of the bucket items, unless they are still shared with a copy of the bucket that is not closed.
+     * The bucket can no longer be picked from or copied once it is closed. Closing a closed bucket has no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            size = 0;
+            items.release();
+            items = null;
+        }
+    }
+
+    private void copyItemsIfShared() {
+        if (items.isShared()) {
+            DirectIntArray sharedItems = items;
+            items = sharedItems.copy(size);
+            sharedItems.release();
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("The bucket is closed");
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package org.jihedamine.bucket;
 
-import java.util.ArrayList;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import org.jihedamine.random.RandomSource;
 
 /**
  * This class is an implementation of the Bucket interface.
@@ -13,7 +11,10 @@ import java.util.stream.IntStream;
  *
  * @author Jihed Amine Maaref on 24-Dec-16.
  */
-public class SequentialNumbersBucket extends AbstractBucket<Integer> {
+public class SequentialNumbersBucket extends AbstractIntBucket {
+
+    private int firstValue;
+    private int lastValue;
 
     private SequentialNumbersBucket() {
         // used by the getCopy method to instantiate a copy of the current bucket
@@ -29,18 +30,69 @@ public class SequentialNumbersBucket extends AbstractBucket<Integer> {
      * @param nbItems The number of bucket items
      */
     public SequentialNumbersBucket(Integer firstValue, Integer nbItems) {
-        items = IntStream.range(firstValue, firstValue + nbItems).boxed().collect(Collectors.toList());
+        this(firstValue, nbItems, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a bucket of integer items that form a sequence, which items are picked with the random source passed as parameter
+     * @param firstValue The first Integer value of the sequence of bucket items
+     * @param nbItems The number of bucket items
+     * @param randomSource The random source used to pick the items of the bucket
+     */
+    public SequentialNumbersBucket(int firstValue, int nbItems, RandomSource randomSource) {
+        this.randomSource = randomSource;
+        // a negative number of items results in an empty bucket
+        size = Math.max(nbItems, 0);
+        this.firstValue = firstValue;
+        this.lastValue = firstValue + size - 1;
+        items = new int[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = firstValue + i;
+        }
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The copy shares the items of this bucket until either of them is picked from.
      * @return {@inheritDoc}
      */
     @Override
     public SequentialNumbersBucket getCopy() {
-        SequentialNumbersBucket bucketPicker = new SequentialNumbersBucket();
-        bucketPicker.items = new ArrayList<>(this.items);
-        return bucketPicker;
+        return getCopy(randomSource.split());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the items of this bucket until either of them is picked from.
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public SequentialNumbersBucket getCopy(RandomSource randomSource) {
+        SequentialNumbersBucket copy = shareItemsWith(new SequentialNumbersBucket(), randomSource);
+        copy.firstValue = firstValue;
+        copy.lastValue = lastValue;
+        return copy;
+    }
+
+    /**
+     * Returns the first value of the sequence of bucket items
+     * @return The first value of the sequence of bucket items
+     */
+    @Override
+    public int lowestItem() {
+        return firstValue;
+    }
+
+    /**
+     * Returns the last value of the sequence of bucket items
+     * @return The last value of the sequence of bucket items
+     */
+    @Override
+    public int highestItem() {
+        return lastValue;
     }
 
 }
@@ -0,0 +1,282 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Makes a bucket of a sequence of numbers usable by several threads without a lock shared by all of them.
+ * <p>
+ * The sequence is split into stripes of consecutive numbers, each held by a {@link LazySequentialNumbersBucket}
+ * guarded by its own lock. The number of items of each stripe is also kept in an atomic array, read without locking.
+ * A single pick chooses a stripe with the random source of the bucket, in proportion to the number of items it holds,
+ * then only locks that stripe to pick one of its items, so that the picked item is drawn uniformly from the whole bucket
+ * and threads picking concurrently mostly lock different stripes.
+ * The picks only depend on the random source: a seeded bucket picks the same items whichever threads pick them.
+ * Removing an item and putting it back only lock the stripe of the item.
+ * {@link #pickItems(int)} locks every stripe so that it picks all of its items or none of them.
+ * <p>
+ * A random source other than {@link RandomSource#threadLocal()} is not thread-safe, so the numbers it draws
+ * to choose the stripes are drawn while holding a lock of its own.
+ *
+ * @see ConcurrentIntBucket#of(IntBucket)
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class StripedIntBucket implements ConcurrentIntBucket {
+
+    private final int firstValue;
+    private final int nbItems;
+    private final RandomSource randomSource;
+
+    // Stripe i holds the items from firstValue + nbItems * i / nbStripes, and is guarded by the lock i
+    private final LazySequentialNumbersBucket[] stripes;
+    private final ReentrantLock[] locks;
+
+    // Number of items of each stripe, only updated while holding the lock of the stripe
+    private final AtomicIntegerArray stripeSizes;
+
+    // Guards the random source of the bucket, unless it is the thread-safe one
+    private final Object randomSourceLock = new Object();
+
+    private StripedIntBucket(int firstValue, int nbItems, LazySequentialNumbersBucket[] stripes, RandomSource randomSource) {
+        this.firstValue = firstValue;
+        this.nbItems = nbItems;
+        this.stripes = stripes;
+        this.randomSource = randomSource;
+        this.locks = new ReentrantLock[stripes.length];
+        this.stripeSizes = new AtomicIntegerArray(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            locks[i] = new ReentrantLock();
+            stripeSizes.set(i, stripes[i].size());
+        }
+    }
+
+    /**
+     * Returns a striped bucket holding the items of the bucket passed as parameter,
+     * if it is a bucket of sequential numbers that holds every number of its sequence
+     * @param bucket Bucket of int items
+     * @return A striped bucket holding the items of the bucket, or null if they are not a whole sequence of numbers
+     */
+    static StripedIntBucket of(IntBucket bucket) {
+        RandomSource randomSource;
+        if (bucket instanceof SequentialNumbersBucket) {
+            randomSource = ((SequentialNumbersBucket) bucket).randomSource;
+        } else if (bucket instanceof LazySequentialNumbersBucket) {
+            randomSource = ((LazySequentialNumbersBucket) bucket).randomSource;
+        } else {
+            return null;
+        }
+        // a bucket that was picked from holds numbers that are scattered over its sequence
+        if (bucket.size() < 2 || bucket.size() != (long) bucket.highestItem() - bucket.lowestItem() + 1) {
+            return null;
+        }
+
+        int firstValue = bucket.lowestItem();
+        int nbItems = bucket.size();
+        int nbStripes = Math.min(Runtime.getRuntime().availableProcessors() * 2, nbItems);
+        LazySequentialNumbersBucket[] stripes = new LazySequentialNumbersBucket[nbStripes];
+        for (int i = 0; i < nbStripes; i++) {
+            int start = stripeStart(nbItems, nbStripes, i);
+            int end = stripeStart(nbItems, nbStripes, i + 1);
+            stripes[i] = new LazySequentialNumbersBucket(firstValue + start, end - start, randomSource.split());
+        }
+        return new StripedIntBucket(firstValue, nbItems, stripes, randomSource);
+    }
+
+    @Override
+    public ConcurrentIntBucket getCopy() {
+        RandomSource copyRandomSource;
+        if (randomSource == RandomSource.threadLocal()) {
+            copyRandomSource = randomSource.split();
+        } else {
+            synchronized (randomSourceLock) {
+                copyRandomSource = randomSource.split();
+            }
+        }
+        return getCopy(copyRandomSource);
+    }
+
+    @Override
+    public ConcurrentIntBucket getCopy(RandomSource randomSource) {
+        lockAll();
+        try {
+            LazySequentialNumbersBucket[] copiedStripes = new LazySequentialNumbersBucket[stripes.length];
+            for (int i = 0; i < stripes.length; i++) {
+                copiedStripes[i] = stripes[i].getCopy(randomSource.split());
+            }
+            return new StripedIntBucket(firstValue, nbItems, copiedStripes, randomSource);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        while (true) {
+            int size = size();
+            if (size == 0) {
+                throw new EmptyBucketException();
+            }
+            int stripe = stripeAt(nextInt(size));
+            locks[stripe].lock();
+            try {
+                // the stripe may have been emptied since its size was read, in which case another stripe is chosen
+                if (stripes[stripe].size() > 0) {
+                    int item = stripes[stripe].pickInt();
+                    stripeSizes.decrementAndGet(stripe);
+                    return item;
+                }
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    @Override
+    public int[] pickItems(int n) throws EmptyBucketException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Can't pick a negative number of items: " + n);
+        }
+        lockAll();
+        try {
+            int size = size();
+            if (n > size) {
+                throw new EmptyBucketException();
+            }
+            int[] pickedItems = new int[n];
+            for (int i = 0; i < n; i++) {
+                int stripe = stripeAt(nextInt(size - i));
+                pickedItems[i] = stripes[stripe].pickInt();
+                stripeSizes.decrementAndGet(stripe);
+            }
+            return pickedItems;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean contains(int item) {
+        int stripe = stripeOf(item);
+        if (stripe < 0) {
+            return false;
+        }
+        locks[stripe].lock();
+        try {
+            return stripes[stripe].contains(item);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public boolean removeItem(int item) {
+        int stripe = stripeOf(item);
+        if (stripe < 0) {
+            return false;
+        }
+        locks[stripe].lock();
+        try {
+            boolean removed = stripes[stripe].removeItem(item);
+            if (removed) {
+                stripeSizes.decrementAndGet(stripe);
+            }
+            return removed;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void returnItem(int item) {
+        int stripe = stripeOf(item);
+        if (stripe < 0) {
+            throw new IllegalArgumentException("Item " + item + " is not an item of the sequence starting from "
+                    + firstValue + " and having " + nbItems + " items");
+        }
+        locks[stripe].lock();
+        try {
+            stripes[stripe].returnItem(item);
+            stripeSizes.incrementAndGet(stripe);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public int lowestItem() {
+        return firstValue;
+    }
+
+    @Override
+    public int highestItem() {
+        return firstValue + nbItems - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The sizes of the stripes are read without locking them, so the size of a bucket that is being picked from
+     * may be out of date as soon as it is returned.
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            size += stripeSizes.get(i);
+        }
+        return size;
+    }
+
+    // Returns the stripe holding the item at the position passed as parameter, the items being numbered stripe after stripe
+    private int stripeAt(int position) {
+        int stripe = 0;
+        int stripeSize = stripeSizes.get(stripe);
+        // the last stripe is chosen if the stripes were emptied since their total size was read
+        while (position >= stripeSize && stripe < stripes.length - 1) {
+            position -= stripeSize;
+            stripeSize = stripeSizes.get(++stripe);
+        }
+        return stripe;
+    }
+
+    private int nextInt(int bound) {
+        if (randomSource == RandomSource.threadLocal()) {
+            return randomSource.nextInt(bound);
+        }
+        synchronized (randomSourceLock) {
+            return randomSource.nextInt(bound);
+        }
+    }
+
+    // Returns the index of the stripe holding the item passed as parameter, or -1 if the item is not in the sequence
+    private int stripeOf(int item) {
+        long offset = (long) item - firstValue;
+        if (offset < 0 || offset >= nbItems) {
+            return -1;
+        }
+        return (int) (((offset + 1) * stripes.length - 1) / nbItems);
+    }
+
+    // Returns the offset of the first item of the stripe passed as parameter
+    private static int stripeStart(int nbItems, int nbStripes, int stripe) {
+        return (int) ((long) nbItems * stripe / nbStripes);
+    }
+
+    private void lockAll() {
+        // the stripes are always locked in the same order so that two threads locking all of them can't deadlock
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+}
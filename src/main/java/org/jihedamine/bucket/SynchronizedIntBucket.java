@@ -0,0 +1,96 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+/**
+ * Makes an {@link IntBucket} that is not thread-safe usable by several threads,
+ * by holding the lock of the wrapper while delegating each operation to the bucket.
+ * <p>
+ * Closing the wrapper closes the bucket if it is {@link AutoCloseable}, such as an {@link OffHeapIntBucket}.
+ *
+ * @see ConcurrentIntBucket#of(IntBucket)
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+class SynchronizedIntBucket implements ConcurrentIntBucket, AutoCloseable {
+
+    private final IntBucket bucket;
+
+    SynchronizedIntBucket(IntBucket bucket) {
+        this.bucket = bucket;
+    }
+
+    @Override
+    public synchronized ConcurrentIntBucket getCopy() {
+        return new SynchronizedIntBucket(bucket.getCopy());
+    }
+
+    @Override
+    public synchronized ConcurrentIntBucket getCopy(RandomSource randomSource) {
+        return new SynchronizedIntBucket(bucket.getCopy(randomSource));
+    }
+
+    @Override
+    public synchronized int pickInt() throws EmptyBucketException {
+        return bucket.pickInt();
+    }
+
+    @Override
+    public synchronized int[] pickItems(int n) throws EmptyBucketException {
+        return bucket.pickItems(n);
+    }
+
+    @Override
+    public synchronized int[] pickSample(int k) throws EmptyBucketException {
+        return bucket.pickSample(k);
+    }
+
+    @Override
+    public synchronized int[] parallelPickSample(int k) throws EmptyBucketException {
+        return bucket.parallelPickSample(k);
+    }
+
+    @Override
+    public synchronized boolean contains(int item) {
+        return bucket.contains(item);
+    }
+
+    @Override
+    public synchronized boolean removeItem(int item) {
+        return bucket.removeItem(item);
+    }
+
+    @Override
+    public synchronized void returnItem(int item) {
+        bucket.returnItem(item);
+    }
+
+    @Override
+    public int lowestItem() {
+        return bucket.lowestItem();
+    }
+
+    @Override
+    public int highestItem() {
+        return bucket.highestItem();
+    }
+
+    @Override
+    public synchronized int size() {
+        return bucket.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (bucket instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) bucket).close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Can't close the bucket", e);
+            }
+        }
+    }
+}
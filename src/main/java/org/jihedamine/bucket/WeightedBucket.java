@@ -0,0 +1,232 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.BucketInitializationException;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+
+import java.util.Arrays;
+
+/**
+ * This class is an implementation of the IntBucket interface which items are picked according to their weights.
+ * <p>
+ * An item with a weight of 2 is twice as likely to be picked as an item with a weight of 1.
+ * This lets a lottery draw count bonus entries several times.
+ * <p>
+ * The items are picked with Vose's alias method:
+ * a table of alias columns is built once, and a pick reads a random column and flips a biased coin.
+ * <p>
+ * Picked items are not removed from the alias table, which would require rebuilding it.
+ * They are marked as removed instead, and a pick that lands on a removed item is retried.
+ * The table is only rebuilt from the remaining items once they hold less than half of the weight of the table,
+ * so that a pick is retried less than once on average and the cost of the rebuilds is amortized over the picks.
+ * A pick therefore takes expected constant time, not counting the rebuilds, which take a time proportional to the remaining items
+ * and add an amortized constant time to each pick. A single pick that triggers a rebuild takes linear time.
+ * <p>
+ * Example: <code>WeightedBucket(new int[] {1, 2, 3}, new int[] {1, 1, 2})</code> is a bucket which first pick
+ * returns 3 with probability 1/2, and 1 or 2 with probability 1/4 each.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class WeightedBucket implements IntBucket {
+
+    private final RandomSource randomSource;
+
+    // Items and weights of the alias table columns. These arrays are never modified once the table is built.
+    private int[] items;
+    private int[] weights;
+
+    // The probability of each column to return its own item rather than its alias, out of tableWeight
+    private long[] probabilities;
+    private int[] aliases;
+    private long tableWeight;
+
+    // Whether the item of each column was picked. This array is copied before being modified when it is shared.
+    private boolean[] removed;
+    private boolean removedShared;
+
+    private int size;
+    private long remainingWeight;
+
+    private WeightedBucket(WeightedBucket bucket, RandomSource randomSource) {
+        // used by the getCopy method to instantiate a copy of the current bucket
+        this.randomSource = randomSource;
+        this.items = bucket.items;
+        this.weights = bucket.weights;
+        this.probabilities = bucket.probabilities;
+        this.aliases = bucket.aliases;
+        this.tableWeight = bucket.tableWeight;
+        this.removed = bucket.removed;
+        this.size = bucket.size;
+        this.remainingWeight = bucket.remainingWeight;
+        this.removedShared = true;
+        bucket.removedShared = true;
+    }
+
+    /**
+     * Constructs a bucket of weighted integer items
+     * @param items The items of the bucket
+     * @param weights The weights of the items, the weight at index i being the weight of the item at index i
+     * @throws BucketInitializationException if the items and weights do not have the same length or if a weight is not positive
+     */
+    public WeightedBucket(int[] items, int[] weights) throws BucketInitializationException {
+        this(items, weights, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a bucket of weighted integer items which are picked with the random source passed as parameter
+     * @param items The items of the bucket
+     * @param weights The weights of the items, the weight at index i being the weight of the item at index i
+     * @param randomSource The random source used to pick the items of the bucket
+     * @throws BucketInitializationException if the items and weights do not have the same length or if a weight is not positive
+     */
+    public WeightedBucket(int[] items, int[] weights, RandomSource randomSource) throws BucketInitializationException {
+        if (items.length != weights.length) {
+            throw new BucketInitializationException("Each item must have a weight");
+        }
+        if (Arrays.stream(weights).anyMatch(weight -> weight <= 0)) {
+            throw new BucketInitializationException("Item weights must be > 0");
+        }
+        this.randomSource = randomSource;
+        buildAliasTable(Arrays.copyOf(items, items.length), Arrays.copyOf(weights, weights.length));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The probability of an item to be picked is its weight divided by the sum of the weights of the remaining items.
+     * The pick takes amortized expected constant time: it is retried less than twice on average,
+     * and the pick that rebuilds the alias table takes a time proportional to the remaining items.
+     * @return {@inheritDoc}
+     * @throws EmptyBucketException {@inheritDoc}
+     */
+    @Override
+    public int pickInt() throws EmptyBucketException {
+        if (size == 0) {
+            throw new EmptyBucketException();
+        }
+
+        int column;
+        do {
+            column = randomSource.nextInt(items.length);
+            if (randomSource.nextLong(tableWeight) >= probabilities[column]) {
+                column = aliases[column];
+            }
+        } while (removed[column]);
+
+        if (removedShared) {
+            removed = Arrays.copyOf(removed, removed.length);
+            removedShared = false;
+        }
+        removed[column] = true;
+        size--;
+        remainingWeight -= weights[column];
+        int item = items[column];
+
+        if (size > 0 && remainingWeight * 2 < tableWeight) {
+            compact();
+        }
+        return item;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the alias table of this bucket.
+     * @return {@inheritDoc}
+     */
+    @Override
+    public WeightedBucket getCopy() {
+        return getCopy(randomSource.split());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The copy shares the alias table of this bucket.
+     * @param randomSource {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public WeightedBucket getCopy(RandomSource randomSource) {
+        return new WeightedBucket(this, randomSource);
+    }
+
+    // Rebuilds the alias table from the items that were not picked yet
+    private void compact() {
+        int[] remainingItems = new int[size];
+        int[] remainingWeights = new int[size];
+        int i = 0;
+        for (int column = 0; column < items.length; column++) {
+            if (!removed[column]) {
+                remainingItems[i] = items[column];
+                remainingWeights[i++] = weights[column];
+            }
+        }
+        buildAliasTable(remainingItems, remainingWeights);
+    }
+
+    // Vose's alias method, using integer arithmetic so that the probabilities are exact
+    private void buildAliasTable(int[] items, int[] weights) {
+        int n = items.length;
+        long totalWeight = 0;
+        for (int weight : weights) {
+            totalWeight += weight;
+        }
+
+        // A column holds totalWeight units of probability: its own item's share is scaled by n,
+        // and the columns which item's share is below totalWeight are filled up by the alias of a column above it
+        long[] scaledWeights = new long[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int nbSmall = 0;
+        int nbLarge = 0;
+        for (int i = 0; i < n; i++) {
+            scaledWeights[i] = (long) weights[i] * n;
+            if (scaledWeights[i] < totalWeight) {
+                small[nbSmall++] = i;
+            } else {
+                large[nbLarge++] = i;
+            }
+        }
+
+        long[] probabilities = new long[n];
+        int[] aliases = new int[n];
+        while (nbSmall > 0 && nbLarge > 0) {
+            int smallColumn = small[--nbSmall];
+            int largeColumn = large[--nbLarge];
+            probabilities[smallColumn] = scaledWeights[smallColumn];
+            aliases[smallColumn] = largeColumn;
+            scaledWeights[largeColumn] -= totalWeight - scaledWeights[smallColumn];
+            if (scaledWeights[largeColumn] < totalWeight) {
+                small[nbSmall++] = largeColumn;
+            } else {
+                large[nbLarge++] = largeColumn;
+            }
+        }
+        while (nbLarge > 0) {
+            probabilities[large[--nbLarge]] = totalWeight;
+        }
+        while (nbSmall > 0) {
+            probabilities[small[--nbSmall]] = totalWeight;
+        }
+
+        this.items = items;
+        this.weights = weights;
+        this.probabilities = probabilities;
+        this.aliases = aliases;
+        this.tableWeight = totalWeight;
+        this.removed = new boolean[n];
+        this.removedShared = false;
+        this.size = n;
+        this.remainingWeight = totalWeight;
+    }
+}
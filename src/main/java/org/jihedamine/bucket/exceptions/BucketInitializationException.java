@@ -0,0 +1,19 @@
+package org.jihedamine.bucket.exceptions;
+
+/**
+ * Thrown when the initialization of a {@link org.jihedamine.bucket.Bucket} fails
+ * @see org.jihedamine.bucket.Bucket
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class BucketInitializationException extends RuntimeException {
+
+    public BucketInitializationException(String message) {
+        super(message);
+    }
+
+    public BucketInitializationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
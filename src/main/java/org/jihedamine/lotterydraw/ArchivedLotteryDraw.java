@@ -0,0 +1,119 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawDidNotHappenException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The result of a lottery draw that happened, kept once the lottery draw itself is released.
+ * <p>
+ * An archived lottery draw only holds the {@link DrawResult} of the lottery draw, which is shared with the lottery draw,
+ * so that its size only depends on the number of draws, whereas a live lottery draw holds its balls, tickets and participants.
+ * <p>
+ * This class is immutable.
+ *
+ * @see LotteryDrawRegistry
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public final class ArchivedLotteryDraw {
+
+    private final String id;
+    private final Instant drawTime;
+    private final DrawResult drawResult;
+
+    private ArchivedLotteryDraw(String id, Instant drawTime, DrawResult drawResult) {
+        this.id = id;
+        this.drawTime = drawTime;
+        this.drawResult = drawResult;
+    }
+
+    /**
+     * Archives the result of a lottery draw that happened
+     * @param id The id of the lottery draw
+     * @param drawTime The instant the lottery draw happened
+     * @param lotteryDraw The lottery draw to archive
+     * @return The archived result of the lottery draw
+     * @throws LotteryDrawDidNotHappenException if the lottery draw did not happen
+     */
+    static ArchivedLotteryDraw of(String id, Instant drawTime, LotteryDraw lotteryDraw) throws LotteryDrawDidNotHappenException {
+        return new ArchivedLotteryDraw(id, drawTime, lotteryDraw.getDrawResult());
+    }
+
+    /**
+     * Returns the id of the lottery draw
+     * @return The id of the lottery draw
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the instant the lottery draw happened
+     * @return The instant the lottery draw happened
+     */
+    public Instant getDrawTime() {
+        return drawTime;
+    }
+
+    /**
+     * Returns the result of the lottery draw
+     * @return The result of the lottery draw
+     */
+    public DrawResult getDrawResult() {
+        return drawResult;
+    }
+
+    /**
+     * Returns the numbers of the balls that were drawn
+     * @return The numbers of the balls that were drawn
+     */
+    public int[] getDrawnBalls() {
+        return drawResult.getDrawnBalls();
+    }
+
+    /**
+     * Returns the first name of the winner of a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The first name of the winner of the drawn ball, or null if its ticket was not purchased
+     */
+    public String getWinner(int drawIndex) {
+        return drawResult.getWinner(drawIndex);
+    }
+
+    /**
+     * Returns the prize amount of a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The prize amount of the drawn ball
+     */
+    public BigDecimal getPrizeAmount(int drawIndex) {
+        return drawResult.getPrizeAmount(drawIndex);
+    }
+
+    /**
+     * Returns the pot amount of the lottery draw when it happened
+     * @return The pot amount of the lottery draw when it happened
+     */
+    public BigDecimal getPot() {
+        return drawResult.getPot();
+    }
+
+    /**
+     * Returns a String listing the numbers of the balls that were drawn,
+     * in the same format as {@link LotteryDraw#getDrawnBallsAsString()}
+     * @return A String listing the numbers of the balls that were drawn
+     */
+    public String getDrawnBallsAsString() {
+        return drawResult.getDrawnBallsAsString();
+    }
+
+    /**
+     * Returns a String listing the winners of the draw with the prize amount for each winner,
+     * in the same format as {@link LotteryDraw#getDrawWinnersAsString()}
+     * @return A String listing the winners of the draw with the prize amount for each winner.
+     */
+    public String getDrawWinnersAsString() {
+        return drawResult.getWinnersAsString();
+    }
+}
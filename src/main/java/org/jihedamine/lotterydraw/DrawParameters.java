@@ -0,0 +1,91 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Checks the parameters shared by the lottery draws and converts their amounts to the cents they are counted in.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class DrawParameters {
+
+    // Largest amount of dollars which number of cents fits in a long
+    private static final double MAX_AMOUNT = Long.MAX_VALUE / 100;
+
+    private DrawParameters() {
+        // Constructor is private as utility class shouldn't be instantiated
+    }
+
+    /**
+     * Rounds an amount of dollars to the nearest number of cents
+     * @param amount An amount checked by one of the methods of this class
+     * @return The number of cents of the amount
+     */
+    static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Checks the number of balls and of draws, the amounts and the prize strategy of a lottery draw
+     * @param nbBalls The number of balls of the lottery draw
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of the lottery draw pot
+     * @param ticketPrice The price of a ticket
+     * @param prizeStrategy The prize strategy of the lottery draw
+     * @throws LotteryDrawInitializationException if any parameter value is invalid
+     */
+    static void checkParameters(long nbBalls, int nbDraws, double pot, double ticketPrice, PrizeStrategy prizeStrategy)
+            throws LotteryDrawInitializationException {
+        if (nbBalls <= 0 || nbDraws <= 0) {
+            throw new LotteryDrawInitializationException("Number of balls or number of draws must be > 0");
+        }
+        if (nbBalls < nbDraws) {
+            throw new LotteryDrawInitializationException("Can't draw more items than available in the bucket");
+        }
+        checkDraw(nbDraws, pot, prizeStrategy);
+        checkTicketPrice(ticketPrice, pot, nbBalls);
+    }
+
+    /**
+     * Checks the number of draws, the initial pot and the prize strategy of a lottery draw which tickets are sold elsewhere
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of the lottery draw pot
+     * @param prizeStrategy The prize strategy of the lottery draw
+     * @throws LotteryDrawInitializationException if any parameter value is invalid
+     */
+    static void checkDraw(int nbDraws, double pot, PrizeStrategy prizeStrategy) throws LotteryDrawInitializationException {
+        if (nbDraws <= 0) {
+            throw new LotteryDrawInitializationException("Number of draws must be > 0");
+        }
+        if (pot <= 0) {
+            throw new LotteryDrawInitializationException("Initial pot amount can't be negative");
+        }
+        if (!Double.isFinite(pot) || pot >= MAX_AMOUNT) {
+            throw new LotteryDrawInitializationException("Initial pot amount must be lower than " + BigDecimal.valueOf(Long.MAX_VALUE, 2));
+        }
+        if (prizeStrategy == null) {
+            throw new LotteryDrawInitializationException("Prize strategy can't be null");
+        }
+    }
+
+    /**
+     * Checks that the pot stays countable in cents once every ticket is sold
+     * @param ticketPrice The price of a ticket
+     * @param pot The initial amount of the pot the sales are added to, or zero if the sales are counted on their own
+     * @param nbTickets The number of tickets for sale
+     * @throws LotteryDrawInitializationException if the ticket price is not a finite number or if it is too large
+     */
+    static void checkTicketPrice(double ticketPrice, double pot, long nbTickets) throws LotteryDrawInitializationException {
+        if (!Double.isFinite(ticketPrice)) {
+            throw new LotteryDrawInitializationException("Ticket price must be a finite number");
+        }
+        if (Math.abs(ticketPrice) >= MAX_AMOUNT || ticketPrice > 0 && ticketPrice >= (MAX_AMOUNT - pot) / nbTickets) {
+            throw new LotteryDrawInitializationException("Ticket price must keep the pot below "
+                    + BigDecimal.valueOf(Long.MAX_VALUE, 2) + " once every ticket is sold");
+        }
+    }
+}
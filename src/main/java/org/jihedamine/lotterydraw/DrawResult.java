@@ -0,0 +1,235 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.prizestrategy.PrizeStrategy;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The result of a lottery draw: the drawn balls, their winners, their prizes and the pot the prizes were calculated from.
+ * <p>
+ * A draw result is computed once by the draw, after which the tickets of the lottery draw can't be purchased nor refunded anymore,
+ * so that the winners and the prizes can't change. Reading the result of a lottery draw doesn't look up any winner nor call the prize strategy.
+ * Its text is rendered by the first call that asks for it and cached,
+ * so that a draw with millions of winners only builds it if it is asked for.
+ * The winners can be read one at a time with {@link #getWinners()} or by index instead,
+ * which is how {@link org.jihedamine.lotterydraw.export.DrawResultExporter}s stream them.
+ * <p>
+ * The prizes and the pot are stored in cents.
+ * <p>
+ * This class is immutable, and can be shared between threads without synchronization.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public final class DrawResult {
+
+    /**
+     * Winner id of a drawn ball which ticket was not purchased
+     */
+    public static final int NO_WINNER = -1;
+
+    private final int[] drawnBalls;
+    private final int[] winnerIds;
+    private final String[] winners;
+    private final long[] prizeCents;
+    private final long potCents;
+
+    // Rendered on first use. Strings are immutable, so a thread reading a stale null only renders the same text again
+    private String drawnBallsAsString;
+    private String winnersAsString;
+
+    /**
+     * Constructs the result of a draw, which takes ownership of the arrays passed as parameters
+     * @param drawnBalls The numbers of the drawn balls, in the order they were drawn
+     * @param winnerIds The id of the winner of each drawn ball, or {@link #NO_WINNER}
+     * @param winners The first name of the winner of each drawn ball, or null
+     * @param prizeCents The prize of each drawn ball in cents
+     * @param potCents The pot in cents
+     */
+    DrawResult(int[] drawnBalls, int[] winnerIds, String[] winners, long[] prizeCents, long potCents) {
+        this.drawnBalls = drawnBalls;
+        this.winnerIds = winnerIds;
+        this.winners = winners;
+        this.prizeCents = prizeCents;
+        this.potCents = potCents;
+    }
+
+    /**
+     * Looks up the winners of the drawn balls and calculates their prizes from the pot
+     * @param drawnBalls The numbers of the drawn balls, in the order they were drawn, which the result takes ownership of
+     * @param ownerOf Returns the id of the participant who purchased the ticket of a ball, or {@link OwnershipTable#NO_OWNER}
+     * @param participants The dictionary of the first names of the participants
+     * @param prizeStrategy The prize strategy used to calculate the prizes
+     * @param pot The pot the prizes are calculated from
+     * @return The result of the draw
+     */
+    static DrawResult of(int[] drawnBalls, IntUnaryOperator ownerOf, ParticipantDictionary participants,
+                         PrizeStrategy prizeStrategy, BigDecimal pot) {
+        int nbDraws = drawnBalls.length;
+        int[] winnerIds = new int[nbDraws];
+        String[] winners = new String[nbDraws];
+        long[] prizeCents = new long[nbDraws];
+        for (int i = 0; i < nbDraws; i++) {
+            int winnerId = ownerOf.applyAsInt(drawnBalls[i]);
+            winnerIds[i] = winnerId == OwnershipTable.NO_OWNER ? NO_WINNER : winnerId;
+            winners[i] = winnerId == OwnershipTable.NO_OWNER ? null : participants.getFirstName(winnerId);
+            BigDecimal prizeAmount = prizeStrategy.getPrizeAmount(pot, i);
+            prizeCents[i] = prizeAmount == null ? 0 : toCents(prizeAmount);
+        }
+        return new DrawResult(drawnBalls, winnerIds, winners, prizeCents, toCents(pot));
+    }
+
+    /**
+     * Returns the number of balls that were drawn
+     * @return The number of balls that were drawn
+     */
+    public int getNbDraws() {
+        return drawnBalls.length;
+    }
+
+    /**
+     * Returns the number of a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The number of the drawn ball
+     */
+    public int getDrawnBall(int drawIndex) {
+        return drawnBalls[drawIndex];
+    }
+
+    /**
+     * Returns the numbers of the balls that were drawn
+     * @return A copy of the numbers of the balls that were drawn, in the order they were drawn
+     */
+    public int[] getDrawnBalls() {
+        return Arrays.copyOf(drawnBalls, drawnBalls.length);
+    }
+
+    /**
+     * Returns the id of the participant who won a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The id of the winner of the drawn ball, or {@link #NO_WINNER} if its ticket was not purchased
+     */
+    public int getWinnerId(int drawIndex) {
+        return winnerIds[drawIndex];
+    }
+
+    /**
+     * Returns the first name of the participant who won a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The first name of the winner of the drawn ball, or null if its ticket was not purchased
+     */
+    public String getWinner(int drawIndex) {
+        return winners[drawIndex];
+    }
+
+    /**
+     * Returns the prize of a drawn ball in cents
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The prize of the drawn ball in cents, zero if the prize strategy defines no prize for the ball
+     */
+    public long getPrizeCents(int drawIndex) {
+        return prizeCents[drawIndex];
+    }
+
+    /**
+     * Returns the prize amount of a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The prize amount of the drawn ball, with two decimal places
+     */
+    public BigDecimal getPrizeAmount(int drawIndex) {
+        return BigDecimal.valueOf(prizeCents[drawIndex], 2);
+    }
+
+    /**
+     * Returns the pot the prizes were calculated from in cents
+     * @return The pot of the lottery draw when it happened, in cents
+     */
+    public long getPotCents() {
+        return potCents;
+    }
+
+    /**
+     * Returns the pot amount the prizes were calculated from
+     * @return The pot amount of the lottery draw when it happened
+     */
+    public BigDecimal getPot() {
+        return BigDecimal.valueOf(potCents, 2);
+    }
+
+    /**
+     * Returns the winners of the draw, in the order their balls were drawn.
+     * The drawn balls which tickets were not purchased are skipped.
+     * @return The winners of the draw
+     */
+    public Iterable<Winner> getWinners() {
+        return WinnerIterator::new;
+    }
+
+    /**
+     * Returns a String listing the numbers of the balls that were drawn, rendered once and cached
+     * @return A String listing the numbers of the balls that were drawn
+     * @see LotteryDraw#getDrawnBallsAsString()
+     */
+    public String getDrawnBallsAsString() {
+        String text = drawnBallsAsString;
+        if (text == null) {
+            text = DrawResultFormat.drawnBallsAsString(drawnBalls);
+            drawnBallsAsString = text;
+        }
+        return text;
+    }
+
+    /**
+     * Returns a String listing the winners of the draw with the prize amount for each winner, rendered once and cached
+     * @return A String listing the winners of the draw with the prize amount for each winner
+     * @see LotteryDraw#getDrawWinnersAsString()
+     */
+    public String getWinnersAsString() {
+        String text = winnersAsString;
+        if (text == null) {
+            BigDecimal[] prizeAmounts = new BigDecimal[prizeCents.length];
+            for (int i = 0; i < prizeCents.length; i++) {
+                prizeAmounts[i] = getPrizeAmount(i);
+            }
+            text = DrawResultFormat.winnersAsString(winners, prizeAmounts);
+            winnersAsString = text;
+        }
+        return text;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // Iterates over the drawn balls which have a winner
+    private final class WinnerIterator implements Iterator<Winner> {
+
+        private int nextDrawIndex = skipNoWinner(0);
+
+        @Override
+        public boolean hasNext() {
+            return nextDrawIndex < drawnBalls.length;
+        }
+
+        @Override
+        public Winner next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int drawIndex = nextDrawIndex;
+            nextDrawIndex = skipNoWinner(drawIndex + 1);
+            return new Winner(drawIndex, drawnBalls[drawIndex], winnerIds[drawIndex], winners[drawIndex], prizeCents[drawIndex]);
+        }
+
+        private int skipNoWinner(int drawIndex) {
+            while (drawIndex < drawnBalls.length && winnerIds[drawIndex] == NO_WINNER) {
+                drawIndex++;
+            }
+            return drawIndex;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.util.StringFormattingUtil;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+
+/**
+ * Formats the drawn balls and the winners of a lottery draw as text.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class DrawResultFormat {
+
+    private static final String NO_WINNER = "No winner";
+
+    private DrawResultFormat() {
+        // Constructor is private as utility class shouldn't be instantiated
+    }
+
+    /**
+     * Returns a String listing the drawn balls, one per line
+     * @param drawnBalls The numbers of the drawn balls, in the order they were drawn
+     * @return A String listing the drawn balls
+     */
+    static String drawnBallsAsString(int[] drawnBalls) {
+        StringBuilder sb = new StringBuilder();
+        for (int drawnBall : drawnBalls) {
+            if (sb.length() > 0) {
+                sb.append(System.lineSeparator());
+            }
+            sb.append("Drawn ball: ").append(drawnBall);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a String listing the winner of each drawn ball with his prize amount
+     * @param winners The first name of the winner of each drawn ball, or null if the ball has no winner
+     * @param prizeAmounts The prize amount of each drawn ball, or null if the prize strategy defines no prize for the ball
+     * @return A String listing the winner of each drawn ball with his prize amount
+     */
+    static String winnersAsString(String[] winners, BigDecimal[] prizeAmounts) {
+        StringBuilder sb = new StringBuilder();
+
+        // Pad the first line to be aligned with the second line
+        for (int i = 0; i < winners.length; i++) {
+            sb.append(String.format("%20s", StringFormattingUtil.getOrdinal(i + 1) + " ball"));
+        }
+
+        sb.append(System.lineSeparator());
+
+        DecimalFormat decimalFormat = new DecimalFormat("00.00$");
+        for (int i = 0; i < winners.length; i++) {
+            String winner = winners[i] == null ? NO_WINNER : winners[i];
+            // if no prize amount is returned, display zero
+            BigDecimal prizeAmount = prizeAmounts[i] == null ? BigDecimal.ZERO : prizeAmounts[i];
+            // Pad the second line to be aligned with the first line
+            sb.append(String.format("%14s", winner + ": "));
+            sb.append(decimalFormat.format(prizeAmount));
+        }
+
+        return sb.toString();
+    }
+}
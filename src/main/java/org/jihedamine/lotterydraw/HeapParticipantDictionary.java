@@ -0,0 +1,81 @@
+package org.jihedamine.lotterydraw;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Participant dictionary storing the first names as Strings on the heap.
+ * <p>
+ * The ids of the first names are looked up in a concurrent hash map, which does not lock when the name was already registered.
+ * The first names are stored in chunks of an array indexed by id,
+ * which are added as ids are given so that registering a name never copies the names already registered.
+ *
+ * @see ParticipantDictionary#onHeap()
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class HeapParticipantDictionary implements ParticipantDictionary {
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    // Chunks of first names indexed by id. The directory of chunks is replaced with a larger copy when it is full.
+    private volatile AtomicReferenceArray<AtomicReferenceArray<String>> chunks = new AtomicReferenceArray<>(1);
+
+    @Override
+    public int getId(String firstName) {
+        Integer id = ids.get(firstName);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(firstName, name -> {
+            int newId = nextId.getAndIncrement();
+            chunk(newId >>> CHUNK_SHIFT).set(newId & CHUNK_MASK, name);
+            return newId;
+        });
+    }
+
+    @Override
+    public int findId(String firstName) {
+        Integer id = ids.get(firstName);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public String getFirstName(int id) {
+        return chunks.get(id >>> CHUNK_SHIFT).get(id & CHUNK_MASK);
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    private AtomicReferenceArray<String> chunk(int index) {
+        AtomicReferenceArray<AtomicReferenceArray<String>> currentChunks = chunks;
+        if (index < currentChunks.length() && currentChunks.get(index) != null) {
+            return currentChunks.get(index);
+        }
+        synchronized (this) {
+            currentChunks = chunks;
+            if (index >= currentChunks.length()) {
+                AtomicReferenceArray<AtomicReferenceArray<String>> grownChunks =
+                        new AtomicReferenceArray<>(Math.max(index + 1, currentChunks.length() * 2));
+                for (int i = 0; i < currentChunks.length(); i++) {
+                    grownChunks.set(i, currentChunks.get(i));
+                }
+                currentChunks = grownChunks;
+            }
+            if (currentChunks.get(index) == null) {
+                currentChunks.set(index, new AtomicReferenceArray<>(1 << CHUNK_SHIFT));
+            }
+            chunks = currentChunks;
+            return currentChunks.get(index);
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package org.jihedamine.lotterydraw;
 
 import org.jihedamine.bucket.Bucket;
+import org.jihedamine.bucket.ConcurrentIntBucket;
+import org.jihedamine.bucket.IntBucket;
+import org.jihedamine.bucket.MultiPoolBucket;
 import org.jihedamine.bucket.exceptions.EmptyBucketException;
 import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
 import org.jihedamine.lotterydraw.exceptions.LotteryDrawDidNotHappenException;
 import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotAvailableException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotPurchasedException;
 import org.jihedamine.prizestrategy.PrizeStrategy;
-import org.jihedamine.util.StringFormattingUtil;
+import org.jihedamine.random.RandomSource;
 
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntConsumer;
 
 /**
  * A lottery draw is a lottery event where participants purchase tickets referring each to a distinct ball number
@@ -26,13 +33,30 @@ import java.util.stream.IntStream;
  * A participant purchases a ticket for the lottery draw by providing his first name as a parameter to {@link #purchaseTicket(String)}.
  * When a participant purchases a ticket, the ticket price is added to the lottery draw's pot.
  * When a participant purchases a ticket, {@link #purchaseTicket(String)} returns the number of the ball he purchased a ticket for.
+ * Batches of tickets are purchased at once with {@link #purchaseTickets(List)}.
+ * A participant can also choose the number of the ball of his ticket with {@link #purchaseTicket(String, int)},
+ * as long as {@link #isTicketAvailable(int)} returns true for that number.
  * <p>
  * A Lottery draw event consists of randomly picking a subset of balls from the lottery event balls.
  * One lottery draw event has one and only one draw. The draw sets the drawn balls and the winners of the lottery draw.
  * The draw operation is triggered with {@link #draw()}.
  * {@link #getDrawnBalls()} returns the numbers of the balls picked in the draw.
  * <p>
- * Once a draw happens, tickets can no longer be purchased for that lottery event.
+ * Until the draw happens, a purchased ticket can be refunded with {@link #refundTicket(int)}:
+ * the ticket is put back for sale and its price is taken back from the pot.
+ * <p>
+ * Once a draw happens, tickets can no longer be purchased nor refunded for that lottery event.
+ * <p>
+ * A lottery draw can be shared by several threads. Purchases and refunds run concurrently with each other,
+ * each one being atomic, and {@link #draw()} waits for the running purchases and refunds before drawing the balls,
+ * so that a purchase either happens before the draw or fails with a {@link LotteryDrawAlreadyHappenedException}.
+ * Tickets are picked from a {@link ConcurrentIntBucket} (see {@link ConcurrentIntBucket#of(IntBucket)}):
+ * buckets of sequential numbers are split into stripes of numbers, each with its own lock,
+ * other buckets that are not thread-safe are wrapped in a single lock,
+ * and a {@link org.jihedamine.bucket.ConcurrentShuffledBucket} lets purchases pick, choose and refund tickets without locking.
+ * <p>
+ * Formats drawing from several pools of balls, such as main balls plus bonus balls, are constructed from a {@link MultiPoolBucket}:
+ * one {@link #draw()} picks the balls of every pool, and the drawn balls of each pool follow the drawn balls of the previous pools.
  * <p>
  * The winners of the lottery draw are the participants who purchased tickets referring to the balls
  * that were picked in the draw.
@@ -40,30 +64,52 @@ import java.util.stream.IntStream;
  * The prize amount for each winner depends on the prize strategy defined for the lottery draw.
  * <p>
  * The lottery draw is able to display the first names of the winners of the draw and their prizes amounts with {@link #getDrawWinnersAsString()}.
+ * <p>
+ * A lottery draw which bucket stores its items outside of the Java heap, such as an {@link org.jihedamine.bucket.OffHeapIntBucket},
+ * holds off-heap copies of the bucket for its balls and its tickets. {@link #close()} releases them without waiting for the garbage collector.
  *
  * @see Bucket
  *
  * @author Jihed Amine Maaref on 24-Dec-16.
  */
-public class LotteryDraw {
+public class LotteryDraw implements AutoCloseable {
+
+    // Number of drawn balls from which the draw sample is computed on several cores.
+    // The parallel sample pays for drawing the range of each drawn ball and for gathering the ranges' samples,
+    // which makes it 20 to 40% slower than the sequential sample on a single core (see FloydSamplerBenchmark).
+    // Below this threshold the sequential sample takes less than 2 ms, which leaves too little to win back that cost.
+    private static final int PARALLEL_DRAW_THRESHOLD = 1 << 16;
 
-    private Bucket<Integer> ballsMachine;
-    private Bucket<Integer> tickets;
+    private IntBucket ballsMachine;
+    private ConcurrentIntBucket tickets;
 
     private final int nbDraws;
 
-    private BigDecimal pot;
-    private BigDecimal ticketPrice;
+    // Amounts are counted in cents. The pot is a striped sum so that concurrent purchases do not update the same field,
+    // and it is only converted to a BigDecimal when it is read.
+    private final LongAdder potCents;
+    private final long ticketPriceCents;
 
     // Maps the ball number of the ticket purchased by a lottery draw participant
-    // to the firstName of that participant
-    private Map<Integer, String> purchasedBallsMap;
+    // to the id of the firstName of that participant in the participant dictionary
+    private final OwnershipTable owners;
+    private final ParticipantDictionary participants;
+
+    // Maps the id of each participant to the ball numbers of the tickets purchased by that participant
+    private final TicketIndex ticketsByParticipant = new TicketIndex();
 
     // Stores the internal state of the lottery draw
     // i.e. whether the draw happened or not
-    private boolean drawHappened;
+    private volatile boolean drawHappened;
 
-    private final int[] drawnBalls;
+    // Purchases and refunds run under a purchase lock, and the draw under the draw lock
+    private final PurchaseCutoff purchaseCutoff = new PurchaseCutoff();
+
+    // The result of the draw, published once by the draw and only read afterwards
+    private volatile DrawResult drawResult;
+
+    // Whether the balls and the tickets were released by close()
+    private volatile boolean closed;
 
     private PrizeStrategy prizeStrategy;
 
@@ -82,43 +128,115 @@ public class LotteryDraw {
                        double pot,
                        double ticketPrice,
                        PrizeStrategy prizeStrategy) throws LotteryDrawInitializationException {
+        this(bucket, nbDraws, pot, ticketPrice, prizeStrategy, null);
+    }
+
+    /**
+     * Constructs a lottery draw event drawing balls from several pools,
+     * the number of balls drawn from each pool being defined by the bucket
+     * @param bucket Bucket of the pools of integer items used to create the set of balls and tickets for the lottery draw
+     * @param pot The initial amount of this lottery draw pot
+     * @param ticketPrice The price of a ticket to participate in this lottery draw
+     * @param prizeStrategy The prize strategy used to calculate prizes for the lottery draw winners
+     * @throws LotteryDrawInitializationException if any parameter value used to construct the lottery draw is invalid
+     */
+    public LotteryDraw(MultiPoolBucket bucket,
+                       double pot,
+                       double ticketPrice,
+                       PrizeStrategy prizeStrategy) throws LotteryDrawInitializationException {
+        this(bucket, bucket == null ? 0 : bucket.getDrawSize(), pot, ticketPrice, prizeStrategy, null);
+    }
+
+    /**
+     * Constructs a lottery draw event by defining the balls numbers, instantiating the lottery draw tickets,
+     * setting an initial pot amount, a ticket price, a prize strategy and the random source of the draw.
+     * <p>
+     * The balls and the tickets are picked with independent splits of the random source.
+     * Two lottery draws constructed with random sources seeded with the same value,
+     * and receiving the same purchases, draw the same balls: this lets a draw be replayed for audit.
+     * @param bucket Bucket of integer items used to create the set of balls and tickets for the lottery draw
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of this lottery draw pot
+     * @param ticketPrice The price of a ticket to participate in this lottery draw
+     * @param prizeStrategy The prize strategy used to calculate prizes for the lottery draw winners
+     * @param randomSource The random source used to pick the balls and the tickets,
+     *                     or null to pick them with the random source of the bucket
+     * @throws LotteryDrawInitializationException if any parameter value used to construct the lottery draw is invalid
+     */
+    public LotteryDraw(Bucket<Integer> bucket,
+                       int nbDraws,
+                       double pot,
+                       double ticketPrice,
+                       PrizeStrategy prizeStrategy,
+                       RandomSource randomSource) throws LotteryDrawInitializationException {
+        this(bucket, nbDraws, pot, ticketPrice, prizeStrategy, randomSource, ParticipantDictionary.onHeap());
+    }
+
+    /**
+     * Constructs a lottery draw event by defining the balls numbers, instantiating the lottery draw tickets,
+     * setting an initial pot amount, a ticket price, a prize strategy, the random source of the draw
+     * and the dictionary storing the first names of the participants.
+     * <p>
+     * Passing {@link ParticipantDictionary#offHeap()} keeps the first names of the participants out of the Java heap.
+     * The dictionary belongs to the lottery draw from then on, which closes it when it is closed.
+     * @param bucket Bucket of integer items used to create the set of balls and tickets for the lottery draw
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of this lottery draw pot
+     * @param ticketPrice The price of a ticket to participate in this lottery draw
+     * @param prizeStrategy The prize strategy used to calculate prizes for the lottery draw winners
+     * @param randomSource The random source used to pick the balls and the tickets,
+     *                     or null to pick them with the random source of the bucket
+     * @param participants The dictionary giving an id to the first name of each participant
+     * @throws LotteryDrawInitializationException if any parameter value used to construct the lottery draw is invalid,
+     * including an initial pot or a ticket price that is not a finite number or that is too large for the pot to be counted in cents
+     * once every ticket is sold
+     */
+    public LotteryDraw(Bucket<Integer> bucket,
+                       int nbDraws,
+                       double pot,
+                       double ticketPrice,
+                       PrizeStrategy prizeStrategy,
+                       RandomSource randomSource,
+                       ParticipantDictionary participants) throws LotteryDrawInitializationException {
         // Check that the parameters used to construct the lottery draw have valid values
-        checkParametersValidity(bucket, nbDraws, pot, prizeStrategy);
+        checkParametersValidity(bucket, nbDraws, pot, ticketPrice, prizeStrategy, participants);
 
         // The balls machine and the tickets buckets do not point to the same reference
         // as the bucket parameter used to construct the lottery draw
-        // because they each have their own items list
-        // and they must not be modifiable other than by calling the purchaseTicket and draw methods.
-        this.ballsMachine = bucket.getCopy();
-        this.tickets = bucket.getCopy();
+        // because they must not be modifiable other than by calling the purchaseTicket and draw methods.
+        // Copies share the items of the bucket until they are picked from, so constructing a draw does not duplicate them.
+        // Both are picked from as primitive ints so that neither purchases nor the draw box ball numbers.
+        // The tickets are picked by concurrent purchases, while the balls are only picked by the draw.
+        IntBucket intBucket = IntBucket.of(bucket);
+        if (randomSource == null) {
+            this.ballsMachine = intBucket.getCopy();
+            this.tickets = ConcurrentIntBucket.of(intBucket.getCopy());
+        } else {
+            this.ballsMachine = intBucket.getCopy(randomSource.split());
+            this.tickets = ConcurrentIntBucket.of(intBucket.getCopy(randomSource.split()));
+        }
 
         this.nbDraws = nbDraws;
-        this.drawnBalls = new int[nbDraws];
 
-        this.pot = BigDecimal.valueOf(pot);
-        this.ticketPrice = BigDecimal.valueOf(ticketPrice);
+        this.potCents = new LongAdder();
+        this.potCents.add(DrawParameters.toCents(pot));
+        this.ticketPriceCents = DrawParameters.toCents(ticketPrice);
 
-        this.purchasedBallsMap = new HashMap<>();
+        this.owners = new OwnershipTable(intBucket.lowestItem(), intBucket.highestItem(), intBucket.size());
+        this.participants = participants;
 
         this.prizeStrategy = prizeStrategy;
     }
 
-    private void checkParametersValidity(Bucket<Integer> bucket, int nbDraws, double pot, PrizeStrategy prizeStrategy)
+    private void checkParametersValidity(Bucket<Integer> bucket, int nbDraws, double pot, double ticketPrice,
+                                         PrizeStrategy prizeStrategy, ParticipantDictionary participants)
             throws LotteryDrawInitializationException {
         if (bucket == null) {
             throw new LotteryDrawInitializationException("Items bucket can't be null");
         }
-        if (bucket.size() <= 0 || nbDraws <= 0) {
-            throw new LotteryDrawInitializationException("Bucket size or number of draws must be > 0");
-        }
-        if (bucket.size() < nbDraws) {
-            throw new LotteryDrawInitializationException("Can't draw more items than available in the bucket");
-        }
-        if (pot <= 0) {
-            throw new LotteryDrawInitializationException("Initial pot amount can't be negative");
-        }
-        if (prizeStrategy == null) {
-            throw new LotteryDrawInitializationException("Prize strategy can't be null");
+        DrawParameters.checkParameters(bucket.size(), nbDraws, pot, ticketPrice, prizeStrategy);
+        if (participants == null) {
+            throw new LotteryDrawInitializationException("Participant dictionary can't be null");
         }
     }
 
@@ -129,19 +247,206 @@ public class LotteryDraw {
      * @param firstName The first name of the lottery participant who purchases the ticket
      * @return The number of the lottery ball this ticket refers to
      * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened for this LotteryDraw instance
+     * @throws IllegalStateException if the lottery draw was closed before the draw happened
+     * @throws IllegalArgumentException if the first name is null, in which case no ticket is purchased
      * @throws EmptyBucketException if no more tickets are available for sale for this LotteryDraw instance
      */
     public int purchaseTicket(String firstName) throws LotteryDrawAlreadyHappenedException, EmptyBucketException {
-        if (drawHappened) {
-            throw new LotteryDrawAlreadyHappenedException();
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+            checkNotClosed();
+
+            // the first name is resolved before the ticket is picked, so that an invalid name never loses a ticket
+            int participantId = participantIdOf(firstName);
+            int purchasedBallNumber = tickets.pickInt();
+
+            recordPurchase(purchasedBallNumber, participantId);
+            potCents.add(ticketPriceCents);
+
+            return purchasedBallNumber;
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Gives a ticket from this lottery draws ticket bucket to each participant of a batch, identified by his first name.
+     * Adds the price of the tickets to this lottery draw pot.
+     * <p>
+     * The tickets are picked from the tickets bucket in one operation and the pot is increased once for the whole batch.
+     * The batch is atomic: either every participant gets a ticket before the draw happens, or no ticket is purchased.
+     * Every first name is checked before any ticket is picked, and if recording a purchase fails,
+     * the purchases of the batch are removed and the picked tickets are put back for sale when the bucket supports it.
+     * The pot is only increased once every purchase is recorded.
+     *
+     * @param firstNames The first names of the lottery participants who purchase the tickets, one per ticket
+     * @return The numbers of the lottery balls the tickets refer to, the number at index i being the ticket of the participant at index i
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened for this LotteryDraw instance
+     * @throws IllegalStateException if the lottery draw was closed before the draw happened
+     * @throws IllegalArgumentException if a first name is null, in which case no ticket is purchased
+     * @throws EmptyBucketException if fewer tickets than participants are available for sale for this LotteryDraw instance,
+     * in which case no ticket is purchased
+     */
+    public int[] purchaseTickets(List<String> firstNames) throws LotteryDrawAlreadyHappenedException, EmptyBucketException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+            checkNotClosed();
+
+            // every first name is resolved before the tickets are picked, so that an invalid name never loses a ticket
+            int[] participantIds = new int[firstNames.size()];
+            int i = 0;
+            for (String firstName : firstNames) {
+                participantIds[i++] = participantIdOf(firstName);
+            }
+
+            int[] purchasedBallNumbers = tickets.pickItems(participantIds.length);
+
+            int nbRecorded = 0;
+            try {
+                while (nbRecorded < purchasedBallNumbers.length) {
+                    recordPurchase(purchasedBallNumbers[nbRecorded], participantIds[nbRecorded]);
+                    nbRecorded++;
+                }
+            } catch (RuntimeException e) {
+                undoPurchases(purchasedBallNumbers, participantIds, nbRecorded, e);
+                throw e;
+            }
+            // the pot is only increased once every purchase of the batch is recorded
+            potCents.add(ticketPriceCents * purchasedBallNumbers.length);
+
+            return purchasedBallNumbers;
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Gives the ticket of the ball number passed as parameter to the participant identified by his first name.
+     * Adds the ticket price amount to this lottery draw pot.
+     * <p>
+     * The ticket is removed from the tickets bucket in constant time when the bucket supports targeted removal,
+     * as the buckets of sequential numbers do.
+     *
+     * @param firstName The first name of the lottery participant who purchases the ticket
+     * @param ballNumber The number of the lottery ball chosen by the participant
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened for this LotteryDraw instance
+     * @throws IllegalStateException if the lottery draw was closed before the draw happened
+     * @throws IllegalArgumentException if the first name is null, in which case no ticket is purchased
+     * @throws LotteryTicketNotAvailableException if the ball number is not a ball of this lottery draw or if its ticket was already purchased
+     * @throws UnsupportedOperationException if the bucket of this lottery draw does not support removing a specific item
+     */
+    public void purchaseTicket(String firstName, int ballNumber)
+            throws LotteryDrawAlreadyHappenedException, LotteryTicketNotAvailableException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+            checkNotClosed();
+
+            int participantId = participantIdOf(firstName);
+            if (!tickets.removeItem(ballNumber)) {
+                throw new LotteryTicketNotAvailableException(ballNumber);
+            }
+
+            recordPurchase(ballNumber, participantId);
+            potCents.add(ticketPriceCents);
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Takes back the ticket of the ball number passed as parameter from the participant who purchased it.
+     * The ticket is put back into the tickets bucket, so that it can be purchased again,
+     * and the ticket price amount is subtracted from this lottery draw pot.
+     * <p>
+     * The ticket is put back into the tickets bucket in constant time when the bucket supports it,
+     * as the buckets of sequential numbers do.
+     *
+     * @param ballNumber The number of the lottery ball the ticket refers to
+     * @return The first name of the lottery participant who purchased the ticket
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened for this LotteryDraw instance
+     * @throws IllegalStateException if the lottery draw was closed before the draw happened
+     * @throws LotteryTicketNotPurchasedException if no participant purchased the ticket of the ball number
+     * @throws UnsupportedOperationException if the bucket of this lottery draw does not support putting items back
+     */
+    public String refundTicket(int ballNumber)
+            throws LotteryDrawAlreadyHappenedException, LotteryTicketNotPurchasedException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+            checkNotClosed();
+
+            // Removing the owner of the ticket claims the refund, so that two concurrent refunds of a ticket can't both succeed.
+            // The ticket is only put back for sale once it has no owner, so that a new owner is never removed.
+            int participantId = owners.removeOwner(ballNumber);
+            if (participantId == OwnershipTable.NO_OWNER) {
+                throw new LotteryTicketNotPurchasedException(ballNumber);
+            }
+            try {
+                tickets.returnItem(ballNumber);
+            } catch (UnsupportedOperationException e) {
+                // the purchase is left untouched if the bucket can't take the ticket back
+                owners.setOwner(ballNumber, participantId);
+                throw e;
+            }
+            ticketsByParticipant.remove(participantId, ballNumber);
+            potCents.add(-ticketPriceCents);
+
+            return participants.getFirstName(participantId);
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    // Removes the purchases of a batch which recording failed, including the purchase that was being recorded,
+    // and puts every picked ticket back for sale
+    private void undoPurchases(int[] ballNumbers, int[] participantIds, int nbRecorded, RuntimeException cause) {
+        for (int i = 0; i <= nbRecorded && i < ballNumbers.length; i++) {
+            owners.removeOwner(ballNumbers[i]);
+            ticketsByParticipant.remove(participantIds[i], ballNumbers[i]);
+        }
+        try {
+            for (int ballNumber : ballNumbers) {
+                tickets.returnItem(ballNumber);
+            }
+        } catch (UnsupportedOperationException e) {
+            // the bucket can't take the tickets back, so they can no longer be purchased
+            cause.addSuppressed(e);
         }
+    }
 
-        int purchasedBallNumber = tickets.pickItem();
+    // Returns the id of the first name in the participant dictionary, registering it if needed
+    private int participantIdOf(String firstName) {
+        if (firstName == null) {
+            throw new IllegalArgumentException("First name can't be null");
+        }
+        return participants.getId(firstName);
+    }
 
-        purchasedBallsMap.put(purchasedBallNumber, firstName);
-        pot = pot.add(ticketPrice);
+    // Records the participant as the owner of the ticket
+    private void recordPurchase(int ballNumber, int participantId) {
+        owners.setOwner(ballNumber, participantId);
+        ticketsByParticipant.add(participantId, ballNumber);
+    }
 
-        return purchasedBallNumber;
+    /**
+     * Returns whether the ticket of the ball number passed as parameter can still be purchased
+     * @param ballNumber The number of a lottery ball
+     * @return true if the ball number is a ball of this lottery draw which ticket was not purchased yet
+     * @throws UnsupportedOperationException if the bucket of this lottery draw does not support looking up its items
+     */
+    public boolean isTicketAvailable(int ballNumber) {
+        return tickets.contains(ballNumber);
     }
 
     /**
@@ -149,17 +454,32 @@ public class LotteryDraw {
      * The draw sets the drawn balls and the winners of this LotteryDraw instance.
      * One {@link #draw()} has been called for a LotteryDraw instance, the next calls to the {@link #draw()} will throw a {@link LotteryDrawAlreadyHappenedException}.
      * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened for this LotteryDraw instance
+     * @throws IllegalStateException if the lottery draw was closed before the draw happened
      */
     public void draw() throws LotteryDrawAlreadyHappenedException {
-        if (drawHappened) {
-           throw new LotteryDrawAlreadyHappenedException();
+        purchaseCutoff.lockDraw();
+        try {
+            if (drawHappened) {
+               throw new LotteryDrawAlreadyHappenedException();
+            }
+            checkNotClosed();
+
+            // The balls are picked all at once, at a cost that depends on the number of draws rather than on the number of balls
+            boolean parallel = nbDraws >= PARALLEL_DRAW_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1;
+            int[] sample;
+            if (isMultiPoolDraw()) {
+                // each pool draws its own number of balls
+                MultiPoolBucket pools = (MultiPoolBucket) ballsMachine;
+                sample = parallel ? pools.parallelPickDraw() : pools.pickDraw();
+            } else {
+                sample = parallel ? ballsMachine.parallelPickSample(nbDraws) : ballsMachine.pickItems(nbDraws);
+            }
+            // The purchases and refunds are over, so the winners and the prizes are computed once for every reader
+            drawResult = DrawResult.of(Arrays.copyOf(sample, nbDraws), owners::getOwner, participants, prizeStrategy, getPot());
+            drawHappened = true;
+        } finally {
+            purchaseCutoff.unlockDraw();
         }
-
-        IntStream.range(0, nbDraws).forEachOrdered(
-                i -> drawnBalls[i] = ballsMachine.pickItem()
-        );
-
-        drawHappened = true;
     }
 
     /**
@@ -168,19 +488,7 @@ public class LotteryDraw {
      * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called on this LotteryDraw instance
      */
     public String getDrawnBallsAsString() throws LotteryDrawDidNotHappenException {
-        if (!drawHappened) {
-            throw new LotteryDrawDidNotHappenException();
-        }
-
-        StringBuilder sb = new StringBuilder();
-        IntStream.range(0, nbDraws).forEachOrdered(i ->
-                sb.append("Drawn ball: ").append(drawnBalls[i]).append(System.lineSeparator())
-        );
-
-        // deleted unneeded last line separator
-        sb.delete(sb.lastIndexOf(System.lineSeparator()), sb.length());
-
-        return sb.toString();
+        return getDrawResult().getDrawnBallsAsString();
     }
 
     /**
@@ -204,43 +512,41 @@ public class LotteryDraw {
      * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called on this LotteryDraw instance
      */
     public String getDrawWinnersAsString() throws LotteryDrawDidNotHappenException {
-        if (!drawHappened) {
-            throw new LotteryDrawDidNotHappenException();
-        }
-
-        StringBuilder sb = new StringBuilder();
-
-        // Pad the first line to be aligned with the second line
-        IntStream.range(0, nbDraws).forEachOrdered(i ->
-                sb.append(String.format("%20s", StringFormattingUtil.getOrdinal(i + 1) + " ball"))
-        );
-
-        sb.append(System.lineSeparator());
+        return getDrawResult().getWinnersAsString();
+    }
 
-        DecimalFormat decimalFormat = new DecimalFormat("00.00$");
-        IntStream.range(0, nbDraws).forEachOrdered(i -> {
-            String winner = purchasedBallsMap.getOrDefault(drawnBalls[i], "No winner");
-            BigDecimal prizeAmount = prizeStrategy.getPrizeAmount(pot, i);
-            // if no prize amount is returned, display zero
-            if (prizeAmount == null) {
-                prizeAmount = BigDecimal.ZERO;
-            }
-            // Pad the second line to be aligned with the first line
-            sb.append(String.format("%14s", winner + ": "));
-            sb.append(decimalFormat.format(prizeAmount));
-        });
+    /**
+     * Returns the first name of the participant who purchased the ticket of a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The first name of the winner of the drawn ball, or null if its ticket was not purchased
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called on this LotteryDraw instance
+     */
+    public String getWinner(int drawIndex) throws LotteryDrawDidNotHappenException {
+        return getDrawResult().getWinner(drawIndex);
+    }
 
-        return sb.toString();
+    /**
+     * Returns the result of the draw, which drawn balls, winners, prizes and text are computed once by {@link #draw()}
+     * @return The result of the draw
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called on this LotteryDraw instance
+     */
+    public DrawResult getDrawResult() throws LotteryDrawDidNotHappenException {
+        DrawResult result = drawResult;
+        if (result == null) {
+            throw new LotteryDrawDidNotHappenException();
+        }
+        return result;
     }
 
     /**
      * Returns the numbers of the balls that were drawn in this LotteryDraw
-     * @return The numbers of the balls that were drawn in this LotteryDraw
+     * @return The numbers of the balls that were drawn in this LotteryDraw, or zeros if the draw did not happen
      */
     public int[] getDrawnBalls() {
-        // Create a copy of the drawnBalls instance so that the calling client is not able
+        // The draw result returns a copy of the drawn balls, so that the calling client is not able
         // to tamper with the balls that were drawn in this LotteryDraw.
-        return Arrays.copyOf(drawnBalls, drawnBalls.length);
+        DrawResult result = drawResult;
+        return result == null ? new int[nbDraws] : result.getDrawnBalls();
     }
 
     /**
@@ -261,10 +567,95 @@ public class LotteryDraw {
 
     /**
      * Returns the pot amount that this lottery draw currently has.
+     * <p>
+     * The pot and the ticket price are counted in cents, so the amount always has a scale of two decimal places,
+     * whatever the number of decimal places of the initial pot and of the ticket price: a pot of 200 is returned as 200.00.
+     * Compare amounts with {@link BigDecimal#compareTo(BigDecimal)} rather than {@link BigDecimal#equals(Object)}, which also compares scales.
      * @return The pot amount that this lottery draw currently has.
      */
     public BigDecimal getPot() {
-        return pot;
+        return BigDecimal.valueOf(potCents.sum(), 2);
+    }
+
+    /**
+     * Returns the numbers of the tickets purchased by the participant identified by his first name.
+     * <p>
+     * The tickets of each participant are indexed as they are purchased and refunded,
+     * so that the cost of this method only depends on the number of tickets of the participant.
+     * @param firstName The first name of the lottery participant
+     * @return The numbers of the tickets purchased by the participant, in no particular order
+     */
+    public int[] getTickets(String firstName) {
+        return ticketsByParticipant.toArray(participants.findId(firstName));
+    }
+
+    /**
+     * Returns the number of tickets purchased by the participant identified by his first name.
+     * @param firstName The first name of the lottery participant
+     * @return The number of tickets purchased by the participant
+     */
+    public int getNbTickets(String firstName) {
+        return ticketsByParticipant.size(participants.findId(firstName));
+    }
+
+    /**
+     * Calls the consumer passed as parameter with the number of each ticket purchased by the participant identified by his first name,
+     * without copying the numbers of the tickets.
+     * <p>
+     * The tickets of the participant can't be purchased nor refunded until the consumer returns.
+     * @param firstName The first name of the lottery participant
+     * @param consumer The consumer of the numbers of the tickets, which are passed in no particular order
+     */
+    public void forEachTicket(String firstName, IntConsumer consumer) {
+        ticketsByParticipant.forEach(participants.findId(firstName), consumer);
+    }
+
+    /**
+     * Releases the balls, the tickets and the participant dictionary of the lottery draw when they are stored outside of the Java heap,
+     * without waiting for the garbage collector. It has no effect on buckets and dictionaries stored on the Java heap.
+     * <p>
+     * Waits for the running purchases and refunds. Tickets can no longer be purchased nor refunded once the lottery draw is closed,
+     * and the draw can no longer happen if it did not happen yet. The draw result can still be read.
+     * The purchased tickets can still be read unless the first names of the participants were stored outside of the Java heap,
+     * in which case reading them by first name or along with the first names of their owners throws an IllegalStateException.
+     * Closing a closed lottery draw has no effect.
+     */
+    @Override
+    public void close() {
+        purchaseCutoff.lockDraw();
+        try {
+            if (!closed) {
+                closed = true;
+                closeBucket(ballsMachine);
+                closeBucket(tickets);
+                participants.close();
+            }
+        } finally {
+            purchaseCutoff.unlockDraw();
+        }
+    }
+
+    private static void closeBucket(IntBucket bucket) {
+        if (bucket instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) bucket).close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Can't close the bucket", e);
+            }
+        }
+    }
+
+    // Whether the draw picks the number of balls of each pool of a multi-pool bucket rather than balls from the union of the pools
+    private boolean isMultiPoolDraw() {
+        return ballsMachine instanceof MultiPoolBucket && ((MultiPoolBucket) ballsMachine).getDrawSize() == nbDraws;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("The lottery draw is closed");
+        }
     }
 
     /**
@@ -274,6 +665,8 @@ public class LotteryDraw {
      * mapped to the first names of the corresponding participants
      */
     public Map<Integer, String> getPurchasedBallsMap() {
-        return new HashMap<>(purchasedBallsMap);
+        Map<Integer, String> purchasedBallsMap = new HashMap<>();
+        owners.forEach((ballNumber, participantId) -> purchasedBallsMap.put(ballNumber, participants.getFirstName(participantId)));
+        return purchasedBallsMap;
     }
 }
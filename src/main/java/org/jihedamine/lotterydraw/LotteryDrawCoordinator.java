@@ -0,0 +1,381 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.IntBucket;
+import org.jihedamine.bucket.LazySequentialNumbersBucket;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.lotterydraw.exceptions.LotteryClusterException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawDidNotHappenException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotAvailableException;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.jihedamine.random.RandomSource;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A lottery draw coordinator runs the draw of a lottery draw which tickets are sold by a cluster of {@link LotteryDrawNode}s.
+ * <p>
+ * The nodes each sell the tickets of a contiguous range of ball numbers, and their ranges must form one sequence of balls.
+ * The coordinator connects to every node, asks for its range and checks that the ranges follow each other without gap nor overlap.
+ * It can sell tickets on behalf of the nodes, but the nodes usually sell their tickets locally.
+ * <p>
+ * {@link #draw()} cuts off the sales of every node, which waits for the purchases running on the node,
+ * then picks the balls from the whole sequence of balls and asks the node holding each drawn ball for its owner.
+ * If a node fails during the draw, calling {@link #draw()} again retries it with the balls picked by the first attempt.
+ * A node that doesn't accept the connection or answer a request within 30 seconds fails the request,
+ * and the connection to a node that failed is opened again by the next request to the node.
+ * The pot of the lottery draw is the initial pot plus the sales of every node gathered by the cutoff.
+ * <p>
+ * Example: with nodes selling the balls 1 to 25 and 26 to 50,
+ * <code>new LotteryDrawCoordinator(nodeAddresses, 3, 200, prizeStrategy).draw()</code> draws 3 balls out of 50.
+ *
+ * @see LotteryDrawNode
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryDrawCoordinator implements Closeable {
+
+    // The connections to the nodes, in the order of their ranges
+    private final NodeConnection[] nodes;
+    private final int[] nodeFirstBalls;
+    private final int lastBall;
+
+    private final IntBucket ballsMachine;
+    private final int nbDraws;
+    private final int[] drawnBalls;
+
+    // Balls picked by the first attempt of the draw, kept so that an attempt retried after a node failure draws the same balls
+    private int[] sample;
+    private final String[] winners;
+
+    private final long initialPotCents;
+    private long potCents;
+
+    private final PrizeStrategy prizeStrategy;
+
+    private volatile boolean drawHappened;
+
+    /**
+     * Constructs the coordinator of the lottery draw which tickets are sold by the nodes passed as parameter
+     * @param nodeAddresses The addresses of the nodes of the cluster
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of this lottery draw pot
+     * @param prizeStrategy The prize strategy used to calculate prizes for the lottery draw winners
+     * @throws LotteryDrawInitializationException if any parameter value is invalid or if the ranges of the nodes don't form one sequence
+     * @throws LotteryClusterException if a node can't be reached
+     */
+    public LotteryDrawCoordinator(List<InetSocketAddress> nodeAddresses, int nbDraws, double pot, PrizeStrategy prizeStrategy)
+            throws LotteryDrawInitializationException, LotteryClusterException {
+        this(nodeAddresses, nbDraws, pot, prizeStrategy, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs the coordinator of the lottery draw which tickets are sold by the nodes passed as parameter,
+     * which balls are picked with the random source passed as parameter
+     * @param nodeAddresses The addresses of the nodes of the cluster
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of this lottery draw pot
+     * @param prizeStrategy The prize strategy used to calculate prizes for the lottery draw winners
+     * @param randomSource The random source used to pick the balls
+     * @throws LotteryDrawInitializationException if any parameter value is invalid or if the ranges of the nodes don't form one sequence
+     * @throws LotteryClusterException if a node can't be reached
+     */
+    public LotteryDrawCoordinator(List<InetSocketAddress> nodeAddresses, int nbDraws, double pot,
+                                  PrizeStrategy prizeStrategy, RandomSource randomSource)
+            throws LotteryDrawInitializationException, LotteryClusterException {
+        this(nodeAddresses, nbDraws, pot, prizeStrategy, randomSource, NodeConnection.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    LotteryDrawCoordinator(List<InetSocketAddress> nodeAddresses, int nbDraws, double pot,
+                           PrizeStrategy prizeStrategy, RandomSource randomSource, int timeoutMillis)
+            throws LotteryDrawInitializationException, LotteryClusterException {
+        // the time to wait for a node can be shortened by the tests
+        if (nodeAddresses == null || nodeAddresses.isEmpty()) {
+            throw new LotteryDrawInitializationException("A cluster needs at least one node");
+        }
+        DrawParameters.checkDraw(nbDraws, pot, prizeStrategy);
+
+        NodeConnection[] connections = new NodeConnection[nodeAddresses.size()];
+        long[][] ranges = new long[connections.length][];
+        try {
+            for (int i = 0; i < connections.length; i++) {
+                connections[i] = new NodeConnection(nodeAddresses.get(i), timeoutMillis);
+                connections[i].newRequest(NodeProtocol.RANGE);
+                ByteBuffer response = checkOk(connections[i], connections[i].send());
+                ranges[i] = new long[] {response.getInt(), response.getInt(), i};
+            }
+        } catch (RuntimeException e) {
+            closeAll(connections);
+            throw e;
+        }
+
+        // Orders the nodes by range and checks that each range starts right after the previous one
+        Arrays.sort(ranges, Comparator.comparingLong(range -> range[0]));
+        this.nodes = new NodeConnection[connections.length];
+        this.nodeFirstBalls = new int[connections.length];
+        long nbBalls = 0;
+        for (int i = 0; i < ranges.length; i++) {
+            nodes[i] = connections[(int) ranges[i][2]];
+            nodeFirstBalls[i] = (int) ranges[i][0];
+            if (i > 0 && ranges[i][0] != ranges[i - 1][0] + ranges[i - 1][1]) {
+                closeAll(connections);
+                throw new LotteryDrawInitializationException("Ranges of nodes " + nodes[i - 1].getAddress()
+                        + " and " + nodes[i].getAddress() + " don't follow each other");
+            }
+            nbBalls += ranges[i][1];
+        }
+        if (nbBalls < nbDraws || nbBalls > Integer.MAX_VALUE) {
+            closeAll(connections);
+            throw new LotteryDrawInitializationException("Can't draw more items than available in the bucket");
+        }
+
+        this.lastBall = (int) (nodeFirstBalls[0] + nbBalls - 1);
+        this.ballsMachine = new LazySequentialNumbersBucket(nodeFirstBalls[0], (int) nbBalls, randomSource);
+        this.nbDraws = nbDraws;
+        this.drawnBalls = new int[nbDraws];
+        this.winners = new String[nbDraws];
+        this.initialPotCents = DrawParameters.toCents(pot);
+        this.potCents = initialPotCents;
+        this.prizeStrategy = prizeStrategy;
+    }
+
+    /**
+     * Gives a ticket to the participant identified by his first name, from a random node which still has tickets for sale.
+     *
+     * @param firstName The first name of the lottery participant who purchases the ticket
+     * @return The number of the lottery ball this ticket refers to
+     * @throws LotteryDrawAlreadyHappenedException if the sales were cut off for the draw
+     * @throws EmptyBucketException if no more tickets are available for sale in any node
+     * @throws LotteryClusterException if a node can't be reached
+     */
+    public int purchaseTicket(String firstName)
+            throws LotteryDrawAlreadyHappenedException, EmptyBucketException, LotteryClusterException {
+        int firstNode = ThreadLocalRandom.current().nextInt(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            NodeConnection node = nodes[(firstNode + i) % nodes.length];
+            synchronized (node) {
+                NodeProtocol.putString(node.newRequest(NodeProtocol.PURCHASE), firstName);
+                ByteBuffer response = node.send();
+                byte status = response.get();
+                if (status == NodeProtocol.OK) {
+                    return response.getInt();
+                } else if (status == NodeProtocol.CUT_OFF) {
+                    throw new LotteryDrawAlreadyHappenedException();
+                } else if (status != NodeProtocol.SOLD_OUT) {
+                    throw invalidStatus(node, status);
+                }
+            }
+        }
+        throw new EmptyBucketException();
+    }
+
+    /**
+     * Gives the ticket of the ball number passed as parameter to the participant identified by his first name,
+     * from the node which range holds the ball number.
+     *
+     * @param firstName The first name of the lottery participant who purchases the ticket
+     * @param ballNumber The number of the lottery ball chosen by the participant
+     * @throws LotteryDrawAlreadyHappenedException if the sales were cut off for the draw
+     * @throws LotteryTicketNotAvailableException if the ball number is not a ball of this lottery draw or if its ticket was already purchased
+     * @throws LotteryClusterException if the node can't be reached
+     */
+    public void purchaseTicket(String firstName, int ballNumber)
+            throws LotteryDrawAlreadyHappenedException, LotteryTicketNotAvailableException, LotteryClusterException {
+        NodeConnection node = nodeOf(ballNumber);
+        if (node == null) {
+            throw new LotteryTicketNotAvailableException(ballNumber);
+        }
+        synchronized (node) {
+            ByteBuffer request = node.newRequest(NodeProtocol.PURCHASE_BALL);
+            request.putInt(ballNumber);
+            NodeProtocol.putString(request, firstName);
+            byte status = node.send().get();
+            if (status == NodeProtocol.CUT_OFF) {
+                throw new LotteryDrawAlreadyHappenedException();
+            } else if (status == NodeProtocol.NOT_AVAILABLE) {
+                throw new LotteryTicketNotAvailableException(ballNumber);
+            } else if (status != NodeProtocol.OK) {
+                throw invalidStatus(node, status);
+            }
+        }
+    }
+
+    /**
+     * Cuts off the sales of every node, randomly picks a subset of balls from the whole sequence of balls
+     * and gathers the owners of the drawn balls and the sales of the nodes.
+     * <p>
+     * The balls are picked once: if the draw fails, the next call draws the balls picked by the failed call.
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened
+     * @throws LotteryClusterException if a node can't be reached, in which case the draw can be retried
+     */
+    public synchronized void draw() throws LotteryDrawAlreadyHappenedException, LotteryClusterException {
+        if (drawHappened) {
+            throw new LotteryDrawAlreadyHappenedException();
+        }
+
+        // Every node must stop selling before the balls are drawn, otherwise a ticket could be sold after its ball is drawn
+        long sales = 0;
+        for (NodeConnection node : nodes) {
+            synchronized (node) {
+                node.newRequest(NodeProtocol.CUTOFF);
+                sales += checkOk(node, node.send()).getLong();
+            }
+        }
+
+        // Drawing new balls on a retry would let a failing node, or whoever makes it fail, pick the outcome
+        if (sample == null) {
+            sample = ballsMachine.pickSample(nbDraws);
+        }
+        System.arraycopy(sample, 0, drawnBalls, 0, nbDraws);
+        for (int i = 0; i < nbDraws; i++) {
+            NodeConnection node = nodeOf(drawnBalls[i]);
+            synchronized (node) {
+                node.newRequest(NodeProtocol.OWNER).putInt(drawnBalls[i]);
+                ByteBuffer response = node.send();
+                byte status = response.get();
+                if (status == NodeProtocol.OK) {
+                    winners[i] = NodeProtocol.getString(response);
+                } else if (status == NodeProtocol.NO_OWNER) {
+                    winners[i] = null;
+                } else {
+                    throw invalidStatus(node, status);
+                }
+            }
+        }
+
+        potCents = initialPotCents + sales;
+        drawHappened = true;
+    }
+
+    /**
+     * Returns the pot amount of this lottery draw, which is the initial pot plus the sales of every node.
+     * Before the draw, the sales of the nodes are asked to the nodes, and keep growing until the draw.
+     * @return The pot amount of this lottery draw
+     * @throws LotteryClusterException if a node can't be reached
+     */
+    public synchronized BigDecimal getPot() throws LotteryClusterException {
+        if (drawHappened) {
+            return BigDecimal.valueOf(potCents, 2);
+        }
+        long sales = 0;
+        for (NodeConnection node : nodes) {
+            synchronized (node) {
+                node.newRequest(NodeProtocol.POT);
+                sales += checkOk(node, node.send()).getLong();
+            }
+        }
+        return BigDecimal.valueOf(initialPotCents + sales, 2);
+    }
+
+    /**
+     * Returns the first name of the participant who purchased the ticket of a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The first name of the winner of the drawn ball, or null if its ticket was not purchased
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called
+     */
+    public String getWinner(int drawIndex) throws LotteryDrawDidNotHappenException {
+        if (!drawHappened) {
+            throw new LotteryDrawDidNotHappenException();
+        }
+        return winners[drawIndex];
+    }
+
+    /**
+     * Returns a String listing the numbers of the balls that were drawn
+     * @return A String listing the numbers of the balls that were drawn
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called
+     */
+    public String getDrawnBallsAsString() throws LotteryDrawDidNotHappenException {
+        if (!drawHappened) {
+            throw new LotteryDrawDidNotHappenException();
+        }
+        return DrawResultFormat.drawnBallsAsString(drawnBalls);
+    }
+
+    /**
+     * Returns a String listing the winners of the draw with the prize amount for each winner,
+     * in the same format as {@link LotteryDraw#getDrawWinnersAsString()}
+     * @return A String listing the winners of the draw with the prize amount for each winner.
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called
+     */
+    public String getDrawWinnersAsString() throws LotteryDrawDidNotHappenException {
+        if (!drawHappened) {
+            throw new LotteryDrawDidNotHappenException();
+        }
+        BigDecimal pot = BigDecimal.valueOf(potCents, 2);
+        BigDecimal[] prizeAmounts = new BigDecimal[nbDraws];
+        for (int i = 0; i < nbDraws; i++) {
+            prizeAmounts[i] = prizeStrategy.getPrizeAmount(pot, i);
+        }
+        return DrawResultFormat.winnersAsString(winners, prizeAmounts);
+    }
+
+    /**
+     * Returns the numbers of the balls that were drawn
+     * @return The numbers of the balls that were drawn
+     */
+    public int[] getDrawnBalls() {
+        return Arrays.copyOf(drawnBalls, drawnBalls.length);
+    }
+
+    /**
+     * Returns the number of balls that will be drawn in this lottery draw.
+     * @return The number of balls that will be drawn in this lottery draw.
+     */
+    public int getNbDraws() {
+        return nbDraws;
+    }
+
+    /**
+     * Returns the number of nodes of the cluster
+     * @return The number of nodes of the cluster
+     */
+    public int getNbNodes() {
+        return nodes.length;
+    }
+
+    /**
+     * Closes the connections to the nodes, which keep running
+     */
+    @Override
+    public void close() {
+        closeAll(nodes);
+    }
+
+    // Returns the connection to the node which range holds the ball number, or null if no node holds it
+    private NodeConnection nodeOf(int ballNumber) {
+        if (ballNumber < nodeFirstBalls[0] || ballNumber > lastBall) {
+            return null;
+        }
+        int index = Arrays.binarySearch(nodeFirstBalls, ballNumber);
+        return nodes[index >= 0 ? index : -index - 2];
+    }
+
+    private static ByteBuffer checkOk(NodeConnection node, ByteBuffer response) {
+        byte status = response.get();
+        if (status != NodeProtocol.OK) {
+            throw invalidStatus(node, status);
+        }
+        return response;
+    }
+
+    private static LotteryClusterException invalidStatus(NodeConnection node, byte status) {
+        return new LotteryClusterException("Unexpected status " + status + " from node " + node.getAddress());
+    }
+
+    private static void closeAll(NodeConnection[] connections) {
+        for (NodeConnection connection : connections) {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
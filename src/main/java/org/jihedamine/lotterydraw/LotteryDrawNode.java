@@ -0,0 +1,418 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotAvailableException;
+import org.jihedamine.random.RandomSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A lottery draw node sells the tickets of a slice of the sequence of balls of a lottery draw run by a cluster of processes.
+ * <p>
+ * Each node owns a contiguous range of ball numbers, which tickets it sells locally
+ * through {@link #purchaseTicket(String)} and {@link #purchaseTicket(String, int)},
+ * or on behalf of the {@link LotteryDrawCoordinator} of the cluster.
+ * The node doesn't draw: the coordinator cuts off the sales of every node,
+ * draws the balls from the whole sequence and asks each node for the owners of its drawn balls and for the amount of its sales.
+ * <p>
+ * Once {@link #start(InetSocketAddress)} is called, the node answers the requests of the coordinator
+ * on a single thread multiplexing its connections with a selector, as described in {@link NodeProtocol}.
+ * <p>
+ * Example: <code>new LotteryDrawNode(1, 25, 10).start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))</code>
+ * starts a node selling the tickets of the balls 1 to 25 on a free loopback port.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryDrawNode implements Closeable {
+
+    private final TicketSlice tickets;
+    private final ParticipantDictionary participants = ParticipantDictionary.onHeap();
+
+    private final PurchaseCutoff purchaseCutoff = new PurchaseCutoff();
+    private volatile boolean cutOff;
+
+    private Selector selector;
+    private Thread serverThread;
+    private volatile boolean running;
+
+    /**
+     * Constructs a node selling the tickets of a range of ball numbers
+     * @param firstBall The number of the first ball of the range
+     * @param nbBalls The number of balls of the range
+     * @param ticketPrice The price of a ticket
+     * @throws LotteryDrawInitializationException if the number of balls is not positive,
+     * or if the ticket price is not a finite number or is too large for the sales to be counted in cents
+     */
+    public LotteryDrawNode(int firstBall, int nbBalls, double ticketPrice) throws LotteryDrawInitializationException {
+        this(firstBall, nbBalls, ticketPrice, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a node selling the tickets of a range of ball numbers, which are picked with the random source passed as parameter
+     * @param firstBall The number of the first ball of the range
+     * @param nbBalls The number of balls of the range
+     * @param ticketPrice The price of a ticket
+     * @param randomSource The random source used to pick the tickets
+     * @throws LotteryDrawInitializationException if the number of balls is not positive,
+     * or if the ticket price is not a finite number or is too large for the sales to be counted in cents
+     */
+    public LotteryDrawNode(int firstBall, int nbBalls, double ticketPrice, RandomSource randomSource)
+            throws LotteryDrawInitializationException {
+        if (nbBalls <= 0) {
+            throw new LotteryDrawInitializationException("Number of balls must be > 0");
+        }
+        DrawParameters.checkTicketPrice(ticketPrice, 0, nbBalls);
+        this.tickets = new TicketSlice(firstBall, nbBalls, DrawParameters.toCents(ticketPrice), randomSource);
+    }
+
+    /**
+     * Starts answering the requests of the coordinator on the address passed as parameter
+     * @param address The address to listen on, which port may be zero to pick a free port
+     * @return The address the node listens on
+     * @throws IOException if the address can't be bound
+     * @throws IllegalStateException if the node was already started
+     */
+    public synchronized InetSocketAddress start(InetSocketAddress address) throws IOException {
+        if (selector != null) {
+            throw new IllegalStateException("Node already started");
+        }
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            selector = Selector.open();
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+
+        running = true;
+        serverThread = new Thread(this::serve, "lottery-draw-node-" + tickets.getFirstBall());
+        serverThread.setDaemon(true);
+        serverThread.start();
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Gives a random ticket of the range of this node to the participant identified by his first name.
+     *
+     * @param firstName The first name of the lottery participant who purchases the ticket
+     * @return The number of the lottery ball this ticket refers to
+     * @throws LotteryDrawAlreadyHappenedException if the sales of this node were cut off for the draw
+     * @throws EmptyBucketException if no more tickets are available for sale in this node
+     */
+    public int purchaseTicket(String firstName) throws LotteryDrawAlreadyHappenedException, EmptyBucketException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (cutOff) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+            int ballNumber = tickets.purchase(participants.getId(firstName));
+            if (ballNumber == TicketSlice.SOLD_OUT) {
+                throw new EmptyBucketException();
+            }
+            return ballNumber;
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Gives the ticket of the ball number passed as parameter to the participant identified by his first name.
+     *
+     * @param firstName The first name of the lottery participant who purchases the ticket
+     * @param ballNumber The number of the lottery ball chosen by the participant
+     * @throws LotteryDrawAlreadyHappenedException if the sales of this node were cut off for the draw
+     * @throws LotteryTicketNotAvailableException if the ball number is not in the range of this node or if its ticket was already purchased
+     */
+    public void purchaseTicket(String firstName, int ballNumber)
+            throws LotteryDrawAlreadyHappenedException, LotteryTicketNotAvailableException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (cutOff) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+            if (!tickets.purchase(participants.getId(firstName), ballNumber)) {
+                throw new LotteryTicketNotAvailableException(ballNumber);
+            }
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount that the sales of this node added to the pot of the lottery draw
+     * @return The amount of the sales of this node
+     */
+    public BigDecimal getSales() {
+        return BigDecimal.valueOf(tickets.getPotCents(), 2);
+    }
+
+    /**
+     * Returns the number of the first ball of the range of this node
+     * @return The number of the first ball of the range of this node
+     */
+    public int getFirstBall() {
+        return tickets.getFirstBall();
+    }
+
+    /**
+     * Returns the number of balls of the range of this node
+     * @return The number of balls of the range of this node
+     */
+    public int getNbBalls() {
+        return tickets.getNbBalls();
+    }
+
+    /**
+     * Stops answering the requests of the coordinator and closes the connections of this node
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (selector == null || !running) {
+                return;
+            }
+            running = false;
+            selector.wakeup();
+            thread = serverThread;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a node in its own process, listening on the loopback address, until its standard input is closed.
+     * The port the node listens on is printed on the first line of the standard output.
+     * @param args The number of the first ball, the number of balls, the ticket price and optionally the port to listen on
+     * @throws IOException if the node can't listen on the port
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: LotteryDrawNode <firstBall> <nbBalls> <ticketPrice> [port]");
+            System.exit(1);
+        }
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        try (LotteryDrawNode node = new LotteryDrawNode(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Double.parseDouble(args[2]))) {
+            InetSocketAddress address = node.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            System.out.println(address.getPort());
+            System.out.flush();
+
+            InputStream in = System.in;
+            while (in.read() != -1) {
+                // the node runs until the launching process closes its standard input
+            }
+        }
+    }
+
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept((ServerSocketChannel) key.channel());
+                    } else {
+                        serveConnection(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // the selector failed, the node stops answering
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    // Reads the pending requests of a connection, answers the complete ones and writes as much of the responses as the socket accepts
+    private void serveConnection(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable() && channel.read(connection.in) < 0) {
+                closeQuietly(key);
+                return;
+            }
+            // the responses are written as soon as they fit, so that pipelined requests are answered until the socket is full
+            boolean answered;
+            do {
+                answered = answerRequests(connection) > 0;
+                connection.out.flip();
+                channel.write(connection.out);
+                connection.out.compact();
+            } while (answered && connection.out.position() == 0);
+            // stop reading requests while responses are pending, so that a slow coordinator doesn't make the node buffer its answers
+            key.interestOps(connection.out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(key);
+        }
+    }
+
+    // Returns the number of requests answered
+    private int answerRequests(Connection connection) throws IOException {
+        int nbAnswered = 0;
+        ByteBuffer in = connection.in;
+        ByteBuffer out = connection.out;
+        in.flip();
+        while (in.remaining() >= Integer.BYTES && out.remaining() >= Integer.BYTES + NodeProtocol.MAX_FRAME_LENGTH) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > NodeProtocol.MAX_FRAME_LENGTH) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            if (in.remaining() < Integer.BYTES + length) {
+                break;
+            }
+            in.position(in.position() + Integer.BYTES);
+            ByteBuffer request = in.slice();
+            request.limit(length);
+            in.position(in.position() + length);
+
+            int start = out.position();
+            out.putInt(0);
+            answer(request, out);
+            out.putInt(start, out.position() - start - Integer.BYTES);
+            nbAnswered++;
+        }
+        in.compact();
+        return nbAnswered;
+    }
+
+    private void answer(ByteBuffer request, ByteBuffer out) {
+        int start = out.position();
+        try {
+            byte operation = request.get();
+            switch (operation) {
+                case NodeProtocol.RANGE:
+                    out.put(NodeProtocol.OK).putInt(tickets.getFirstBall()).putInt(tickets.getNbBalls());
+                    break;
+                case NodeProtocol.PURCHASE:
+                    answerPurchase(NodeProtocol.getString(request), out);
+                    break;
+                case NodeProtocol.PURCHASE_BALL:
+                    int ballNumber = request.getInt();
+                    answerPurchase(NodeProtocol.getString(request), ballNumber, out);
+                    break;
+                case NodeProtocol.POT:
+                    out.put(NodeProtocol.OK).putLong(tickets.getPotCents());
+                    break;
+                case NodeProtocol.CUTOFF:
+                    cutOff();
+                    out.put(NodeProtocol.OK).putLong(tickets.getPotCents());
+                    break;
+                case NodeProtocol.OWNER:
+                    int ownerId = tickets.getOwner(request.getInt());
+                    if (ownerId == OwnershipTable.NO_OWNER) {
+                        out.put(NodeProtocol.NO_OWNER);
+                    } else {
+                        out.put(NodeProtocol.OK);
+                        NodeProtocol.putString(out, participants.getFirstName(ownerId));
+                    }
+                    break;
+                default:
+                    out.put(NodeProtocol.BAD_REQUEST);
+            }
+        } catch (RuntimeException e) {
+            // truncated request, invalid string or name too long to be answered
+            out.position(start);
+            out.put(NodeProtocol.BAD_REQUEST);
+        }
+    }
+
+    private void answerPurchase(String firstName, ByteBuffer out) {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (cutOff) {
+                out.put(NodeProtocol.CUT_OFF);
+                return;
+            }
+            int ballNumber = tickets.purchase(participants.getId(firstName));
+            if (ballNumber == TicketSlice.SOLD_OUT) {
+                out.put(NodeProtocol.SOLD_OUT);
+            } else {
+                out.put(NodeProtocol.OK).putInt(ballNumber);
+            }
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    private void answerPurchase(String firstName, int ballNumber, ByteBuffer out) {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (cutOff) {
+                out.put(NodeProtocol.CUT_OFF);
+            } else if (tickets.purchase(participants.getId(firstName), ballNumber)) {
+                out.put(NodeProtocol.OK);
+            } else {
+                out.put(NodeProtocol.NOT_AVAILABLE);
+            }
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    // Waits for the running purchases to be done and rejects the next ones
+    private void cutOff() {
+        purchaseCutoff.lockDraw();
+        try {
+            cutOff = true;
+        } finally {
+            purchaseCutoff.unlockDraw();
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // the connection is dropped anyway
+        }
+    }
+
+    // The buffers of a connection, sized for one request being received and one response per request being sent
+    private static final class Connection {
+        private final ByteBuffer in = ByteBuffer.allocate(Integer.BYTES + NodeProtocol.MAX_FRAME_LENGTH);
+        private final ByteBuffer out = ByteBuffer.allocate(2 * (Integer.BYTES + NodeProtocol.MAX_FRAME_LENGTH));
+    }
+}
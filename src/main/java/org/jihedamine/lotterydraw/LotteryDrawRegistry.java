@@ -0,0 +1,304 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyRegisteredException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawNotFoundException;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A lottery draw registry hosts the lottery draws running at the same time, identified by their ids,
+ * and draws each of them at its scheduled draw time.
+ * <p>
+ * The draws are scheduled in a single delay queue, which a single scheduler thread takes them from as their draw times come,
+ * so that hosting thousands of lottery draws doesn't take a thread nor a timer per lottery draw.
+ * <p>
+ * Once drawn, a lottery draw is replaced by its {@link ArchivedLotteryDraw}, which only holds its result,
+ * and the archives beyond the maximum number of archived draws are evicted from the oldest,
+ * so that the memory held by the registry is bounded by its live lottery draws.
+ * The lottery draw is closed once it is archived, which releases its balls and tickets if they are stored outside of the Java heap.
+ * <p>
+ * A lottery draw which draw fails is scheduled again, after a delay that doubles with each failed attempt.
+ * After {@value #MAX_DRAW_ATTEMPTS} failed attempts, it is no longer scheduled: it stays live so that it can be drawn with
+ * {@link #drawNow(String)}, and the exception of its last attempt is returned by {@link #getDrawFailure(String)}.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryDrawRegistry implements Closeable {
+
+    /**
+     * The number of archived draws kept by a registry constructed without a maximum number of archived draws
+     */
+    public static final int DEFAULT_MAX_ARCHIVED_DRAWS = 10_000;
+
+    /**
+     * The number of times the scheduler attempts to draw a lottery draw before giving up
+     */
+    public static final int MAX_DRAW_ATTEMPTS = 5;
+
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+    private final Map<String, ScheduledDraw> liveDraws = new ConcurrentHashMap<>();
+
+    // The archived draws in the order they were archived, the eldest being evicted first
+    private final Map<String, ArchivedLotteryDraw> archivedDraws;
+
+    private final DelayQueue<ScheduledDraw> schedule = new DelayQueue<>();
+    private final Thread scheduler;
+    private volatile boolean running = true;
+
+    // Delay before the second attempt to draw a lottery draw, doubled for each of the next attempts
+    private final long retryDelayMillis;
+
+    /**
+     * Constructs a registry keeping at most {@value #DEFAULT_MAX_ARCHIVED_DRAWS} archived draws
+     */
+    public LotteryDrawRegistry() {
+        this(DEFAULT_MAX_ARCHIVED_DRAWS);
+    }
+
+    /**
+     * Constructs a registry keeping at most the number of archived draws passed as parameter
+     * @param maxArchivedDraws The maximum number of archived draws kept by the registry
+     * @throws IllegalArgumentException if the maximum number of archived draws is negative
+     */
+    public LotteryDrawRegistry(int maxArchivedDraws) {
+        this(maxArchivedDraws, DEFAULT_RETRY_DELAY_MILLIS);
+    }
+
+    LotteryDrawRegistry(int maxArchivedDraws, long retryDelayMillis) {
+        // the delay between draw attempts can be shortened by the tests
+        this.retryDelayMillis = retryDelayMillis;
+        if (maxArchivedDraws < 0) {
+            throw new IllegalArgumentException("Maximum number of archived draws can't be negative");
+        }
+        this.archivedDraws = new LinkedHashMap<String, ArchivedLotteryDraw>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ArchivedLotteryDraw> eldest) {
+                return size() > maxArchivedDraws;
+            }
+        };
+
+        this.scheduler = new Thread(this::runScheduledDraws, "lottery-draw-registry-scheduler");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+    /**
+     * Hosts a lottery draw until its draw time, when it is drawn and archived
+     * @param id The id of the lottery draw
+     * @param lotteryDraw The lottery draw
+     * @param drawTime The instant the lottery draw is drawn at, which is as soon as possible if it is in the past
+     * @throws LotteryDrawAlreadyRegisteredException if the id is already used by a live or archived lottery draw
+     * @throws IllegalStateException if the registry was closed
+     */
+    public void register(String id, LotteryDraw lotteryDraw, Instant drawTime) throws LotteryDrawAlreadyRegisteredException {
+        if (!running) {
+            throw new IllegalStateException("Registry is closed");
+        }
+        ScheduledDraw scheduledDraw = new ScheduledDraw(id, lotteryDraw, drawTime);
+        synchronized (archivedDraws) {
+            if (archivedDraws.containsKey(id) || liveDraws.putIfAbsent(id, scheduledDraw) != null) {
+                throw new LotteryDrawAlreadyRegisteredException(id);
+            }
+        }
+        schedule.put(scheduledDraw);
+    }
+
+    /**
+     * Returns the live lottery draw identified by the id passed as parameter
+     * @param id The id of the lottery draw
+     * @return The lottery draw
+     * @throws LotteryDrawNotFoundException if no live lottery draw has this id
+     */
+    public LotteryDraw getDraw(String id) throws LotteryDrawNotFoundException {
+        ScheduledDraw scheduledDraw = liveDraws.get(id);
+        if (scheduledDraw == null) {
+            throw new LotteryDrawNotFoundException(id);
+        }
+        return scheduledDraw.lotteryDraw;
+    }
+
+    /**
+     * Returns the archived result of the lottery draw identified by the id passed as parameter
+     * @param id The id of the lottery draw
+     * @return The archived result of the lottery draw
+     * @throws LotteryDrawNotFoundException if no archived lottery draw has this id, because it is still live, was evicted or never existed
+     */
+    public ArchivedLotteryDraw getArchivedDraw(String id) throws LotteryDrawNotFoundException {
+        ArchivedLotteryDraw archivedDraw;
+        synchronized (archivedDraws) {
+            archivedDraw = archivedDraws.get(id);
+        }
+        if (archivedDraw == null) {
+            throw new LotteryDrawNotFoundException(id);
+        }
+        return archivedDraw;
+    }
+
+    /**
+     * Returns whether the lottery draw identified by the id passed as parameter is live, which is registered and not yet archived
+     * @param id The id of the lottery draw
+     * @return true if the lottery draw is live, false otherwise
+     */
+    public boolean isLive(String id) {
+        return liveDraws.containsKey(id);
+    }
+
+    /**
+     * Returns the exception thrown by the last attempt of the scheduler to draw the live lottery draw identified by the id
+     * passed as parameter
+     * @param id The id of the lottery draw
+     * @return The exception thrown by the last failed draw attempt, or null if no attempt failed
+     * @throws LotteryDrawNotFoundException if no live lottery draw has this id
+     */
+    public RuntimeException getDrawFailure(String id) throws LotteryDrawNotFoundException {
+        ScheduledDraw scheduledDraw = liveDraws.get(id);
+        if (scheduledDraw == null) {
+            throw new LotteryDrawNotFoundException(id);
+        }
+        return scheduledDraw.failure;
+    }
+
+    /**
+     * Draws and archives the live lottery draw identified by the id passed as parameter without waiting for its draw time
+     * @param id The id of the lottery draw
+     * @return The archived result of the lottery draw
+     * @throws LotteryDrawNotFoundException if no live lottery draw has this id
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw is being drawn by the scheduler
+     */
+    public ArchivedLotteryDraw drawNow(String id) throws LotteryDrawNotFoundException, LotteryDrawAlreadyHappenedException {
+        ScheduledDraw scheduledDraw = liveDraws.get(id);
+        if (scheduledDraw == null) {
+            throw new LotteryDrawNotFoundException(id);
+        }
+        if (!scheduledDraw.claimed.compareAndSet(false, true)) {
+            throw new LotteryDrawAlreadyHappenedException();
+        }
+        // removing the draw from the schedule scans the schedule, but releases the lottery draw before its draw time
+        schedule.remove(scheduledDraw);
+        return drawAndArchive(scheduledDraw);
+    }
+
+    /**
+     * Returns the number of live lottery draws
+     * @return The number of live lottery draws
+     */
+    public int getNbLiveDraws() {
+        return liveDraws.size();
+    }
+
+    /**
+     * Returns the number of archived lottery draws
+     * @return The number of archived lottery draws
+     */
+    public int getNbArchivedDraws() {
+        synchronized (archivedDraws) {
+            return archivedDraws.size();
+        }
+    }
+
+    /**
+     * Stops the scheduler. The live lottery draws are not drawn anymore and can still be looked up.
+     */
+    @Override
+    public void close() {
+        running = false;
+        scheduler.interrupt();
+        try {
+            scheduler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runScheduledDraws() {
+        while (running) {
+            ScheduledDraw scheduledDraw;
+            try {
+                scheduledDraw = schedule.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (scheduledDraw.claimed.compareAndSet(false, true)) {
+                try {
+                    drawAndArchive(scheduledDraw);
+                } catch (RuntimeException e) {
+                    retryLater(scheduledDraw, e);
+                }
+            }
+        }
+    }
+
+    // Schedules the lottery draw again after a failed attempt, unless it failed too many times.
+    // Either way, the lottery draw stays live so that it can be drawn with drawNow.
+    private void retryLater(ScheduledDraw scheduledDraw, RuntimeException failure) {
+        scheduledDraw.failure = failure;
+        int nbFailedAttempts = ++scheduledDraw.nbFailedAttempts;
+        if (nbFailedAttempts < MAX_DRAW_ATTEMPTS && running) {
+            scheduledDraw.drawTimeMillis = System.currentTimeMillis() + (retryDelayMillis << (nbFailedAttempts - 1));
+            // only this thread takes draws from the schedule, and drawNow can't claim the draw before it is back in the schedule
+            schedule.put(scheduledDraw);
+        }
+        scheduledDraw.claimed.set(false);
+    }
+
+    private ArchivedLotteryDraw drawAndArchive(ScheduledDraw scheduledDraw) {
+        try {
+            scheduledDraw.lotteryDraw.draw();
+        } catch (LotteryDrawAlreadyHappenedException e) {
+            // the lottery draw was drawn directly, its result is archived all the same
+        }
+        ArchivedLotteryDraw archivedDraw = ArchivedLotteryDraw.of(scheduledDraw.id, Instant.now(), scheduledDraw.lotteryDraw);
+        // the archive is published before the live draw is removed, so that the lottery draw is always found
+        synchronized (archivedDraws) {
+            archivedDraws.put(scheduledDraw.id, archivedDraw);
+            liveDraws.remove(scheduledDraw.id, scheduledDraw);
+        }
+        // the result is archived, so the balls and tickets of the lottery draw can be released
+        scheduledDraw.lotteryDraw.close();
+        return archivedDraw;
+    }
+
+    // A lottery draw waiting in the schedule for its draw time
+    private static final class ScheduledDraw implements Delayed {
+
+        private final String id;
+        private final LotteryDraw lotteryDraw;
+        // Only changed by the scheduler while the draw is out of the schedule
+        private volatile long drawTimeMillis;
+
+        // Set by the first of the scheduler and drawNow to draw the lottery draw
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        // Only updated by the scheduler thread
+        private int nbFailedAttempts;
+        private volatile RuntimeException failure;
+
+        ScheduledDraw(String id, LotteryDraw lotteryDraw, Instant drawTime) {
+            this.id = id;
+            this.lotteryDraw = lotteryDraw;
+            this.drawTimeMillis = drawTime.toEpochMilli();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(drawTimeMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(drawTimeMillis, ((ScheduledDraw) other).drawTimeMillis);
+        }
+    }
+}
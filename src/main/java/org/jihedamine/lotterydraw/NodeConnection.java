@@ -0,0 +1,155 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.lotterydraw.exceptions.LotteryClusterException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * The connection of a {@link LotteryDrawCoordinator} to a {@link LotteryDrawNode}, sending one request at a time.
+ * <p>
+ * The requests and responses go through two buffers allocated once per connection, so that a request doesn't allocate any buffer.
+ * The response buffer is only valid until the next request.
+ * <p>
+ * Connecting to the node and waiting for each response time out, so that a node that hangs fails the request
+ * rather than blocking its caller. A request that fails to reach the node, or which response is cut off or invalid,
+ * leaves the socket out of sync with the node: the socket is then closed, and the next request connects again.
+ * <p>
+ * This class is not thread-safe: concurrent callers must lock the connection from {@link #newRequest(byte)}
+ * until they are done reading the response.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class NodeConnection implements Closeable {
+
+    /**
+     * Default time to wait for the node to accept the connection or to answer a request
+     */
+    static final int DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private final InetSocketAddress address;
+    private final int timeoutMillis;
+
+    // null while the connection is down, until the next request connects again
+    private Socket socket;
+    private boolean closed;
+
+    private final ByteBuffer request = ByteBuffer.allocate(Integer.BYTES + NodeProtocol.MAX_FRAME_LENGTH);
+    private final ByteBuffer response = ByteBuffer.allocate(NodeProtocol.MAX_FRAME_LENGTH);
+
+    /**
+     * Connects to the node listening on the address passed as parameter
+     * @param address The address of the node
+     * @param timeoutMillis The time to wait for the node to accept the connection or to answer a request, in milliseconds
+     * @throws LotteryClusterException if the node can't be reached
+     */
+    NodeConnection(InetSocketAddress address, int timeoutMillis) throws LotteryClusterException {
+        this.address = address;
+        this.timeoutMillis = timeoutMillis;
+        try {
+            connect();
+        } catch (IOException e) {
+            throw new LotteryClusterException("Can't connect to node " + address, e);
+        }
+    }
+
+    /**
+     * Starts a request, which arguments are put in the returned buffer before calling {@link #send()}
+     * @param operation The operation of the request
+     * @return The buffer of the request
+     */
+    ByteBuffer newRequest(byte operation) {
+        request.clear();
+        request.putInt(0);
+        request.put(operation);
+        return request;
+    }
+
+    /**
+     * Sends the request started by {@link #newRequest(byte)} and waits for its response,
+     * connecting again to the node if the connection is down
+     * @return The body of the response, positioned after its status byte
+     * @throws LotteryClusterException if the node can't be reached, doesn't answer in time or answers with an invalid response,
+     * in which case the connection is dropped
+     * @throws IllegalStateException if the connection is closed
+     */
+    ByteBuffer send() throws LotteryClusterException {
+        if (closed) {
+            throw new IllegalStateException("The connection to node " + address + " is closed");
+        }
+        try {
+            if (socket == null) {
+                connect();
+            }
+            request.putInt(0, request.position() - Integer.BYTES);
+            socket.getOutputStream().write(request.array(), 0, request.position());
+
+            InputStream in = socket.getInputStream();
+            response.clear();
+            readFully(in, Integer.BYTES);
+            int length = response.getInt(0);
+            if (length < 1 || length > response.capacity()) {
+                disconnect();
+                throw new LotteryClusterException("Invalid response length " + length + " from node " + address);
+            }
+            readFully(in, length);
+            response.limit(length);
+            return response;
+        } catch (IOException e) {
+            // the node may still send the response, or the rest of it, which would be read as the response of the next request
+            disconnect();
+            throw new LotteryClusterException("Request to node " + address + " failed", e);
+        }
+    }
+
+    InetSocketAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        disconnect();
+    }
+
+    private void connect() throws IOException {
+        Socket newSocket = new Socket();
+        try {
+            newSocket.setTcpNoDelay(true);
+            newSocket.setSoTimeout(timeoutMillis);
+            newSocket.connect(address, timeoutMillis);
+        } catch (IOException e) {
+            newSocket.close();
+            throw e;
+        }
+        socket = newSocket;
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // the connection is dropped anyway
+            }
+            socket = null;
+        }
+    }
+
+    // Reads the number of bytes passed as parameter at the start of the response buffer
+    private void readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = response.array();
+        for (int offset = 0; offset < length; ) {
+            int nbRead = in.read(bytes, offset, length - offset);
+            if (nbRead < 0) {
+                throw new EOFException("Connection closed by node " + address);
+            }
+            offset += nbRead;
+        }
+    }
+}
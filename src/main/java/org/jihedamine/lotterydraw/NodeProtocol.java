@@ -0,0 +1,66 @@
+package org.jihedamine.lotterydraw;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The messages exchanged between a {@link LotteryDrawCoordinator} and the {@link LotteryDrawNode}s of a lottery draw cluster.
+ * <p>
+ * Every message is a frame made of its length as a 4 bytes int followed by its body.
+ * The body of a request starts with an operation byte followed by the arguments of the operation,
+ * the body of a response starts with a status byte followed by the results of the operation if the status is {@link #OK}.
+ * Ints and longs are big-endian, strings are UTF-8 bytes preceded by their length as an int.
+ * <p>
+ * <pre>
+ * operation      arguments                  results
+ * RANGE                                     int firstBall, int nbBalls
+ * PURCHASE       string firstName           int ballNumber
+ * PURCHASE_BALL  int ballNumber, string     (none)
+ * POT                                       long potCents
+ * CUTOFF                                    long potCents
+ * OWNER          int ballNumber             string firstName
+ * </pre>
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class NodeProtocol {
+
+    static final byte RANGE = 1;
+    static final byte PURCHASE = 2;
+    static final byte PURCHASE_BALL = 3;
+    static final byte POT = 4;
+    static final byte CUTOFF = 5;
+    static final byte OWNER = 6;
+
+    static final byte OK = 0;
+    static final byte SOLD_OUT = 1;
+    static final byte NOT_AVAILABLE = 2;
+    static final byte CUT_OFF = 3;
+    static final byte NO_OWNER = 4;
+    static final byte BAD_REQUEST = 5;
+
+    /**
+     * The maximum length of the body of a frame, which bounds the buffers of the nodes and of the coordinator
+     */
+    static final int MAX_FRAME_LENGTH = 4096;
+
+    private NodeProtocol() {
+        // Constructor is private as utility class shouldn't be instantiated
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,219 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.DirectBufferCleaner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Participant dictionary storing the first names encoded in UTF-8 outside of the Java heap.
+ * <p>
+ * The first names are appended to an arena of direct byte buffers, each name being preceded by its length in bytes.
+ * The location of each name in the arena is stored in a direct buffer indexed by id,
+ * and the ids are looked up in an open addressing hash table of direct buffers which also stores the hash of each name,
+ * so that names are only compared when their hashes are equal.
+ * The heap does not hold anything per first name.
+ * <p>
+ * The dictionary is locked while looking up an id or reading a name.
+ * Closing it releases its direct buffers, after which looking up an id or reading a name throws an IllegalStateException.
+ *
+ * @see ParticipantDictionary#offHeap()
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class OffHeapParticipantDictionary implements ParticipantDictionary {
+
+    private static final int ARENA_CHUNK_SIZE = 1 << 20;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Chunks of the arena. Only the last chunk is written to, at its position.
+    private final List<ByteBuffer> arenaChunks = new ArrayList<>();
+
+    // Location of the name of each id: index of the arena chunk in the high 32 bits, offset in the chunk in the low 32 bits.
+    // The byte buffers backing the views are kept to be released.
+    private ByteBuffer locationsBuffer;
+    private LongBuffer locations;
+
+    // Hash table slots holding id + 1, zero marking a free slot, and the hash of the name of each slot
+    private ByteBuffer slotsBuffer;
+    private IntBuffer slots;
+    private ByteBuffer hashesBuffer;
+    private IntBuffer hashes;
+    private int mask;
+
+    private int size;
+
+    private boolean closed;
+
+    OffHeapParticipantDictionary() {
+        locationsBuffer = allocate(INITIAL_CAPACITY * Long.BYTES);
+        locations = locationsBuffer.asLongBuffer();
+        allocateTable(INITIAL_CAPACITY * 2);
+    }
+
+    @Override
+    public synchronized int getId(String firstName) {
+        checkNotClosed();
+        byte[] name = firstName.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(name);
+        int slot = findSlot(name, hash);
+        int entry = slots.get(slot);
+        if (entry != 0) {
+            return entry - 1;
+        }
+
+        int id = size++;
+        store(id, name);
+        slots.put(slot, id + 1);
+        hashes.put(slot, hash);
+        // keep the table at most half full so that probe sequences stay short
+        if (size * 2 > slots.capacity()) {
+            rehash(slots.capacity() * 2);
+        }
+        return id;
+    }
+
+    @Override
+    public synchronized int findId(String firstName) {
+        checkNotClosed();
+        byte[] name = firstName.getBytes(StandardCharsets.UTF_8);
+        return slots.get(findSlot(name, hash(name))) - 1;
+    }
+
+    @Override
+    public synchronized String getFirstName(int id) {
+        checkNotClosed();
+        long location = locations.get(id);
+        ByteBuffer chunk = arenaChunks.get((int) (location >>> 32));
+        int offset = (int) location;
+        byte[] name = new byte[chunk.getInt(offset)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = chunk.get(offset + Integer.BYTES + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Releases the arena, the locations and the hash table of the dictionary without waiting for the garbage collector.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer chunk : arenaChunks) {
+            DirectBufferCleaner.free(chunk);
+        }
+        arenaChunks.clear();
+        DirectBufferCleaner.free(locationsBuffer);
+        DirectBufferCleaner.free(slotsBuffer);
+        DirectBufferCleaner.free(hashesBuffer);
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("The participant dictionary is closed");
+        }
+    }
+
+    // Returns the slot holding the name passed as parameter, or the free slot where it would be inserted
+    private int findSlot(byte[] name, int hash) {
+        int slot = hash & mask;
+        for (int entry = slots.get(slot); entry != 0; entry = slots.get(slot)) {
+            if (hashes.get(slot) == hash && nameEquals(entry - 1, name)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void store(int id, byte[] name) {
+        int length = Integer.BYTES + name.length;
+        ByteBuffer chunk = arenaChunks.isEmpty() ? null : arenaChunks.get(arenaChunks.size() - 1);
+        if (chunk == null || chunk.remaining() < length) {
+            // a name longer than a chunk gets a chunk of its own
+            chunk = allocate(Math.max(ARENA_CHUNK_SIZE, length));
+            arenaChunks.add(chunk);
+        }
+        int offset = chunk.position();
+        chunk.putInt(name.length).put(name);
+
+        if (id == locations.capacity()) {
+            ByteBuffer grownLocationsBuffer = allocate(locations.capacity() * 2 * Long.BYTES);
+            LongBuffer grownLocations = grownLocationsBuffer.asLongBuffer();
+            locations.rewind();
+            grownLocations.put(locations).rewind();
+            DirectBufferCleaner.free(locationsBuffer);
+            locationsBuffer = grownLocationsBuffer;
+            locations = grownLocations;
+        }
+        locations.put(id, ((long) (arenaChunks.size() - 1) << 32) | offset);
+    }
+
+    private boolean nameEquals(int id, byte[] name) {
+        long location = locations.get(id);
+        ByteBuffer chunk = arenaChunks.get((int) (location >>> 32));
+        int offset = (int) location;
+        if (chunk.getInt(offset) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (chunk.get(offset + Integer.BYTES + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int newCapacity) {
+        ByteBuffer oldSlotsBuffer = slotsBuffer;
+        ByteBuffer oldHashesBuffer = hashesBuffer;
+        IntBuffer oldSlots = slots;
+        IntBuffer oldHashes = hashes;
+        allocateTable(newCapacity);
+        for (int i = 0; i < oldSlots.capacity(); i++) {
+            int entry = oldSlots.get(i);
+            if (entry != 0) {
+                int slot = oldHashes.get(i) & mask;
+                while (slots.get(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots.put(slot, entry);
+                hashes.put(slot, oldHashes.get(i));
+            }
+        }
+        DirectBufferCleaner.free(oldSlotsBuffer);
+        DirectBufferCleaner.free(oldHashesBuffer);
+    }
+
+    private void allocateTable(int capacity) {
+        slotsBuffer = allocate(capacity * Integer.BYTES);
+        slots = slotsBuffer.asIntBuffer();
+        hashesBuffer = allocate(capacity * Integer.BYTES);
+        hashes = hashesBuffer.asIntBuffer();
+        mask = capacity - 1;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    private static int hash(byte[] name) {
+        int h = Arrays.hashCode(name) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,217 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.util.IntIntHashMap;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Maps the ball numbers of the purchased tickets of a lottery draw to the ids of the participants who own them.
+ * <p>
+ * The owners are first stored in open addressing maps of ints, split into stripes that are locked independently,
+ * which take memory in proportion to the number of purchased tickets.
+ * When the ball numbers form a dense range and enough tickets are purchased for an array to take less memory than the maps,
+ * the owners are moved to an int array indexed by ball number minus the lowest ball number,
+ * which takes 4 bytes per ball and makes looking up an owner a plain array read.
+ * A small dense range is stored in an array from the start.
+ * In both cases, no object is allocated per ticket.
+ * <p>
+ * This class is thread-safe. Each operation on a ball number is atomic.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class OwnershipTable {
+
+    /**
+     * Value returned for a ball number which ticket has no owner
+     */
+    static final int NO_OWNER = -1;
+
+    // Ranges of ball numbers holding more than this number of balls per ball of the draw are not stored in an array
+    private static final int MAX_RANGE_PER_BALL = 2;
+
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    // Dense ranges of up to this number of balls are stored in an array from the start
+    private static final int MAX_EAGER_ARRAY_LENGTH = 1 << 16;
+
+    // An owner takes about 16 bytes in the maps and a ball 4 bytes in the array,
+    // so the owners are moved to the array once at least one ball in this number of balls is purchased
+    private static final int BALLS_PER_OWNER_IN_ARRAY = 4;
+
+    private static final int NB_STRIPES = 64;
+
+    private final int lowestBall;
+
+    // Number of balls of the range, if it can be stored in an array, or 0 if the ball numbers are sparse
+    private final int arrayLength;
+
+    // Number of owners a stripe holds before the owners are moved to the array
+    private final int maxStripeSize;
+
+    // Owner id + 1 of each ball number, zero meaning no owner, or null while the owners are stored in the maps.
+    // It is only set while holding the locks of every stripe, after the owners of the maps are copied to it.
+    private volatile AtomicIntegerArray owners;
+
+    // Owner id of each purchased ball number, until the owners are stored in the array
+    private final IntIntHashMap[] stripes;
+
+    /**
+     * Constructs an empty ownership table for the ball numbers between the bounds passed as parameters
+     * @param lowestBall The lowest ball number of the draw
+     * @param highestBall The highest ball number of the draw
+     * @param nbBalls The number of balls of the draw
+     */
+    OwnershipTable(int lowestBall, int highestBall, int nbBalls) {
+        this.lowestBall = lowestBall;
+        long range = Math.max((long) highestBall - lowestBall + 1, 0);
+        this.arrayLength = range <= MAX_ARRAY_LENGTH && range <= (long) MAX_RANGE_PER_BALL * nbBalls ? (int) range : 0;
+        this.maxStripeSize = arrayLength / BALLS_PER_OWNER_IN_ARRAY / NB_STRIPES;
+        if (arrayLength > 0 && arrayLength <= MAX_EAGER_ARRAY_LENGTH) {
+            owners = new AtomicIntegerArray(arrayLength);
+            stripes = null;
+        } else {
+            stripes = new IntIntHashMap[NB_STRIPES];
+            for (int i = 0; i < NB_STRIPES; i++) {
+                stripes[i] = new IntIntHashMap();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the owners are stored in an array indexed by ball number
+     * @return true if the owners are stored in an array indexed by ball number
+     */
+    boolean isDense() {
+        return owners != null;
+    }
+
+    /**
+     * Sets the owner of the ticket of a ball number
+     * @param ballNumber The ball number of the ticket
+     * @param participantId The id of the participant who owns the ticket
+     * @throws IllegalArgumentException if the ball number is out of the bounds of the table
+     */
+    void setOwner(int ballNumber, int participantId) {
+        if (owners == null) {
+            IntIntHashMap stripe = stripe(ballNumber);
+            boolean full;
+            synchronized (stripe) {
+                // the owners may have been moved to the array while waiting for the lock
+                if (owners == null) {
+                    stripe.put(ballNumber, participantId);
+                    full = arrayLength > 0 && stripe.size() > maxStripeSize;
+                    if (!full) {
+                        return;
+                    }
+                } else {
+                    full = false;
+                }
+            }
+            if (full) {
+                moveOwnersToArray(0);
+                return;
+            }
+        }
+        AtomicIntegerArray owners = this.owners;
+        int index = index(owners, ballNumber);
+        if (index < 0) {
+            throw new IllegalArgumentException("Ball number " + ballNumber + " is out of the bounds of the draw");
+        }
+        owners.set(index, participantId + 1);
+    }
+
+    /**
+     * Returns the id of the owner of the ticket of a ball number
+     * @param ballNumber The ball number of the ticket
+     * @return The id of the participant who owns the ticket, or {@link #NO_OWNER} if the ticket has no owner
+     */
+    int getOwner(int ballNumber) {
+        if (owners == null) {
+            IntIntHashMap stripe = stripe(ballNumber);
+            synchronized (stripe) {
+                if (owners == null) {
+                    return stripe.get(ballNumber, NO_OWNER);
+                }
+            }
+        }
+        AtomicIntegerArray owners = this.owners;
+        int index = index(owners, ballNumber);
+        return index < 0 ? NO_OWNER : owners.get(index) - 1;
+    }
+
+    /**
+     * Removes the owner of the ticket of a ball number
+     * @param ballNumber The ball number of the ticket
+     * @return The id of the participant who owned the ticket, or {@link #NO_OWNER} if the ticket had no owner
+     */
+    int removeOwner(int ballNumber) {
+        if (owners == null) {
+            IntIntHashMap stripe = stripe(ballNumber);
+            synchronized (stripe) {
+                if (owners == null) {
+                    return stripe.remove(ballNumber, NO_OWNER);
+                }
+            }
+        }
+        AtomicIntegerArray owners = this.owners;
+        int index = index(owners, ballNumber);
+        return index < 0 ? NO_OWNER : owners.getAndSet(index, 0) - 1;
+    }
+
+    /**
+     * Calls the consumer passed as parameter with each ball number which ticket has an owner and the id of that owner.
+     * <p>
+     * Tickets which owner changes during the call may or may not be passed to the consumer.
+     * @param consumer The consumer of the ball numbers and owner ids
+     */
+    void forEach(IntIntHashMap.EntryConsumer consumer) {
+        if (owners == null) {
+            synchronized (stripes[0]) {
+                // the owners are moved to the array while holding the locks of every stripe, the first one included
+                if (owners == null) {
+                    for (IntIntHashMap stripe : stripes) {
+                        synchronized (stripe) {
+                            stripe.forEach(consumer);
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+        AtomicIntegerArray owners = this.owners;
+        for (int i = 0; i < owners.length(); i++) {
+            int owner = owners.get(i);
+            if (owner != 0) {
+                consumer.accept(lowestBall + i, owner - 1);
+            }
+        }
+    }
+
+    // Locks the stripes from the one passed as parameter on, in order, then copies the owners of the maps to an array
+    private void moveOwnersToArray(int firstStripe) {
+        if (firstStripe < NB_STRIPES) {
+            synchronized (stripes[firstStripe]) {
+                moveOwnersToArray(firstStripe + 1);
+            }
+        } else if (owners == null) {
+            AtomicIntegerArray array = new AtomicIntegerArray(arrayLength);
+            for (int i = 0; i < NB_STRIPES; i++) {
+                stripes[i].forEach((ballNumber, participantId) -> array.set(index(array, ballNumber), participantId + 1));
+                // the stripe is no longer read once the array is set, but it stays the lock of the threads waiting for it
+                stripes[i].clear();
+            }
+            owners = array;
+        }
+    }
+
+    // Returns the index of the ball number in the owners array, or -1 if it is out of the bounds of the array
+    private int index(AtomicIntegerArray owners, int ballNumber) {
+        long index = (long) ballNumber - lowestBall;
+        return index >= 0 && index < owners.length() ? (int) index : -1;
+    }
+
+    private IntIntHashMap stripe(int ballNumber) {
+        int h = ballNumber * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (NB_STRIPES - 1)];
+    }
+}
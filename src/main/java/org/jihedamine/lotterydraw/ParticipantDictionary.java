@@ -0,0 +1,81 @@
+package org.jihedamine.lotterydraw;
+
+/**
+ * A ParticipantDictionary gives a compact int id to each distinct first name of the participants of a lottery draw.
+ * <p>
+ * The lottery draw stores the id of the owner of each ticket rather than the first name passed to the purchase,
+ * so that the first names are stored once per distinct name whatever the number of tickets:
+ * a draw selling fifty million tickets to participants sharing a few thousand first names only stores a few thousand names.
+ * <p>
+ * Only the dictionary returned by {@link #offHeap()} moves the first names out of the Java heap.
+ * A lottery draw uses the dictionary returned by {@link #onHeap()} unless it is passed another one,
+ * in which case each distinct first name is kept on the heap as a String, along with its entry in a hash map.
+ * <p>
+ * Ids are given in sequence from zero. Implementations are thread-safe.
+ * <p>
+ * Closing a dictionary releases the memory it holds outside of the Java heap, after which it can no longer be used.
+ *
+ * @see LotteryDraw
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public interface ParticipantDictionary extends AutoCloseable {
+
+    /**
+     * Returns a new dictionary storing the first names as Strings on the heap.
+     * Looking up the id of a first name that was already registered does not lock the dictionary.
+     * @return A new dictionary storing the first names on the heap
+     */
+    static ParticipantDictionary onHeap() {
+        return new HeapParticipantDictionary();
+    }
+
+    /**
+     * Returns a new dictionary storing the first names encoded in UTF-8 outside of the Java heap,
+     * along with the hash table that maps them to their ids.
+     * <p>
+     * The heap does not hold anything per distinct first name, at the cost of decoding the first names each time they are read
+     * and of a lock held while looking up an id or reading a name.
+     * @return A new dictionary storing the first names outside of the heap
+     */
+    static ParticipantDictionary offHeap() {
+        return new OffHeapParticipantDictionary();
+    }
+
+    /**
+     * Returns the id of the first name passed as parameter, giving it a new id if it was never registered
+     * @param firstName The first name of a participant
+     * @return The id of the first name
+     */
+    int getId(String firstName);
+
+    /**
+     * Returns the id of the first name passed as parameter if it was registered, without registering it otherwise
+     * @param firstName The first name of a participant
+     * @return The id of the first name, or -1 if the first name was never registered
+     */
+    int findId(String firstName);
+
+    /**
+     * Returns the first name which id is passed as parameter
+     * @param id An id returned by {@link #getId(String)}
+     * @return The first name which has that id
+     */
+    String getFirstName(int id);
+
+    /**
+     * Returns the number of distinct first names of the dictionary
+     * @return The number of distinct first names of the dictionary
+     */
+    int size();
+
+    /**
+     * Releases the memory the dictionary holds outside of the Java heap, without waiting for the garbage collector.
+     * It has no effect on a dictionary stored on the Java heap, which can still be used afterwards.
+     * Closing a closed dictionary has no effect.
+     */
+    @Override
+    default void close() {
+        // a dictionary stored on the heap is released by the garbage collector
+    }
+}
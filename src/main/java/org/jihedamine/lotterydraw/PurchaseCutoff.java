@@ -0,0 +1,63 @@
+package org.jihedamine.lotterydraw;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lets the purchases of a lottery draw run concurrently with each other while excluding the draw.
+ * <p>
+ * A single read-write lock would make every purchase update the same lock word.
+ * The cutoff is split instead into stripes of read-write locks: a purchase only takes the read lock of the stripe of its thread,
+ * so that purchases running on different threads mostly update different locks,
+ * while the draw takes the write locks of every stripe, which waits for the running purchases and blocks the next ones.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class PurchaseCutoff {
+
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+
+    PurchaseCutoff() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    PurchaseCutoff(int nbStripes) {
+        // round the number of stripes up to a power of two so that a stripe is selected with a mask
+        int size = Integer.highestOneBit(Math.max(nbStripes, 1) * 2 - 1);
+        stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Takes the purchase lock of the stripe of the calling thread, which must be unlocked once the purchase is done
+     * @return The purchase lock that was taken
+     */
+    Lock lockPurchase() {
+        Lock lock = stripes[(int) Thread.currentThread().getId() & mask].readLock();
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Waits for the running purchases to be done and prevents new ones from starting until {@link #unlockDraw()} is called
+     */
+    void lockDraw() {
+        // the stripes are always locked in the same order so that two concurrent draws can't deadlock
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    /**
+     * Lets purchases start again after {@link #lockDraw()}
+     */
+    void unlockDraw() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+}
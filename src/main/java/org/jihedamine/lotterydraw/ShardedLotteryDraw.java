@@ -0,0 +1,362 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.IntBucket;
+import org.jihedamine.bucket.LazySequentialNumbersBucket;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawDidNotHappenException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotAvailableException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotPurchasedException;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.jihedamine.random.RandomSource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A sharded lottery draw is a lottery draw which balls are a sequence of numbers split into partitions,
+ * each partition selling the tickets of its own range of ball numbers.
+ * <p>
+ * Each partition has its own tickets bucket, its own ownership table and its own pot counter, locked independently,
+ * so that purchases routed to different partitions do not update any shared state.
+ * A purchase is routed to the less loaded of two partitions chosen at random,
+ * the load of a partition being measured by the number of tickets it sold.
+ * The other partitions are only tried when both partitions are sold out.
+ * The partitions are chosen with a split of the random source of the lottery draw, so that a seeded random source
+ * also replays the routing of the purchases. A random source other than {@link RandomSource#threadLocal()} is not thread-safe,
+ * so the partitions are then chosen while holding a lock shared by the purchases.
+ * <p>
+ * The draw picks the balls from the whole sequence of numbers, once the running purchases are done,
+ * and the winner of each drawn ball is looked up in the partition holding the ball.
+ * The winners and their prizes are computed once by the draw into a {@link DrawResult}.
+ * {@link #getPot()} sums the pot counters of the partitions with the initial pot.
+ * <p>
+ * Example: <code>ShardedLotteryDraw(1, 1_000_000, 8, 3, 200, 10, prizeStrategy)</code> is a lottery draw of the balls
+ * 1 to 1 000 000 which tickets are sold by 8 partitions of 125 000 tickets each.
+ *
+ * @see LotteryDraw
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class ShardedLotteryDraw {
+
+    private final int firstBall;
+    private final int nbBalls;
+    private final TicketSlice[] shards;
+
+    private final IntBucket ballsMachine;
+    private final int nbDraws;
+
+    // Chooses the partitions a purchase is routed to, guarded by its own lock unless it is the thread-safe random source
+    private final RandomSource routingRandomSource;
+    private final Object routingLock = new Object();
+
+    private final long initialPotCents;
+
+    private final ParticipantDictionary participants;
+    private final PrizeStrategy prizeStrategy;
+
+    private volatile boolean drawHappened;
+
+    // Set by the draw, once the winners and the prizes can no longer change
+    private volatile DrawResult drawResult;
+
+    private final PurchaseCutoff purchaseCutoff = new PurchaseCutoff();
+
+    /**
+     * Constructs a sharded lottery draw event
+     * @param firstBall The number of the first ball of the sequence of balls
+     * @param nbBalls The number of balls of the lottery draw
+     * @param nbShards The number of partitions selling the tickets
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of this lottery draw pot
+     * @param ticketPrice The price of a ticket to participate in this lottery draw
+     * @param prizeStrategy The prize strategy used to calculate prizes for the lottery draw winners
+     * @throws LotteryDrawInitializationException if any parameter value used to construct the lottery draw is invalid
+     */
+    public ShardedLotteryDraw(int firstBall, int nbBalls, int nbShards, int nbDraws,
+                              double pot, double ticketPrice, PrizeStrategy prizeStrategy)
+            throws LotteryDrawInitializationException {
+        this(firstBall, nbBalls, nbShards, nbDraws, pot, ticketPrice, prizeStrategy, RandomSource.threadLocal());
+    }
+
+    /**
+     * Constructs a sharded lottery draw event which balls and tickets are picked with splits of the random source passed as parameter
+     * @param firstBall The number of the first ball of the sequence of balls
+     * @param nbBalls The number of balls of the lottery draw
+     * @param nbShards The number of partitions selling the tickets
+     * @param nbDraws The number of balls that will be drawn in the lottery draw
+     * @param pot The initial amount of this lottery draw pot
+     * @param ticketPrice The price of a ticket to participate in this lottery draw
+     * @param prizeStrategy The prize strategy used to calculate prizes for the lottery draw winners
+     * @param randomSource The random source used to pick the balls and the tickets
+     * @throws LotteryDrawInitializationException if any parameter value used to construct the lottery draw is invalid
+     */
+    public ShardedLotteryDraw(int firstBall, int nbBalls, int nbShards, int nbDraws,
+                              double pot, double ticketPrice, PrizeStrategy prizeStrategy, RandomSource randomSource)
+            throws LotteryDrawInitializationException {
+        DrawParameters.checkParameters(nbBalls, nbDraws, pot, ticketPrice, prizeStrategy);
+        if (nbShards <= 0 || nbShards > nbBalls) {
+            throw new LotteryDrawInitializationException("Number of shards must be between 1 and the number of balls");
+        }
+
+        this.firstBall = firstBall;
+        this.nbBalls = nbBalls;
+        this.nbDraws = nbDraws;
+        this.ballsMachine = new LazySequentialNumbersBucket(firstBall, nbBalls, randomSource.split());
+        this.routingRandomSource = randomSource.split();
+
+        long ticketPriceCents = DrawParameters.toCents(ticketPrice);
+        // The balls are split into ranges which sizes differ by one at most
+        this.shards = new TicketSlice[nbShards];
+        for (int i = 0; i < nbShards; i++) {
+            int shardFirstBall = firstBall + shardStart(i);
+            int shardNbBalls = shardStart(i + 1) - shardStart(i);
+            shards[i] = new TicketSlice(shardFirstBall, shardNbBalls, ticketPriceCents, randomSource.split());
+        }
+
+        this.initialPotCents = DrawParameters.toCents(pot);
+        this.participants = ParticipantDictionary.onHeap();
+        this.prizeStrategy = prizeStrategy;
+    }
+
+    /**
+     * Gives a ticket to the participant identified by his first name, from the less loaded of two partitions.
+     * Adds the ticket price amount to the pot counter of the partition.
+     *
+     * @param firstName The first name of the lottery participant who purchases the ticket
+     * @return The number of the lottery ball this ticket refers to
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened
+     * @throws EmptyBucketException if no more tickets are available for sale in any partition
+     * @throws IllegalArgumentException if the first name is null
+     */
+    public int purchaseTicket(String firstName) throws LotteryDrawAlreadyHappenedException, EmptyBucketException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+
+            int participantId = participantIdOf(firstName);
+            int shard = routeShard();
+            for (int i = 0; i < shards.length; i++) {
+                int ballNumber = shards[(shard + i) % shards.length].purchase(participantId);
+                if (ballNumber != TicketSlice.SOLD_OUT) {
+                    return ballNumber;
+                }
+            }
+            throw new EmptyBucketException();
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Gives the ticket of the ball number passed as parameter to the participant identified by his first name.
+     * Adds the ticket price amount to the pot counter of the partition holding the ball.
+     *
+     * @param firstName The first name of the lottery participant who purchases the ticket
+     * @param ballNumber The number of the lottery ball chosen by the participant
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened
+     * @throws LotteryTicketNotAvailableException if the ball number is not a ball of this lottery draw or if its ticket was already purchased
+     * @throws IllegalArgumentException if the first name is null
+     */
+    public void purchaseTicket(String firstName, int ballNumber)
+            throws LotteryDrawAlreadyHappenedException, LotteryTicketNotAvailableException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+
+            int participantId = participantIdOf(firstName);
+            TicketSlice shard = shardOf(ballNumber);
+            if (shard == null || !shard.purchase(participantId, ballNumber)) {
+                throw new LotteryTicketNotAvailableException(ballNumber);
+            }
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Takes back the ticket of the ball number passed as parameter from the participant who purchased it.
+     * The ticket is put back for sale in its partition and the ticket price amount is subtracted from the pot counter of the partition.
+     *
+     * @param ballNumber The number of the lottery ball the ticket refers to
+     * @return The first name of the lottery participant who purchased the ticket
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened
+     * @throws LotteryTicketNotPurchasedException if no participant purchased the ticket of the ball number
+     */
+    public String refundTicket(int ballNumber) throws LotteryDrawAlreadyHappenedException, LotteryTicketNotPurchasedException {
+        Lock purchaseLock = purchaseCutoff.lockPurchase();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+
+            TicketSlice shard = shardOf(ballNumber);
+            int participantId = shard == null ? OwnershipTable.NO_OWNER : shard.refund(ballNumber);
+            if (participantId == OwnershipTable.NO_OWNER) {
+                throw new LotteryTicketNotPurchasedException(ballNumber);
+            }
+            return participants.getFirstName(participantId);
+        } finally {
+            purchaseLock.unlock();
+        }
+    }
+
+    /**
+     * Randomly picks a subset of balls from the whole sequence of balls, once the running purchases are done,
+     * then looks up the winners of the drawn balls and calculates their prizes.
+     * @throws LotteryDrawAlreadyHappenedException if the lottery draw has already happened
+     */
+    public void draw() throws LotteryDrawAlreadyHappenedException {
+        purchaseCutoff.lockDraw();
+        try {
+            if (drawHappened) {
+                throw new LotteryDrawAlreadyHappenedException();
+            }
+
+            int[] drawnBalls = Arrays.copyOf(ballsMachine.pickSample(nbDraws), nbDraws);
+            // The purchases and refunds are over, so the winners and the prizes are computed once for every reader
+            drawResult = DrawResult.of(drawnBalls, ballNumber -> shardOf(ballNumber).getOwner(ballNumber),
+                    participants, prizeStrategy, getPot());
+            drawHappened = true;
+        } finally {
+            purchaseCutoff.unlockDraw();
+        }
+    }
+
+    /**
+     * Returns a String listing the numbers of the balls that were drawn
+     * @return A String listing the numbers of the balls that were drawn
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called
+     */
+    public String getDrawnBallsAsString() throws LotteryDrawDidNotHappenException {
+        return getDrawResult().getDrawnBallsAsString();
+    }
+
+    /**
+     * Returns a String listing the winners of the draw with the prize amount for each winner,
+     * in the same format as {@link LotteryDraw#getDrawWinnersAsString()}
+     * @return A String listing the winners of the draw with the prize amount for each winner.
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called
+     */
+    public String getDrawWinnersAsString() throws LotteryDrawDidNotHappenException {
+        return getDrawResult().getWinnersAsString();
+    }
+
+    /**
+     * Returns the first name of the participant who purchased the ticket of a drawn ball
+     * @param drawIndex The index of the drawn ball, zero being the first ball drawn
+     * @return The first name of the winner of the drawn ball, or null if its ticket was not purchased
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called
+     */
+    public String getWinner(int drawIndex) throws LotteryDrawDidNotHappenException {
+        return getDrawResult().getWinner(drawIndex);
+    }
+
+    /**
+     * Returns the result of the draw, which drawn balls, winners, prizes and text are computed once by {@link #draw()}
+     * @return The result of the draw
+     * @throws LotteryDrawDidNotHappenException if {@link #draw()} was never called
+     */
+    public DrawResult getDrawResult() throws LotteryDrawDidNotHappenException {
+        DrawResult result = drawResult;
+        if (result == null) {
+            throw new LotteryDrawDidNotHappenException();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the numbers of the balls that were drawn
+     * @return The numbers of the balls that were drawn, or zeros if the draw did not happen
+     */
+    public int[] getDrawnBalls() {
+        DrawResult result = drawResult;
+        return result == null ? new int[nbDraws] : result.getDrawnBalls();
+    }
+
+    /**
+     * Returns the number of balls that will be drawn in this lottery draw.
+     * @return The number of balls that will be drawn in this lottery draw.
+     */
+    public int getNbDraws() {
+        return nbDraws;
+    }
+
+    /**
+     * Returns the number of partitions selling the tickets
+     * @return The number of partitions selling the tickets
+     */
+    public int getNbShards() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of tickets sold by a partition
+     * @param shard The index of the partition
+     * @return The number of tickets sold by the partition
+     */
+    public int getNbTicketsSold(int shard) {
+        return shards[shard].getNbTicketsSold();
+    }
+
+    /**
+     * Returns the pot amount that this lottery draw currently has, which is the initial pot plus the pot counters of the partitions.
+     * @return The pot amount that this lottery draw currently has.
+     */
+    public BigDecimal getPot() {
+        long potCents = initialPotCents;
+        for (TicketSlice shard : shards) {
+            potCents += shard.getPotCents();
+        }
+        return BigDecimal.valueOf(potCents, 2);
+    }
+
+    // Returns the less loaded of two random partitions
+    private int routeShard() {
+        if (shards.length == 1) {
+            return 0;
+        }
+        int firstShard;
+        int secondShard;
+        if (routingRandomSource == RandomSource.threadLocal()) {
+            firstShard = routingRandomSource.nextInt(shards.length);
+            secondShard = routingRandomSource.nextInt(shards.length);
+        } else {
+            synchronized (routingLock) {
+                firstShard = routingRandomSource.nextInt(shards.length);
+                secondShard = routingRandomSource.nextInt(shards.length);
+            }
+        }
+        return shards[secondShard].getNbTicketsSold() < shards[firstShard].getNbTicketsSold() ? secondShard : firstShard;
+    }
+
+    private int participantIdOf(String firstName) {
+        if (firstName == null) {
+            throw new IllegalArgumentException("First name can't be null");
+        }
+        return participants.getId(firstName);
+    }
+
+    // Returns the partition holding the ball number, or null if the ball number is not a ball of this lottery draw
+    private TicketSlice shardOf(int ballNumber) {
+        long offset = (long) ballNumber - firstBall;
+        if (offset < 0 || offset >= nbBalls) {
+            return null;
+        }
+        // the partition i holds the offsets from shardStart(i) to shardStart(i + 1) excluded
+        int shard = (int) (((offset + 1) * shards.length - 1) / nbBalls);
+        return shards[shard];
+    }
+
+    // Returns the offset from firstBall of the first ball of a partition
+    private int shardStart(int shard) {
+        return (int) ((long) nbBalls * shard / shards.length);
+    }
+}
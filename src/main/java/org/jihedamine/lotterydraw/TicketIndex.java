@@ -0,0 +1,165 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.util.IntIntHashMap;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Maps the id of each participant of a lottery draw to the ball numbers of the tickets the participant owns.
+ * <p>
+ * The tickets of a participant are stored in an int array, so that listing them takes a time proportional to their number.
+ * Removing a ticket moves the last ticket of the participant to its position.
+ * Participants owning few tickets find the ticket to remove by scanning their array,
+ * while participants owning more tickets also get a map from ball number to position in the array,
+ * so that a ticket is removed in constant time whatever the number of tickets of its owner.
+ * <p>
+ * This class is thread-safe. The tickets of each participant are locked independently.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class TicketIndex {
+
+    // Number of tickets from which the positions of the tickets of a participant are indexed
+    private static final int INDEXED_TICKETS_THRESHOLD = 16;
+
+    // Tickets of each participant, indexed by participant id. The array is replaced with a larger copy when it is full.
+    private volatile Tickets[] tickets = new Tickets[16];
+
+    /**
+     * Adds a ticket to the tickets of a participant
+     * @param participantId The id of the participant
+     * @param ballNumber The ball number of the ticket
+     */
+    void add(int participantId, int ballNumber) {
+        Tickets participantTickets = get(participantId);
+        if (participantTickets == null) {
+            participantTickets = create(participantId);
+        }
+        participantTickets.add(ballNumber);
+    }
+
+    /**
+     * Removes a ticket from the tickets of a participant
+     * @param participantId The id of the participant
+     * @param ballNumber The ball number of the ticket
+     */
+    void remove(int participantId, int ballNumber) {
+        Tickets participantTickets = get(participantId);
+        if (participantTickets != null) {
+            participantTickets.remove(ballNumber);
+        }
+    }
+
+    /**
+     * Returns the number of tickets of a participant
+     * @param participantId The id of the participant
+     * @return The number of tickets of the participant
+     */
+    int size(int participantId) {
+        Tickets participantTickets = get(participantId);
+        return participantTickets == null ? 0 : participantTickets.size();
+    }
+
+    /**
+     * Returns the ball numbers of the tickets of a participant
+     * @param participantId The id of the participant
+     * @return The ball numbers of the tickets of the participant, in no particular order
+     */
+    int[] toArray(int participantId) {
+        Tickets participantTickets = get(participantId);
+        return participantTickets == null ? new int[0] : participantTickets.toArray();
+    }
+
+    /**
+     * Calls the consumer passed as parameter with the ball number of each ticket of a participant, in no particular order.
+     * The tickets of the participant are locked during the call.
+     * @param participantId The id of the participant
+     * @param consumer The consumer of the ball numbers
+     */
+    void forEach(int participantId, IntConsumer consumer) {
+        Tickets participantTickets = get(participantId);
+        if (participantTickets != null) {
+            participantTickets.forEach(consumer);
+        }
+    }
+
+    private Tickets get(int participantId) {
+        Tickets[] currentTickets = tickets;
+        return participantId >= 0 && participantId < currentTickets.length ? currentTickets[participantId] : null;
+    }
+
+    private synchronized Tickets create(int participantId) {
+        Tickets[] currentTickets = tickets;
+        if (participantId >= currentTickets.length) {
+            currentTickets = Arrays.copyOf(currentTickets, Math.max(participantId + 1, currentTickets.length * 2));
+        }
+        if (currentTickets[participantId] == null) {
+            currentTickets[participantId] = new Tickets();
+        }
+        tickets = currentTickets;
+        return currentTickets[participantId];
+    }
+
+    // The tickets of one participant
+    private static final class Tickets {
+
+        private int[] ballNumbers = new int[2];
+        private int size;
+
+        // Maps each ball number to its position in the ballNumbers array, or null while the participant has few tickets
+        private IntIntHashMap positions;
+
+        synchronized void add(int ballNumber) {
+            if (size == ballNumbers.length) {
+                ballNumbers = Arrays.copyOf(ballNumbers, size * 2);
+            }
+            ballNumbers[size] = ballNumber;
+            if (positions != null) {
+                positions.put(ballNumber, size);
+            } else if (size == INDEXED_TICKETS_THRESHOLD) {
+                positions = new IntIntHashMap(size * 2);
+                for (int i = 0; i <= size; i++) {
+                    positions.put(ballNumbers[i], i);
+                }
+            }
+            size++;
+        }
+
+        synchronized void remove(int ballNumber) {
+            int position = positions != null ? positions.remove(ballNumber, -1) : indexOf(ballNumber);
+            if (position < 0) {
+                return;
+            }
+            // fill the gap with the last ticket instead of shifting the tickets that follow the removed one
+            int lastBallNumber = ballNumbers[--size];
+            ballNumbers[position] = lastBallNumber;
+            if (positions != null && position != size) {
+                positions.put(lastBallNumber, position);
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int[] toArray() {
+            return Arrays.copyOf(ballNumbers, size);
+        }
+
+        synchronized void forEach(IntConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(ballNumbers[i]);
+            }
+        }
+
+        private int indexOf(int ballNumber) {
+            for (int i = 0; i < size; i++) {
+                if (ballNumbers[i] == ballNumber) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
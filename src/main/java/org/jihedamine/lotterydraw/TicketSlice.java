@@ -0,0 +1,132 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.IntBucket;
+import org.jihedamine.bucket.LazySequentialNumbersBucket;
+import org.jihedamine.random.RandomSource;
+
+/**
+ * The tickets of a contiguous range of ball numbers, sold independently of the other ranges of a lottery draw.
+ * <p>
+ * A slice holds the tickets left for sale, the owners of the purchased tickets and the amount its sales added to the pot.
+ * Its state is guarded by its own lock, so that slices of the same lottery draw don't share any state,
+ * whether they live in the same process or in different ones.
+ * The owners are participant ids, which are resolved by the caller.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class TicketSlice {
+
+    /**
+     * Value returned by {@link #purchase(int)} when the slice has no ticket left
+     */
+    static final int SOLD_OUT = Integer.MIN_VALUE;
+
+    private final int firstBall;
+    private final int nbBalls;
+    private final long ticketPriceCents;
+
+    private final IntBucket tickets;
+    private final OwnershipTable owners;
+
+    private long potCents;
+
+    // Read without locking to compare the loads of slices
+    private volatile int nbTicketsSold;
+
+    TicketSlice(int firstBall, int nbBalls, long ticketPriceCents, RandomSource randomSource) {
+        this.firstBall = firstBall;
+        this.nbBalls = nbBalls;
+        this.ticketPriceCents = ticketPriceCents;
+        this.tickets = new LazySequentialNumbersBucket(firstBall, nbBalls, randomSource);
+        this.owners = new OwnershipTable(firstBall, firstBall + nbBalls - 1, nbBalls);
+    }
+
+    /**
+     * Sells a random ticket of the slice
+     * @param participantId The id of the participant who purchases the ticket
+     * @return The ball number of the purchased ticket, or {@link #SOLD_OUT} if the slice has no ticket left
+     */
+    synchronized int purchase(int participantId) {
+        if (tickets.size() == 0) {
+            return SOLD_OUT;
+        }
+        int ballNumber = tickets.pickInt();
+        recordPurchase(ballNumber, participantId);
+        return ballNumber;
+    }
+
+    /**
+     * Sells the ticket of the ball number passed as parameter
+     * @param participantId The id of the participant who purchases the ticket
+     * @param ballNumber The ball number chosen by the participant
+     * @return true if the ticket was sold, false if it is not a ticket of the slice or if it was already purchased
+     */
+    synchronized boolean purchase(int participantId, int ballNumber) {
+        if (!holds(ballNumber) || !tickets.removeItem(ballNumber)) {
+            return false;
+        }
+        recordPurchase(ballNumber, participantId);
+        return true;
+    }
+
+    /**
+     * Takes back the ticket of the ball number passed as parameter and puts it back for sale
+     * @param ballNumber The ball number of the ticket
+     * @return The id of the participant who owned the ticket, or {@link OwnershipTable#NO_OWNER} if the ticket was not purchased
+     */
+    synchronized int refund(int ballNumber) {
+        if (!holds(ballNumber)) {
+            return OwnershipTable.NO_OWNER;
+        }
+        int participantId = owners.removeOwner(ballNumber);
+        if (participantId != OwnershipTable.NO_OWNER) {
+            tickets.returnItem(ballNumber);
+            potCents -= ticketPriceCents;
+            nbTicketsSold--;
+        }
+        return participantId;
+    }
+
+    /**
+     * Returns the id of the participant who owns the ticket of the ball number passed as parameter
+     * @param ballNumber The ball number of the ticket
+     * @return The id of the owner of the ticket, or {@link OwnershipTable#NO_OWNER} if the ticket was not purchased
+     */
+    int getOwner(int ballNumber) {
+        return holds(ballNumber) ? owners.getOwner(ballNumber) : OwnershipTable.NO_OWNER;
+    }
+
+    /**
+     * Returns whether the ball number passed as parameter belongs to the range of the slice
+     * @param ballNumber The ball number to look up
+     * @return true if the ball number belongs to the range of the slice, false otherwise
+     */
+    boolean holds(int ballNumber) {
+        long offset = (long) ballNumber - firstBall;
+        return offset >= 0 && offset < nbBalls;
+    }
+
+    synchronized long getPotCents() {
+        return potCents;
+    }
+
+    int getNbTicketsSold() {
+        return nbTicketsSold;
+    }
+
+    int getFirstBall() {
+        return firstBall;
+    }
+
+    int getNbBalls() {
+        return nbBalls;
+    }
+
+    private void recordPurchase(int ballNumber, int participantId) {
+        owners.setOwner(ballNumber, participantId);
+        potCents += ticketPriceCents;
+        nbTicketsSold++;
+    }
+}
@@ -0,0 +1,82 @@
+package org.jihedamine.lotterydraw;
+
+import java.math.BigDecimal;
+
+/**
+ * A winner of a lottery draw: the participant who purchased the ticket of a drawn ball, with the prize of the ball.
+ * <p>
+ * This class is immutable.
+ *
+ * @see DrawResult#getWinners()
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public final class Winner {
+
+    private final int drawIndex;
+    private final int ballNumber;
+    private final int participantId;
+    private final String firstName;
+    private final long prizeCents;
+
+    Winner(int drawIndex, int ballNumber, int participantId, String firstName, long prizeCents) {
+        this.drawIndex = drawIndex;
+        this.ballNumber = ballNumber;
+        this.participantId = participantId;
+        this.firstName = firstName;
+        this.prizeCents = prizeCents;
+    }
+
+    /**
+     * Returns the index of the drawn ball, zero being the first ball drawn
+     * @return The index of the drawn ball
+     */
+    public int getDrawIndex() {
+        return drawIndex;
+    }
+
+    /**
+     * Returns the number of the drawn ball
+     * @return The number of the drawn ball
+     */
+    public int getBallNumber() {
+        return ballNumber;
+    }
+
+    /**
+     * Returns the id of the winner in the participant dictionary of the lottery draw
+     * @return The id of the winner
+     */
+    public int getParticipantId() {
+        return participantId;
+    }
+
+    /**
+     * Returns the first name of the winner
+     * @return The first name of the winner
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * Returns the prize of the winner in cents
+     * @return The prize of the winner in cents
+     */
+    public long getPrizeCents() {
+        return prizeCents;
+    }
+
+    /**
+     * Returns the prize amount of the winner
+     * @return The prize amount of the winner, with two decimal places
+     */
+    public BigDecimal getPrizeAmount() {
+        return BigDecimal.valueOf(prizeCents, 2);
+    }
+
+    @Override
+    public String toString() {
+        return firstName + " won ball " + ballNumber + ": " + getPrizeAmount() + "$";
+    }
+}
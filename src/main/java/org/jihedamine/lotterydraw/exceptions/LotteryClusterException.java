@@ -0,0 +1,18 @@
+package org.jihedamine.lotterydraw.exceptions;
+
+/**
+ * Thrown when a node of a lottery draw cluster can't be reached or answers with an invalid message
+ * @see org.jihedamine.lotterydraw.LotteryDrawCoordinator
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryClusterException extends RuntimeException {
+
+    public LotteryClusterException(String message) {
+        super(message);
+    }
+
+    public LotteryClusterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
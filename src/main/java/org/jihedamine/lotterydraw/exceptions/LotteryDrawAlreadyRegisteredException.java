@@ -0,0 +1,14 @@
+package org.jihedamine.lotterydraw.exceptions;
+
+/**
+ * Thrown when a lottery draw is registered with an id already used by a live or archived lottery draw
+ * @see org.jihedamine.lotterydraw.LotteryDrawRegistry
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryDrawAlreadyRegisteredException extends RuntimeException {
+
+    public LotteryDrawAlreadyRegisteredException(String id) {
+        super("Lottery draw " + id + " is already registered");
+    }
+}
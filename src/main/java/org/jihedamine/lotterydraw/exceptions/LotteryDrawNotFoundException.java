@@ -0,0 +1,14 @@
+package org.jihedamine.lotterydraw.exceptions;
+
+/**
+ * Thrown when a lottery draw id is not known to a {@link org.jihedamine.lotterydraw.LotteryDrawRegistry}
+ * @see org.jihedamine.lotterydraw.LotteryDrawRegistry
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryDrawNotFoundException extends RuntimeException {
+
+    public LotteryDrawNotFoundException(String id) {
+        super("Lottery draw " + id + " not found");
+    }
+}
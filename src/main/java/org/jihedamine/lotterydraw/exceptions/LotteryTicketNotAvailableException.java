@@ -0,0 +1,15 @@
+package org.jihedamine.lotterydraw.exceptions;
+
+/**
+ * Thrown when a participant purchases the ticket of a ball number
+ * which is not a ball of the lottery draw or which ticket was already purchased.
+ * @see org.jihedamine.lotterydraw.LotteryDraw
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryTicketNotAvailableException extends RuntimeException {
+
+    public LotteryTicketNotAvailableException(int ballNumber) {
+        super("Ticket for ball " + ballNumber + " is not available");
+    }
+}
@@ -0,0 +1,14 @@
+package org.jihedamine.lotterydraw.exceptions;
+
+/**
+ * Thrown when the ticket of a ball number is refunded while no participant purchased it.
+ * @see org.jihedamine.lotterydraw.LotteryDraw
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryTicketNotPurchasedException extends RuntimeException {
+
+    public LotteryTicketNotPurchasedException(int ballNumber) {
+        super("Ticket for ball " + ballNumber + " was not purchased");
+    }
+}
@@ -0,0 +1,118 @@
+package org.jihedamine.lotterydraw.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes text to a channel through a buffer of fixed size, which is flushed to the channel whenever it is full.
+ * <p>
+ * Numbers are written digit by digit and strings are encoded to UTF-8 char by char,
+ * so that writing doesn't allocate any object whatever the amount of text written.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+final class ChannelWriter {
+
+    // The digits of a long, the longest being Long.MIN_VALUE
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] digits = new byte[MAX_LONG_DIGITS];
+
+    ChannelWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    ChannelWriter write(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+        return this;
+    }
+
+    /**
+     * Writes a string which chars are all ASCII, such as a separator or a field name
+     */
+    ChannelWriter writeAscii(String ascii) throws IOException {
+        for (int i = 0; i < ascii.length(); i++) {
+            write((byte) ascii.charAt(i));
+        }
+        return this;
+    }
+
+    ChannelWriter writeLong(long value) throws IOException {
+        if (value < 0) {
+            write((byte) '-');
+        }
+        int nbDigits = 0;
+        do {
+            // the remainder is negated rather than the value, which would overflow for Long.MIN_VALUE
+            digits[nbDigits++] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (nbDigits > 0) {
+            write(digits[--nbDigits]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an amount of cents as a decimal number with two decimal places, such as 12.35
+     */
+    ChannelWriter writeCents(long cents) throws IOException {
+        if (cents < 0) {
+            write((byte) '-');
+        }
+        long absoluteCents = Math.abs(cents % 100);
+        writeLong(Math.abs(cents / 100));
+        write((byte) '.');
+        write((byte) ('0' + absoluteCents / 10));
+        return write((byte) ('0' + absoluteCents % 10));
+    }
+
+    /**
+     * Writes the UTF-8 bytes of a char, which is the high surrogate of a pair when a low surrogate follows it in the string
+     * @return The number of chars written, 2 for a surrogate pair and 1 otherwise
+     */
+    int writeUtf8(CharSequence chars, int index) throws IOException {
+        char c = chars.charAt(index);
+        if (c < 0x80) {
+            write((byte) c);
+        } else if (c < 0x800) {
+            write((byte) (0xC0 | (c >> 6)));
+            write((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < chars.length() && Character.isLowSurrogate(chars.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, chars.charAt(index + 1));
+            write((byte) (0xF0 | (codePoint >> 18)));
+            write((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            write((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            write((byte) (0x80 | (codePoint & 0x3F)));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            // an unpaired surrogate is not a char, it is replaced like the UTF-8 encoder of the JDK does
+            write((byte) '?');
+        } else {
+            write((byte) (0xE0 | (c >> 12)));
+            write((byte) (0x80 | ((c >> 6) & 0x3F)));
+            write((byte) (0x80 | (c & 0x3F)));
+        }
+        return 1;
+    }
+
+    /**
+     * Writes the content of the buffer to the channel, which must be a blocking channel
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package org.jihedamine.lotterydraw.export;
+
+import org.jihedamine.lotterydraw.DrawResult;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Exports the winners of a draw as CSV, one line per winner after a header line, as described in RFC 4180.
+ * <p>
+ * Example:
+ * <code>
+ * draw_index,ball,participant_id,first_name,prize
+ * 0,17,4,Jihed,50.50
+ * 2,3,0,Aroua,15.00
+ * </code>
+ * <p>
+ * The first names containing a comma, a double quote or a line break are enclosed in double quotes,
+ * their double quotes being doubled. The lines end with CRLF.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class CsvDrawResultExporter implements DrawResultExporter {
+
+    static final String HEADER = "draw_index,ball,participant_id,first_name,prize";
+
+    private final int bufferSize;
+
+    /**
+     * Constructs a CSV exporter writing through a buffer of {@value DrawResultExporter#DEFAULT_BUFFER_SIZE} bytes
+     */
+    public CsvDrawResultExporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a CSV exporter writing through a buffer of the size passed as parameter
+     * @param bufferSize The size of the buffer in bytes
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public CsvDrawResultExporter(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be > 0");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param drawResult {@inheritDoc}
+     * @param channel {@inheritDoc}
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public void export(DrawResult drawResult, WritableByteChannel channel) throws IOException {
+        ChannelWriter writer = new ChannelWriter(channel, bufferSize);
+        writer.writeAscii(HEADER).writeAscii("\r\n");
+        for (int i = 0; i < drawResult.getNbDraws(); i++) {
+            int winnerId = drawResult.getWinnerId(i);
+            if (winnerId == DrawResult.NO_WINNER) {
+                continue;
+            }
+            writer.writeLong(i).write((byte) ',')
+                    .writeLong(drawResult.getDrawnBall(i)).write((byte) ',')
+                    .writeLong(winnerId).write((byte) ',');
+            writeField(writer, drawResult.getWinner(i));
+            writer.write((byte) ',').writeCents(drawResult.getPrizeCents(i)).writeAscii("\r\n");
+        }
+        writer.flush();
+    }
+
+    private static void writeField(ChannelWriter writer, String field) throws IOException {
+        if (!needsQuotes(field)) {
+            for (int i = 0; i < field.length(); ) {
+                i += writer.writeUtf8(field, i);
+            }
+            return;
+        }
+        writer.write((byte) '"');
+        for (int i = 0; i < field.length(); ) {
+            if (field.charAt(i) == '"') {
+                writer.write((byte) '"');
+            }
+            i += writer.writeUtf8(field, i);
+        }
+        writer.write((byte) '"');
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
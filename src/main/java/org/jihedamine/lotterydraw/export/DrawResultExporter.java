@@ -0,0 +1,35 @@
+package org.jihedamine.lotterydraw.export;
+
+import org.jihedamine.lotterydraw.DrawResult;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A draw result exporter writes the winners of a draw to a channel in a text format.
+ * <p>
+ * The winners are read from the draw result one at a time and written through a buffer of fixed size,
+ * so that the memory used by an export doesn't depend on the number of winners.
+ * <p>
+ * The channel must be a blocking channel. It is not closed by the export.
+ *
+ * @see CsvDrawResultExporter
+ * @see JsonDrawResultExporter
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public interface DrawResultExporter {
+
+    /**
+     * The size of the buffer of an exporter constructed without a buffer size
+     */
+    int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Writes the winners of a draw to the channel passed as parameter
+     * @param drawResult The result of the draw
+     * @param channel The channel the winners are written to
+     * @throws IOException if writing to the channel fails
+     */
+    void export(DrawResult drawResult, WritableByteChannel channel) throws IOException;
+}
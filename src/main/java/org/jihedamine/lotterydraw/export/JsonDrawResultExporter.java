@@ -0,0 +1,94 @@
+package org.jihedamine.lotterydraw.export;
+
+import org.jihedamine.lotterydraw.DrawResult;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Exports the winners of a draw as a JSON object holding the pot and the array of the winners.
+ * <p>
+ * Example:
+ * <code>
+ * {"pot":260.00,"winners":[
+ * {"drawIndex":0,"ball":17,"participantId":4,"firstName":"Jihed","prize":50.50},
+ * {"drawIndex":2,"ball":3,"participantId":0,"firstName":"Aroua","prize":15.00}
+ * ]}
+ * </code>
+ * <p>
+ * The amounts are written as numbers with two decimal places. Each winner is written on its own line.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class JsonDrawResultExporter implements DrawResultExporter {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final int bufferSize;
+
+    /**
+     * Constructs a JSON exporter writing through a buffer of {@value DrawResultExporter#DEFAULT_BUFFER_SIZE} bytes
+     */
+    public JsonDrawResultExporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a JSON exporter writing through a buffer of the size passed as parameter
+     * @param bufferSize The size of the buffer in bytes
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public JsonDrawResultExporter(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be > 0");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param drawResult {@inheritDoc}
+     * @param channel {@inheritDoc}
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public void export(DrawResult drawResult, WritableByteChannel channel) throws IOException {
+        ChannelWriter writer = new ChannelWriter(channel, bufferSize);
+        writer.writeAscii("{\"pot\":").writeCents(drawResult.getPotCents())
+                .writeAscii(",\"winners\":[");
+        boolean first = true;
+        for (int i = 0; i < drawResult.getNbDraws(); i++) {
+            int winnerId = drawResult.getWinnerId(i);
+            if (winnerId == DrawResult.NO_WINNER) {
+                continue;
+            }
+            writer.writeAscii(first ? "\n" : ",\n");
+            first = false;
+            writer.writeAscii("{\"drawIndex\":").writeLong(i)
+                    .writeAscii(",\"ball\":").writeLong(drawResult.getDrawnBall(i))
+                    .writeAscii(",\"participantId\":").writeLong(winnerId)
+                    .writeAscii(",\"firstName\":");
+            writeString(writer, drawResult.getWinner(i));
+            writer.writeAscii(",\"prize\":").writeCents(drawResult.getPrizeCents(i)).write((byte) '}');
+        }
+        writer.writeAscii(first ? "]}" : "\n]}");
+        writer.flush();
+    }
+
+    private static void writeString(ChannelWriter writer, String value) throws IOException {
+        writer.write((byte) '"');
+        for (int i = 0; i < value.length(); ) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write((byte) '\\').write((byte) c);
+                i++;
+            } else if (c < 0x20) {
+                writer.writeAscii("\\u00").write((byte) HEX_DIGITS[c >> 4]).write((byte) HEX_DIGITS[c & 0xF]);
+                i++;
+            } else {
+                i += writer.writeUtf8(value, i);
+            }
+        }
+        writer.write((byte) '"');
+    }
+}
@@ -0,0 +1,110 @@
+package org.jihedamine.random;
+
+import java.security.SecureRandom;
+
+/**
+ * Random source backed by a {@link SecureRandom}, which entropy is read in large buffered blocks.
+ * <p>
+ * Calling a SecureRandom once per random number is slow, as each call is synchronized and goes through the provider.
+ * This random source rather fills a buffer of random bytes with a single call,
+ * then turns these bytes into bounded integers.
+ * The integers are unbiased: values that would make some results more likely than others are rejected
+ * and replaced by new random values.
+ * <p>
+ * This class is not thread-safe: each thread should use its own random source obtained with {@link #split()},
+ * which shares the SecureRandom but not the buffer.
+ *
+ * @see RandomSource#secure()
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+class BufferedSecureRandomSource implements RandomSource {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+
+    private final SecureRandom secureRandom;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    // Index of the next unread byte of the buffer
+    private int position = BUFFER_SIZE;
+
+    BufferedSecureRandomSource() {
+        this(new SecureRandom());
+    }
+
+    BufferedSecureRandomSource(SecureRandom secureRandom) {
+        this.secureRandom = secureRandom;
+    }
+
+    /**
+     * Returns a random int value between zero (inclusive) and the bound (exclusive)
+     * using Lemire's multiply-and-reject method on 32 bits of entropy.
+     * @param bound The upper bound (exclusive) of the returned value. Must be positive.
+     * @return A random int value between zero (inclusive) and the bound (exclusive)
+     */
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long product = nextUnsignedInt() * bound;
+        long low = product & UNSIGNED_INT_MASK;
+        if (low < bound) {
+            // 2^32 mod bound values of the 32 bits range would make some results more likely than others
+            long threshold = (UNSIGNED_INT_MASK + 1 - bound) % bound;
+            while (low < threshold) {
+                product = nextUnsignedInt() * bound;
+                low = product & UNSIGNED_INT_MASK;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Returns a random long value between zero (inclusive) and the bound (exclusive)
+     * by rejecting the random values of the smallest power of two range containing the bound that exceed the bound.
+     * @param bound The upper bound (exclusive) of the returned value. Must be positive.
+     * @return A random long value between zero (inclusive) and the bound (exclusive)
+     */
+    @Override
+    public long nextLong(long bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long mask = -1L >>> Long.numberOfLeadingZeros(bound - 1 | 1);
+        long value;
+        do {
+            value = ((nextUnsignedInt() << 32) | nextUnsignedInt()) & mask;
+        } while (value >= bound);
+        return value;
+    }
+
+    /**
+     * Returns a new random source backed by the SecureRandom of this random source, with a buffer of its own.
+     * <p>
+     * The SecureRandom passed to {@link RandomSource#secure(SecureRandom)}, with its algorithm, provider and parameters,
+     * thus provides the entropy of every split, such as the balls of a lottery draw.
+     * A SecureRandom is thread-safe, and the splits only call it once per buffer they fill.
+     * @return A new random source backed by the SecureRandom of this random source
+     */
+    @Override
+    public RandomSource split() {
+        return new BufferedSecureRandomSource(secureRandom);
+    }
+
+    private long nextUnsignedInt() {
+        if (position > BUFFER_SIZE - Integer.BYTES) {
+            secureRandom.nextBytes(buffer);
+            position = 0;
+        }
+        long value = ((buffer[position] & 0xFFL) << 24)
+                | ((buffer[position + 1] & 0xFFL) << 16)
+                | ((buffer[position + 2] & 0xFFL) << 8)
+                | (buffer[position + 3] & 0xFFL);
+        position += Integer.BYTES;
+        return value;
+    }
+}
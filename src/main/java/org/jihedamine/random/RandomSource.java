@@ -0,0 +1,92 @@
+package org.jihedamine.random;
+
+import java.security.SecureRandom;
+
+/**
+ * A RandomSource is a generator of random numbers used to pick items from buckets.
+ * <p>
+ * Implementations can be swapped to use a faster generator or a seeded one:
+ * two random sources constructed with {@link #seeded(long)} and the same seed produce the same numbers,
+ * which makes it possible to replay a lottery draw bit for bit.
+ * <p>
+ * {@link #split()} creates a new random source that is statistically independent from the calling one,
+ * so that independent streams can be handed to different threads without sharing state between them.
+ *
+ * @see org.jihedamine.bucket.IntBucket
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public interface RandomSource {
+
+    /**
+     * Returns a random source backed by {@link java.util.concurrent.ThreadLocalRandom}.
+     * The returned random source can be used by several threads, each of them using its own generator.
+     * @return A random source backed by {@link java.util.concurrent.ThreadLocalRandom}
+     */
+    static RandomSource threadLocal() {
+        return ThreadLocalRandomSource.INSTANCE;
+    }
+
+    /**
+     * Returns a new random source backed by a {@link java.util.SplittableRandom} with a random seed.
+     * @return A new random source backed by a {@link java.util.SplittableRandom}
+     */
+    static RandomSource splittable() {
+        return new SplittableRandomSource();
+    }
+
+    /**
+     * Returns a new random source backed by a {@link java.util.SplittableRandom} with the seed passed as parameter.
+     * Random sources constructed with the same seed produce the same sequences of numbers and of splits.
+     * @param seed The seed of the random source
+     * @return A new random source backed by a {@link java.util.SplittableRandom} with the seed passed as parameter
+     */
+    static RandomSource seeded(long seed) {
+        return new SplittableRandomSource(seed);
+    }
+
+    /**
+     * Returns a new cryptographically strong random source backed by a {@link SecureRandom}.
+     * <p>
+     * The entropy of the SecureRandom is read in large blocks,
+     * so that the random source is not much slower than a non secure one.
+     * Its numbers cannot be reproduced.
+     * @return A new cryptographically strong random source
+     */
+    static RandomSource secure() {
+        return new BufferedSecureRandomSource();
+    }
+
+    /**
+     * Returns a new cryptographically strong random source backed by the {@link SecureRandom} passed as parameter,
+     * for instance one returned by {@link SecureRandom#getInstanceStrong()}.
+     * The entropy of the SecureRandom is read in large blocks.
+     * The splits of the returned random source read the same SecureRandom.
+     * @param secureRandom The SecureRandom that provides the entropy of the random source
+     * @return A new cryptographically strong random source backed by the SecureRandom passed as parameter
+     */
+    static RandomSource secure(SecureRandom secureRandom) {
+        return new BufferedSecureRandomSource(secureRandom);
+    }
+
+    /**
+     * Returns a random int value between zero (inclusive) and the bound (exclusive)
+     * @param bound The upper bound (exclusive) of the returned value. Must be positive.
+     * @return A random int value between zero (inclusive) and the bound (exclusive)
+     */
+    int nextInt(int bound);
+
+    /**
+     * Returns a random long value between zero (inclusive) and the bound (exclusive)
+     * @param bound The upper bound (exclusive) of the returned value. Must be positive.
+     * @return A random long value between zero (inclusive) and the bound (exclusive)
+     */
+    long nextLong(long bound);
+
+    /**
+     * Returns a new random source that shares no mutable state with this random source.
+     * The sequence of numbers of the new random source is determined by the state of this random source.
+     * @return A new random source that shares no mutable state with this random source.
+     */
+    RandomSource split();
+}
@@ -0,0 +1,45 @@
+package org.jihedamine.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random source backed by a {@link SplittableRandom}.
+ * <p>
+ * This class is not thread-safe: each thread should use its own random source obtained with {@link #split()}.
+ *
+ * @see RandomSource#splittable()
+ * @see RandomSource#seeded(long)
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+class SplittableRandomSource implements RandomSource {
+
+    private final SplittableRandom random;
+
+    SplittableRandomSource() {
+        this(new SplittableRandom());
+    }
+
+    SplittableRandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private SplittableRandomSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong(long bound) {
+        return random.nextLong(bound);
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplittableRandomSource(random.split());
+    }
+}
@@ -0,0 +1,41 @@
+package org.jihedamine.random;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random source backed by {@link ThreadLocalRandom}.
+ * <p>
+ * Each thread uses its own generator, so this random source can be shared by several threads without contention.
+ * Its numbers cannot be reproduced.
+ *
+ * @see RandomSource#threadLocal()
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+class ThreadLocalRandomSource implements RandomSource {
+
+    static final ThreadLocalRandomSource INSTANCE = new ThreadLocalRandomSource();
+
+    private ThreadLocalRandomSource() {
+        // Only one instance is needed as the state of the generators is held by the threads
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override
+    public long nextLong(long bound) {
+        return ThreadLocalRandom.current().nextLong(bound);
+    }
+
+    /**
+     * Returns this random source, whose generators already are independent for each thread
+     * @return This random source
+     */
+    @Override
+    public RandomSource split() {
+        return this;
+    }
+}
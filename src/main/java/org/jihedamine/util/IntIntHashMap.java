@@ -0,0 +1,250 @@
+package org.jihedamine.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to int values that stores its entries in primitive arrays.
+ * <p>
+ * Unlike a <code>HashMap&lt;Integer, Integer&gt;</code>, this map does not allocate any object per entry:
+ * entries are stored with open addressing and linear probing in a keys array and a values array.
+ * Removed entries are deleted by shifting back the entries that follow them,
+ * so that lookups never have to skip deleted slots.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class IntIntHashMap {
+
+    // Key marking a free slot of the keys array.
+    // An entry having this key is stored outside of the arrays.
+    private static final int FREE_KEY = 0;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    private boolean hasFreeKeyEntry;
+    private int freeKeyValue;
+
+    /**
+     * Constructs an empty map
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty map able to hold the expected number of entries without growing
+     * @param expectedSize The number of entries the map is expected to hold
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, DEFAULT_CAPACITY / 2) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Constructs a map holding the same entries as the map passed as parameter
+     * @param other The map to copy
+     */
+    public IntIntHashMap(IntIntHashMap other) {
+        keys = Arrays.copyOf(other.keys, other.keys.length);
+        values = Arrays.copyOf(other.values, other.values.length);
+        mask = other.mask;
+        size = other.size;
+        hasFreeKeyEntry = other.hasFreeKeyEntry;
+        freeKeyValue = other.freeKeyValue;
+    }
+
+    /**
+     * Returns the value mapped to the key, or defaultValue if the map does not contain the key
+     * @param key The key to look up
+     * @param defaultValue The value to return if the map does not contain the key
+     * @return The value mapped to the key, or defaultValue if the map does not contain the key
+     */
+    public int get(int key, int defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKeyEntry ? freeKeyValue : defaultValue;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns whether the map contains the key
+     * @param key The key to look up
+     * @return true if the map contains the key, false otherwise
+     */
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKeyEntry;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Maps the key to the value, replacing the value previously mapped to the key if any
+     * @param key The key of the entry
+     * @param value The value of the entry
+     */
+    public void put(int key, int value) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKeyEntry) {
+                size++;
+            }
+            hasFreeKeyEntry = true;
+            freeKeyValue = value;
+            return;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // keep the load factor under one half so that probe sequences stay short
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the entry of the key if the map contains it
+     * @param key The key of the entry to remove
+     * @param defaultValue The value to return if the map does not contain the key
+     * @return The value that was mapped to the key, or defaultValue if the map did not contain the key
+     */
+    public int remove(int key, int defaultValue) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKeyEntry) {
+                return defaultValue;
+            }
+            hasFreeKeyEntry = false;
+            size--;
+            return freeKeyValue;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == key) {
+                int value = values[slot];
+                shiftBack(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns the number of entries in the map
+     * @return The number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry of the map and shrinks it back to its default capacity
+     */
+    public void clear() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new int[DEFAULT_CAPACITY];
+        mask = DEFAULT_CAPACITY - 1;
+        size = 0;
+        hasFreeKeyEntry = false;
+    }
+
+    /**
+     * Calls the consumer passed as parameter with each entry of the map, in no particular order.
+     * The map must not be modified by the consumer.
+     * @param consumer The consumer of the entries of the map
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasFreeKeyEntry) {
+            consumer.accept(FREE_KEY, freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Fills the freed slot with the next entries of its probe sequence that would no longer be reachable
+    private void shiftBack(int freedSlot) {
+        int slot = freedSlot;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int key = keys[slot];
+            if (key == FREE_KEY) {
+                keys[freedSlot] = FREE_KEY;
+                return;
+            }
+            int idealSlot = hash(key) & mask;
+            // the entry can fill the freed slot only if the freed slot lies between its ideal slot and its current slot
+            boolean reachable = freedSlot <= slot
+                    ? freedSlot >= idealSlot || idealSlot > slot
+                    : freedSlot >= idealSlot && idealSlot > slot;
+            if (reachable) {
+                keys[freedSlot] = key;
+                values[freedSlot] = values[slot];
+                freedSlot = slot;
+            }
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[newCapacity];
+        values = new int[newCapacity];
+        mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != FREE_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Consumer of the entries of an {@link IntIntHashMap}, receiving the keys and values without boxing them
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+}
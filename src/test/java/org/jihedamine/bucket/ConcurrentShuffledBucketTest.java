@@ -0,0 +1,283 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class ConcurrentShuffledBucketTest {
+
+    @Test
+    public void testConcurrentPicksSellOutEachItemOnce() throws Exception {
+        int nbItems = 100_000;
+        int nbThreads = 8;
+        IntBucket bucket = new ConcurrentShuffledBucket(1, nbItems);
+        AtomicIntegerArray pickCounts = new AtomicIntegerArray(nbItems);
+
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        List<Callable<Integer>> pickers = new ArrayList<>();
+        for (int t = 0; t < nbThreads; t++) {
+            pickers.add(() -> {
+                int nbPicks = 0;
+                try {
+                    while (true) {
+                        pickCounts.incrementAndGet(bucket.pickInt() - 1);
+                        nbPicks++;
+                    }
+                } catch (EmptyBucketException e) {
+                    return nbPicks;
+                }
+            });
+        }
+        int totalPicks = 0;
+        for (Future<Integer> picks : executor.invokeAll(pickers)) {
+            totalPicks += picks.get();
+        }
+        executor.shutdown();
+
+        assertThat(totalPicks, is(nbItems));
+        for (int i = 0; i < nbItems; i++) {
+            assertThat(pickCounts.get(i), is(1));
+        }
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test
+    public void testPickItemsIsAtomic() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 5);
+        assertThat(bucket.pickItems(3).length, is(3));
+        try {
+            bucket.pickItems(3);
+        } catch (EmptyBucketException e) {
+            assertThat(bucket.size(), is(2));
+            return;
+        }
+        throw new AssertionError("EmptyBucketException expected");
+    }
+
+    @Test
+    public void testPickNegativeNumberOfItemsDoesNotGiveBackPickedItems() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 5);
+        bucket.pickItems(2);
+        try {
+            bucket.pickItems(-2);
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertThat(bucket.size(), is(3));
+        }
+    }
+
+    @Test
+    public void testCopyHoldsRemainingItems() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 5);
+        int picked = bucket.pickInt();
+        IntBucket copy = bucket.getCopy();
+        assertThat(copy.size(), is(4));
+        int sum = 0;
+        for (int item : copy.pickItems(4)) {
+            sum += item;
+        }
+        assertThat(sum + picked, is(15));
+        assertThat(bucket.size(), is(4));
+    }
+
+    @Test
+    public void testCopiesDoNotPickInTheSameOrder() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 1000, RandomSource.seeded(1));
+        IntBucket copy = bucket.getCopy(RandomSource.seeded(2));
+        IntBucket otherCopy = copy.getCopy(RandomSource.seeded(3));
+        assertThat(copy.size(), is(1000));
+
+        int[] items = bucket.pickItems(1000);
+        int[] copyItems = copy.pickItems(1000);
+        assertThat(otherCopy.size(), is(1000));
+        assertThat(Arrays.equals(items, copyItems), is(false));
+        assertThat(Arrays.equals(copyItems, otherCopy.pickItems(1000)), is(false));
+        Arrays.sort(items);
+        Arrays.sort(copyItems);
+        assertThat(Arrays.equals(items, copyItems), is(true));
+    }
+
+    @Test
+    public void testRemovedItemIsNotPicked() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 5);
+        assertThat(bucket.removeItem(3), is(true));
+        assertThat(bucket.removeItem(3), is(false));
+        assertThat(bucket.removeItem(6), is(false));
+        assertThat(bucket.contains(3), is(false));
+        assertThat(bucket.size(), is(4));
+
+        int[] items = bucket.pickItems(4);
+        Arrays.sort(items);
+        assertThat(Arrays.equals(items, new int[] {1, 2, 4, 5}), is(true));
+    }
+
+    @Test
+    public void testReturnedItemIsPickedAgain() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 3);
+        int picked = bucket.pickInt();
+        bucket.pickItems(2);
+        assertThat(bucket.contains(picked), is(false));
+
+        // the cursor has passed every item, so the returned item is picked from the queue of returned items
+        bucket.returnItem(picked);
+        assertThat(bucket.contains(picked), is(true));
+        assertThat(bucket.size(), is(1));
+        assertThat(bucket.pickInt(), is(picked));
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReturnItemAlreadyInBucket() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 3);
+        bucket.returnItem(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReturnItemOutsideOfSequence() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 3);
+        bucket.pickItems(3);
+        bucket.returnItem(4);
+    }
+
+    @Test
+    public void testCopyDoesNotHoldRemovedItems() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 200);
+        for (int item = 1; item <= 200; item += 2) {
+            bucket.removeItem(item);
+        }
+        IntBucket copy = bucket.getCopy();
+        bucket.returnItem(1);
+        assertThat(copy.size(), is(100));
+        assertThat(copy.contains(1), is(false));
+        for (int item : copy.pickItems(100)) {
+            assertThat(item % 2, is(0));
+        }
+        assertThat(bucket.size(), is(101));
+    }
+
+    @Test
+    public void testConcurrentPicksRemovalsAndReturns() throws Exception {
+        int nbItems = 10_000;
+        int nbThreads = 8;
+        IntBucket bucket = new ConcurrentShuffledBucket(1, nbItems);
+
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        List<Callable<Integer>> pickers = new ArrayList<>();
+        for (int t = 0; t < nbThreads; t++) {
+            int firstItem = t + 1;
+            pickers.add(() -> {
+                int nbKept = 0;
+                for (int i = 0; i < 500; i++) {
+                    int item = bucket.pickInt();
+                    // every other picked item is put back, and the items of the thread are removed if they are still in the bucket
+                    if (i % 2 == 0) {
+                        bucket.returnItem(item);
+                    } else {
+                        nbKept++;
+                    }
+                    if (bucket.removeItem(firstItem + nbThreads * i)) {
+                        nbKept++;
+                    }
+                }
+                return nbKept;
+            });
+        }
+        int totalKept = 0;
+        for (Future<Integer> kept : executor.invokeAll(pickers)) {
+            totalKept += kept.get();
+        }
+        executor.shutdown();
+
+        assertThat(bucket.size(), is(nbItems - totalKept));
+        int[] remaining = bucket.pickItems(nbItems - totalKept);
+        for (int item : remaining) {
+            assertThat(bucket.contains(item), is(false));
+        }
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test
+    public void testItemReturnedToSoldOutBucketIsPickedAgain() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 2);
+        int picked = bucket.pickInt();
+        bucket.pickInt();
+        for (int i = 0; i < 3; i++) {
+            try {
+                bucket.pickInt();
+            } catch (EmptyBucketException e) {
+                // the cursor keeps advancing past the last item
+            }
+        }
+        bucket.returnItem(picked);
+        assertThat(bucket.size(), is(1));
+        assertThat(bucket.pickInt(), is(picked));
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test
+    public void testConcurrentPickItemsPickAllOrNoneOfTheirItems() throws Exception {
+        int nbItems = 1_000;
+        int nbThreads = 8;
+        for (int iteration = 0; iteration < 50; iteration++) {
+            IntBucket bucket = new ConcurrentShuffledBucket(1, nbItems);
+            AtomicIntegerArray nbPicks = new AtomicIntegerArray(nbItems + 1);
+
+            ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+            List<Callable<Integer>> pickers = new ArrayList<>();
+            for (int t = 0; t < nbThreads; t++) {
+                pickers.add(() -> {
+                    int nbPicked = 0;
+                    while (true) {
+                        int[] items;
+                        try {
+                            items = bucket.pickItems(7);
+                        } catch (EmptyBucketException e) {
+                            if (bucket.size() < 7) {
+                                return nbPicked;
+                            }
+                            continue;
+                        }
+                        assertThat(items.length, is(7));
+                        for (int item : items) {
+                            nbPicks.incrementAndGet(item);
+                        }
+                        nbPicked += items.length;
+                    }
+                });
+            }
+            int totalPicked = 0;
+            for (Future<Integer> picked : executor.invokeAll(pickers)) {
+                totalPicked += picked.get();
+            }
+            executor.shutdown();
+
+            assertThat(totalPicked, is(nbItems - nbItems % 7));
+            assertThat(bucket.size(), is(nbItems % 7));
+            for (int item = 1; item <= nbItems; item++) {
+                assertThat(nbPicks.get(item) + (bucket.contains(item) ? 1 : 0), is(1));
+            }
+        }
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testPickMoreItemsThanAvailable() {
+        IntBucket bucket = new ConcurrentShuffledBucket(1, 1);
+        bucket.pickInt();
+        bucket.pickInt();
+    }
+}
@@ -0,0 +1,53 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.random.RandomSource;
+
+/**
+ * Compares the cost of the sequential and the parallel samples of FloydSampler for growing sample sizes,
+ * which is what the number of drawn balls from which a lottery draw samples in parallel is tuned with.
+ * <p>
+ * This benchmark is not run with the tests. Run its main method on the target machine to print the average time of a sample
+ * of each size with each sampler.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class FloydSamplerBenchmark {
+
+    private static final int NB_POSITIONS = 100_000_000;
+    private static final int NB_ROUNDS = 5;
+    private static final int NB_SAMPLES = 20;
+
+    private FloydSamplerBenchmark() {}
+
+    public static void main(String[] args) {
+        System.out.printf("%d cores%n", Runtime.getRuntime().availableProcessors());
+        for (int round = 0; round < NB_ROUNDS; round++) {
+            System.out.printf("Round %d%n", round + 1);
+            for (int k = 1 << 10; k <= 1 << 20; k <<= 2) {
+                long sequential = benchmark(k, false);
+                long parallel = benchmark(k, true);
+                System.out.printf("  k = %8d  sequential %10.1f us  parallel %10.1f us%n",
+                        k, sequential / 1000.0, parallel / 1000.0);
+            }
+        }
+    }
+
+    // Returns the average time of a sample of size k in nanoseconds
+    private static long benchmark(int k, boolean parallel) {
+        RandomSource random = RandomSource.splittable();
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < NB_SAMPLES; i++) {
+            int[] sample = parallel
+                    ? FloydSampler.parallelSample(NB_POSITIONS, k, random)
+                    : FloydSampler.sample(NB_POSITIONS, k, random);
+            checksum += sample[0];
+        }
+        long elapsed = System.nanoTime() - start;
+        // using the checksum keeps the samples from being optimized away
+        if (checksum == 42) {
+            System.out.print("");
+        }
+        return elapsed / NB_SAMPLES;
+    }
+}
@@ -0,0 +1,100 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.random.RandomSource;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class FloydSamplerTest {
+
+    @Test
+    public void testSampleIsDistinctAndInRange() {
+        assertDistinctAndInRange(FloydSampler.sample(1000, 300, RandomSource.seeded(1)), 1000, 300);
+        assertDistinctAndInRange(FloydSampler.sample(5, 5, RandomSource.seeded(2)), 5, 5);
+    }
+
+    @Test
+    public void testParallelSampleIsDistinctAndInRange() {
+        assertDistinctAndInRange(FloydSampler.parallelSample(1_000_000, 100_000, RandomSource.seeded(3)), 1_000_000, 100_000);
+        assertDistinctAndInRange(FloydSampler.parallelSample(7, 7, RandomSource.seeded(4)), 7, 7);
+    }
+
+    @Test
+    public void testParallelSampleIsUnbiased() {
+        int n = 10;
+        int[] counts = new int[n];
+        RandomSource random = RandomSource.seeded(5);
+        for (int i = 0; i < 20_000; i++) {
+            for (int position : FloydSampler.parallelSample(n, 3, random)) {
+                counts[position]++;
+            }
+        }
+        // each position is expected to be picked 6000 times
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 6000) < 400);
+        }
+    }
+
+    @Test
+    public void testParallelSampleOfSeveralRangesIsUnbiased() {
+        assertDistinctAndInRange(FloydSampler.parallelSample(1_000_000, 100_000, RandomSource.seeded(8), 5), 1_000_000, 100_000);
+
+        int n = 10;
+        int[] counts = new int[n];
+        int[] firstCounts = new int[n];
+        RandomSource random = RandomSource.seeded(9);
+        for (int i = 0; i < 20_000; i++) {
+            int[] sample = FloydSampler.parallelSample(n, 3, random, 3);
+            firstCounts[sample[0]]++;
+            for (int position : sample) {
+                counts[position]++;
+            }
+        }
+        // each position is expected to be picked 6000 times, and to be picked first 2000 times
+        for (int position = 0; position < n; position++) {
+            assertTrue(Math.abs(counts[position] - 6000) < 400);
+            assertTrue(Math.abs(firstCounts[position] - 2000) < 250);
+        }
+    }
+
+    @Test
+    public void testFirstPositionIsUniform() {
+        int[] firstCounts = new int[4];
+        RandomSource random = RandomSource.seeded(6);
+        for (int i = 0; i < 20_000; i++) {
+            firstCounts[FloydSampler.sample(4, 4, random)[0]]++;
+        }
+        for (int count : firstCounts) {
+            assertTrue(Math.abs(count - 5000) < 400);
+        }
+    }
+
+    @Test
+    public void testParallelSampleIsReproducible() {
+        int[] sample = FloydSampler.parallelSample(1_000_000, 50_000, RandomSource.seeded(7));
+        int[] replayedSample = FloydSampler.parallelSample(1_000_000, 50_000, RandomSource.seeded(7));
+        assertTrue(Arrays.equals(sample, replayedSample));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampleMorePositionsThanAvailable() {
+        FloydSampler.sample(3, 4, RandomSource.splittable());
+    }
+
+    private static void assertDistinctAndInRange(int[] sample, int n, int k) {
+        assertEquals(k, sample.length);
+        boolean[] seen = new boolean[n];
+        for (int position : sample) {
+            assertTrue(position >= 0 && position < n);
+            assertFalse(seen[position]);
+            seen[position] = true;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LazySequentialNumbersBucketTest {
+
+    @Test
+    public void testLazyBucketNotStartingFromOne() {
+        Bucket<Integer> bucket = new LazySequentialNumbersBucket(5, 3);
+        List<Integer> items = new ArrayList<>();
+        items.add(bucket.pickItem());
+        items.add(bucket.pickItem());
+        items.add(bucket.pickItem());
+        Collections.sort(items);
+        assertThat(items, is(Arrays.asList(5, 6, 7)));
+    }
+
+    @Test
+    public void testPickIntPicksEachItemOnce() {
+        IntBucket bucket = new LazySequentialNumbersBucket(-50, 1000);
+        boolean[] picked = new boolean[1000];
+        for (int i = 0; i < 1000; i++) {
+            int item = bucket.pickInt();
+            assertThat(picked[item + 50], is(false));
+            picked[item + 50] = true;
+        }
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test
+    public void testHugeBucketIsNotMaterialized() {
+        IntBucket bucket = new LazySequentialNumbersBucket(0, Integer.MAX_VALUE);
+        int item = bucket.pickInt();
+        assertThat(item >= 0, is(true));
+        assertThat(bucket.size(), is(Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testCopyIsIndependentFromOriginal() {
+        IntBucket bucket = new LazySequentialNumbersBucket(1, 3);
+        IntBucket copy = bucket.getCopy();
+        bucket.pickInt();
+        bucket.pickInt();
+        assertThat(bucket.size(), is(1));
+        assertThat(copy.size(), is(3));
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testPickMoreItemsThanAvailable() {
+        IntBucket bucket = new LazySequentialNumbersBucket(1, 1);
+        bucket.pickInt();
+        bucket.pickInt();
+    }
+
+    @Test
+    public void testPickSampleRemovesSampledItems() {
+        IntBucket bucket = new LazySequentialNumbersBucket(1, 1000);
+        int[] sample = bucket.pickSample(400);
+        int[] parallelSample = bucket.parallelPickSample(600);
+        boolean[] picked = new boolean[1000];
+        for (int item : sample) {
+            assertThat(picked[item - 1], is(false));
+            picked[item - 1] = true;
+        }
+        for (int item : parallelSample) {
+            assertThat(picked[item - 1], is(false));
+            picked[item - 1] = true;
+        }
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test
+    public void testPickSampleLargerThanBucketPicksNothing() {
+        IntBucket bucket = new LazySequentialNumbersBucket(1, 1000);
+        try {
+            bucket.pickSample(1001);
+        } catch (EmptyBucketException e) {
+            assertThat(bucket.size(), is(1000));
+            return;
+        }
+        throw new AssertionError("EmptyBucketException expected");
+    }
+
+    @Test
+    public void testPickItemsPicksEachItemOnce() {
+        IntBucket bucket = new LazySequentialNumbersBucket(1, 1000);
+        IntBucket copy = bucket.getCopy();
+        int[] firstBlock = bucket.pickItems(250);
+        int[] secondBlock = bucket.pickItems(750);
+        boolean[] picked = new boolean[1000];
+        for (int[] block : new int[][] {firstBlock, secondBlock}) {
+            for (int item : block) {
+                assertThat(picked[item - 1], is(false));
+                picked[item - 1] = true;
+            }
+        }
+        assertThat(bucket.size(), is(0));
+        assertThat(copy.size(), is(1000));
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testPickItemsLargerThanBucket() {
+        IntBucket bucket = new LazySequentialNumbersBucket(1, 1000);
+        bucket.pickItems(1001);
+    }
+
+    @Test
+    public void testRemoveItem() {
+        IntBucket bucket = new LazySequentialNumbersBucket(10, 5);
+        assertThat(bucket.removeItem(12), is(true));
+        assertThat(bucket.removeItem(12), is(false));
+        assertThat(bucket.removeItem(15), is(false));
+        assertThat(bucket.contains(12), is(false));
+        assertThat(bucket.contains(14), is(true));
+        assertThat(bucket.size(), is(4));
+
+        List<Integer> items = new ArrayList<>();
+        while (bucket.size() > 0) {
+            items.add(bucket.pickInt());
+        }
+        Collections.sort(items);
+        assertThat(items, is(Arrays.asList(10, 11, 13, 14)));
+    }
+
+    @Test
+    public void testContainsFollowsPicksAndRemovals() {
+        IntBucket bucket = new LazySequentialNumbersBucket(0, 200);
+        boolean[] removed = new boolean[200];
+        bucket.pickItems(20);
+        for (int item = 0; item < 200; item += 3) {
+            if (bucket.contains(item)) {
+                bucket.removeItem(item);
+            }
+        }
+        // picks done once the index is built must keep it up to date
+        for (int item : bucket.pickSample(30)) {
+            removed[item] = true;
+        }
+        bucket.getCopy().pickItems(50);
+        for (int i = 0; i < 20; i++) {
+            removed[bucket.pickInt()] = true;
+        }
+        int nbItems = 0;
+        for (int item = 0; item < 200; item++) {
+            if (bucket.contains(item)) {
+                assertThat(removed[item] || item % 3 == 0, is(false));
+                nbItems++;
+            }
+        }
+        assertThat(nbItems, is(bucket.size()));
+    }
+
+    @Test
+    public void testReturnedItemsArePickedAgain() {
+        IntBucket bucket = new LazySequentialNumbersBucket(1, 4);
+        IntBucket copy = bucket.getCopy();
+        int first = bucket.pickInt();
+        int second = bucket.pickInt();
+        assertThat(bucket.contains(first), is(false));
+        bucket.returnItem(second);
+        bucket.returnItem(first);
+        assertThat(bucket.contains(first), is(true));
+        assertThat(bucket.size(), is(4));
+        assertThat(copy.size(), is(4));
+
+        List<Integer> items = new ArrayList<>();
+        for (int item : bucket.pickItems(4)) {
+            items.add(item);
+        }
+        Collections.sort(items);
+        assertThat(items, is(Arrays.asList(1, 2, 3, 4)));
+    }
+}
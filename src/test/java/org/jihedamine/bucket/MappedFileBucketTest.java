@@ -0,0 +1,159 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.BucketInitializationException;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class MappedFileBucketTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPicksAreResumedAfterReopening() throws IOException {
+        Path serials = writeSerials(1000, 1001, 1002, 1003, 1004);
+        Set<Integer> picked = new HashSet<>();
+        try (MappedFileBucket bucket = new MappedFileBucket(serials)) {
+            picked.add(bucket.pickInt());
+            for (int item : bucket.pickItems(2)) {
+                picked.add(item);
+            }
+        }
+        try (MappedFileBucket bucket = new MappedFileBucket(serials)) {
+            assertThat(bucket.size(), is(2));
+            picked.add(bucket.pickInt());
+            picked.add(bucket.pickInt());
+        }
+        assertThat(picked, is(new HashSet<>(Arrays.asList(1000, 1001, 1002, 1003, 1004))));
+        // the file still holds every serial
+        assertThat(readSerials(serials), is(picked));
+    }
+
+    @Test
+    public void testCopyIsNotWrittenToFile() throws IOException {
+        Path serials = writeSerials(7, 8, 9);
+        try (MappedFileBucket bucket = new MappedFileBucket(serials);
+             OffHeapIntBucket copy = bucket.getCopy()) {
+            assertThat(copy.pickInt() + copy.pickInt() + copy.pickInt(), is(24));
+            assertThat(bucket.size(), is(3));
+        }
+        try (MappedFileBucket bucket = new MappedFileBucket(serials)) {
+            assertThat(bucket.size(), is(3));
+        }
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testPickMoreItemsThanAvailable() throws IOException {
+        try (MappedFileBucket bucket = new MappedFileBucket(writeSerials(1))) {
+            bucket.pickInt();
+            bucket.pickInt();
+        }
+    }
+
+    @Test(expected = BucketInitializationException.class)
+    public void testFileNotClosedCantBeOpenedAgain() throws IOException {
+        Path serials = writeSerials(1, 2, 3);
+        MappedFileBucket bucket = new MappedFileBucket(serials);
+        bucket.pickInt();
+        // the process stops without closing the bucket
+        new MappedFileBucket(serials);
+    }
+
+    @Test
+    public void testRecoverResumesPicksOfBucketNotClosed() throws IOException {
+        Path serials = writeSerials(1, 2, 3, 4, 5);
+        Set<Integer> picked = new HashSet<>();
+        MappedFileBucket bucket = new MappedFileBucket(serials);
+        picked.add(bucket.pickInt());
+        for (int item : bucket.pickItems(2)) {
+            picked.add(item);
+        }
+
+        // the process stops without closing the bucket
+        try (MappedFileBucket recoveredBucket = MappedFileBucket.recover(serials)) {
+            assertThat(recoveredBucket.size(), is(2));
+            for (int item : recoveredBucket.pickItems(2)) {
+                picked.add(item);
+            }
+        }
+        assertThat(picked, is(new HashSet<>(Arrays.asList(1, 2, 3, 4, 5))));
+        assertThat(readSerials(serials), is(picked));
+        try (MappedFileBucket reopenedBucket = new MappedFileBucket(serials)) {
+            assertThat(reopenedBucket.size(), is(0));
+        }
+    }
+
+    @Test
+    public void testRecoverCompletesInterruptedPick() throws IOException {
+        // the pick of item 2 at index 1 stopped once the last item was copied to index 1, before 2 was written at index 3
+        Path serials = writeSerials(1, 4, 3, 4);
+        writeInts(Paths.get(serials + MappedFileBucket.STATE_FILE_SUFFIX), 4, 1, 3, 1, 2);
+
+        try (MappedFileBucket bucket = MappedFileBucket.recover(serials)) {
+            assertThat(bucket.size(), is(3));
+            assertThat(new HashSet<>(Arrays.asList(bucket.pickInt(), bucket.pickInt(), bucket.pickInt())),
+                    is(new HashSet<>(Arrays.asList(1, 3, 4))));
+        }
+        assertThat(readSerials(serials), is(new HashSet<>(Arrays.asList(1, 2, 3, 4))));
+    }
+
+    @Test
+    public void testMappingFailureKeepsItsCause() throws IOException {
+        try {
+            new MappedFileBucket(folder.getRoot().toPath().resolve("missing"));
+        } catch (BucketInitializationException e) {
+            assertThat(e.getCause() instanceof IOException, is(true));
+            return;
+        }
+        throw new AssertionError("BucketInitializationException expected");
+    }
+
+    @Test(expected = BucketInitializationException.class)
+    public void testFileSizeMustBeMultipleOfFour() throws IOException {
+        Path file = folder.newFile("truncated").toPath();
+        Files.write(file, new byte[] {0, 0, 1});
+        new MappedFileBucket(file);
+    }
+
+    private Path writeSerials(int... serials) throws IOException {
+        Path file = folder.newFile().toPath();
+        writeInts(file, serials);
+        return file;
+    }
+
+    private static void writeInts(Path file, int... ints) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            for (int i : ints) {
+                out.writeInt(i);
+            }
+        }
+    }
+
+    private static Set<Integer> readSerials(Path file) throws IOException {
+        Set<Integer> serials = new HashSet<>();
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            for (long i = Files.size(file) / Integer.BYTES; i > 0; i--) {
+                serials.add(in.readInt());
+            }
+        }
+        return serials;
+    }
+}
@@ -0,0 +1,125 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.BucketInitializationException;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class MultiPoolBucketTest {
+
+    private static MultiPoolBucket mainPlusBonusBalls(RandomSource randomSource) {
+        return new MultiPoolBucket(
+                new IntBucket[] {new SequentialNumbersBucket(1, 50), new LazySequentialNumbersBucket(51, 12)},
+                new int[] {5, 2},
+                randomSource);
+    }
+
+    @Test
+    public void testDrawPicksFromEachPool() {
+        MultiPoolBucket bucket = mainPlusBonusBalls(RandomSource.threadLocal());
+        assertEquals(62, bucket.size());
+        assertEquals(7, bucket.getDrawSize());
+
+        int[] draw = bucket.pickDraw();
+        assertEquals(55, bucket.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(draw[i] >= 1 && draw[i] <= 50);
+        }
+        for (int i = 5; i < 7; i++) {
+            assertTrue(draw[i] >= 51 && draw[i] <= 62);
+        }
+        assertEquals(7, Arrays.stream(draw).distinct().count());
+    }
+
+    @Test
+    public void testSeededDrawsAreReplayed() {
+        assertArrayEquals(mainPlusBonusBalls(RandomSource.seeded(42)).pickDraw(),
+                mainPlusBonusBalls(RandomSource.seeded(42)).pickDraw());
+    }
+
+    @Test
+    public void testPickAllItems() {
+        MultiPoolBucket bucket = mainPlusBonusBalls(RandomSource.threadLocal());
+        Set<Integer> items = new HashSet<>();
+        while (bucket.size() > 0) {
+            items.add(bucket.pickInt());
+        }
+        assertEquals(62, items.size());
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        MultiPoolBucket bucket = mainPlusBonusBalls(RandomSource.threadLocal());
+        MultiPoolBucket copy = bucket.getCopy();
+        copy.pickDraw();
+        assertEquals(62, bucket.size());
+        assertEquals(55, copy.size());
+    }
+
+    @Test
+    public void testReturnedItemGoesBackToItsPool() {
+        MultiPoolBucket bucket = mainPlusBonusBalls(RandomSource.threadLocal());
+        for (int bonusBall = 51; bonusBall <= 62; bonusBall++) {
+            assertTrue(bucket.removeItem(bonusBall));
+        }
+        bucket.returnItem(55);
+        bucket.returnItem(60);
+        assertEquals(52, bucket.size());
+        assertTrue(bucket.contains(55) && bucket.contains(60));
+
+        // the bonus balls that were put back are the only ones left to draw from the bonus pool
+        int[] draw = bucket.pickDraw();
+        assertEquals(115, draw[5] + draw[6]);
+    }
+
+    @Test
+    public void testBatchOfTheDrawSizeIsPickedFromTheUnionOfThePools() {
+        // 5 main balls and 2 bonus balls make about a quarter of the uniform picks of 7 balls
+        boolean otherSplitPicked = false;
+        for (int seed = 0; seed < 200 && !otherSplitPicked; seed++) {
+            MultiPoolBucket bucket = mainPlusBonusBalls(RandomSource.seeded(seed));
+            int[] items = seed % 2 == 0 ? bucket.pickItems(7) : bucket.pickSample(7);
+            otherSplitPicked = Arrays.stream(items).filter(item -> item > 50).count() != 2;
+        }
+        assertTrue(otherSplitPicked);
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testDrawFromPoolWithFewerItemsThanItsNumberOfDraws() {
+        MultiPoolBucket bucket = mainPlusBonusBalls(RandomSource.threadLocal());
+        for (int bonusBall = 51; bonusBall <= 61; bonusBall++) {
+            bucket.removeItem(bonusBall);
+        }
+        try {
+            bucket.pickDraw();
+        } finally {
+            assertEquals(51, bucket.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReturnItemOutsideOfPools() {
+        mainPlusBonusBalls(RandomSource.threadLocal()).returnItem(63);
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testPickMoreItemsThanAvailable() {
+        mainPlusBonusBalls(RandomSource.threadLocal()).pickItems(63);
+    }
+
+    @Test(expected = BucketInitializationException.class)
+    public void testPoolSmallerThanItsNumberOfDraws() {
+        new MultiPoolBucket(new IntBucket[] {new SequentialNumbersBucket(1, 3)}, new int[] {4});
+    }
+}
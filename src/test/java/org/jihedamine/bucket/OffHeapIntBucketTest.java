@@ -0,0 +1,71 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class OffHeapIntBucketTest {
+
+    @Test
+    public void testPickIntPicksEachItemOnce() {
+        try (OffHeapIntBucket bucket = new OffHeapIntBucket(1, 1000)) {
+            boolean[] picked = new boolean[1000];
+            for (int item : bucket.pickItems(300)) {
+                assertThat(picked[item - 1], is(false));
+                picked[item - 1] = true;
+            }
+            for (int i = 0; i < 700; i++) {
+                int item = bucket.pickInt();
+                assertThat(picked[item - 1], is(false));
+                picked[item - 1] = true;
+            }
+            assertThat(bucket.size(), is(0));
+        }
+    }
+
+    @Test
+    public void testCopyIsIndependentFromOriginal() {
+        OffHeapIntBucket bucket = new OffHeapIntBucket(1, 3);
+        try (OffHeapIntBucket copy = bucket.getCopy()) {
+            bucket.pickInt();
+            // the copy keeps the shared items once the original is closed
+            bucket.close();
+            assertThat(copy.size(), is(3));
+            assertThat(copy.pickInt() + copy.pickInt() + copy.pickInt(), is(6));
+        }
+    }
+
+    @Test
+    public void testArraySpanningSeveralChunks() {
+        DirectIntArray array = new DirectIntArray(10, 2);
+        for (int i = 0; i < 10; i++) {
+            array.set(i, i * i);
+        }
+        DirectIntArray copy = array.copy(7);
+        array.release();
+        for (int i = 0; i < 7; i++) {
+            assertThat(copy.get(i), is(i * i));
+        }
+        copy.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPickFromClosedBucket() {
+        OffHeapIntBucket bucket = new OffHeapIntBucket(1, 3);
+        bucket.close();
+        bucket.pickInt();
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testPickMoreItemsThanAvailable() {
+        try (OffHeapIntBucket bucket = new OffHeapIntBucket(1, 1)) {
+            bucket.pickInt();
+            bucket.pickInt();
+        }
+    }
+}
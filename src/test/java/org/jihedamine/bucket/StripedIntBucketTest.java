@@ -0,0 +1,161 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.random.RandomSource;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class StripedIntBucketTest {
+
+    @Test
+    public void testWholeSequencesAreStriped() {
+        assertThat(ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 100)), instanceOf(StripedIntBucket.class));
+        assertThat(ConcurrentIntBucket.of(new LazySequentialNumbersBucket(1, 100)), instanceOf(StripedIntBucket.class));
+
+        // the numbers left in a bucket that was picked from are not a sequence anymore
+        IntBucket pickedBucket = new SequentialNumbersBucket(1, 100);
+        pickedBucket.pickInt();
+        assertThat(ConcurrentIntBucket.of(pickedBucket), instanceOf(SynchronizedIntBucket.class));
+        assertThat(ConcurrentIntBucket.of(new OffHeapIntBucket(1, 100)), instanceOf(SynchronizedIntBucket.class));
+    }
+
+    @Test
+    public void testConcurrentPicksSellOutEachItemOnce() throws Exception {
+        int nbItems = 100_000;
+        int nbThreads = 8;
+        IntBucket bucket = ConcurrentIntBucket.of(new LazySequentialNumbersBucket(1, nbItems));
+        AtomicIntegerArray pickCounts = new AtomicIntegerArray(nbItems);
+
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        List<Callable<Integer>> pickers = new ArrayList<>();
+        for (int t = 0; t < nbThreads; t++) {
+            pickers.add(() -> {
+                int nbPicks = 0;
+                try {
+                    while (true) {
+                        pickCounts.incrementAndGet(bucket.pickInt() - 1);
+                        nbPicks++;
+                    }
+                } catch (EmptyBucketException e) {
+                    return nbPicks;
+                }
+            });
+        }
+        int totalPicks = 0;
+        for (Future<Integer> picks : executor.invokeAll(pickers)) {
+            totalPicks += picks.get();
+        }
+        executor.shutdown();
+
+        assertThat(totalPicks, is(nbItems));
+        for (int i = 0; i < nbItems; i++) {
+            assertThat(pickCounts.get(i), is(1));
+        }
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test
+    public void testRemoveAndReturnItem() {
+        IntBucket bucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 10));
+        assertThat(bucket.removeItem(7), is(true));
+        assertThat(bucket.removeItem(7), is(false));
+        assertThat(bucket.removeItem(11), is(false));
+        assertThat(bucket.contains(7), is(false));
+        assertThat(bucket.size(), is(9));
+
+        bucket.returnItem(7);
+        assertThat(bucket.contains(7), is(true));
+        int[] items = bucket.pickItems(10);
+        Arrays.sort(items);
+        assertThat(Arrays.equals(items, new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReturnItemOutsideOfSequence() {
+        ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 10)).returnItem(11);
+    }
+
+    @Test
+    public void testPickItemsIsAtomic() {
+        IntBucket bucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 5));
+        assertThat(bucket.pickItems(3).length, is(3));
+        try {
+            bucket.pickItems(3);
+        } catch (EmptyBucketException e) {
+            assertThat(bucket.size(), is(2));
+            return;
+        }
+        throw new AssertionError("EmptyBucketException expected");
+    }
+
+    @Test
+    public void testSeededPicksCanBeReplayed() {
+        IntBucket bucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 1000, RandomSource.seeded(7)));
+        IntBucket sameBucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 1000, RandomSource.seeded(7)));
+        assertThat(bucket.pickInt(), is(sameBucket.pickInt()));
+        assertThat(Arrays.equals(bucket.pickItems(500), sameBucket.pickItems(500)), is(true));
+    }
+
+    @Test
+    public void testSeededPicksDoNotDependOnThePickingThread() throws Exception {
+        IntBucket bucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 1000, RandomSource.seeded(42)));
+        IntBucket sameBucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 1000, RandomSource.seeded(42)));
+        int[] picks = new int[100];
+        for (int i = 0; i < picks.length; i++) {
+            picks[i] = bucket.pickInt();
+        }
+
+        // each pick of the same bucket runs on a new thread
+        ExecutorService executor = Executors.newCachedThreadPool();
+        int[] otherThreadPicks = new int[100];
+        for (int i = 0; i < otherThreadPicks.length; i++) {
+            otherThreadPicks[i] = executor.submit(sameBucket::pickInt).get();
+        }
+        executor.shutdown();
+        assertThat(Arrays.equals(picks, otherThreadPicks), is(true));
+    }
+
+    @Test
+    public void testSinglePicksAreDrawnFromTheWholeBucket() {
+        int nbItems = 64;
+        int[] pickCounts = new int[nbItems];
+        for (int i = 0; i < 20_000; i++) {
+            IntBucket bucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, nbItems, RandomSource.seeded(i)));
+            pickCounts[bucket.pickInt() - 1]++;
+        }
+        // each item is picked about 312 times
+        for (int count : pickCounts) {
+            assertThat(count > 200 && count < 450, is(true));
+        }
+    }
+
+    @Test
+    public void testCopyHoldsRemainingItems() {
+        IntBucket bucket = ConcurrentIntBucket.of(new SequentialNumbersBucket(1, 5));
+        int picked = bucket.pickInt();
+        IntBucket copy = bucket.getCopy();
+        assertThat(copy.size(), is(4));
+        assertThat(copy.contains(picked), is(false));
+        int sum = 0;
+        for (int item : copy.pickItems(4)) {
+            sum += item;
+        }
+        assertThat(sum + picked, is(15));
+        assertThat(bucket.size(), is(4));
+    }
+}
@@ -0,0 +1,81 @@
+package org.jihedamine.bucket;
+
+import org.jihedamine.bucket.exceptions.BucketInitializationException;
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.lotterydraw.LotteryDraw;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.jihedamine.random.RandomSource;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class WeightedBucketTest {
+
+    @Test
+    public void testPicksFollowWeights() {
+        RandomSource randomSource = RandomSource.seeded(1);
+        int[] firstPickCounts = new int[3];
+        WeightedBucket template = new WeightedBucket(new int[] {0, 1, 2}, new int[] {1, 1, 2}, randomSource);
+        for (int i = 0; i < 40_000; i++) {
+            firstPickCounts[template.getCopy().pickInt()]++;
+        }
+        assertTrue(Math.abs(firstPickCounts[0] - 10_000) < 600);
+        assertTrue(Math.abs(firstPickCounts[1] - 10_000) < 600);
+        assertTrue(Math.abs(firstPickCounts[2] - 20_000) < 600);
+    }
+
+    @Test
+    public void testEachItemIsPickedOnce() {
+        int nbItems = 10_000;
+        int[] items = new int[nbItems];
+        int[] weights = new int[nbItems];
+        for (int i = 0; i < nbItems; i++) {
+            items[i] = i;
+            weights[i] = 1 + i % 7;
+        }
+        IntBucket bucket = new WeightedBucket(items, weights);
+        boolean[] picked = new boolean[nbItems];
+        for (int i = 0; i < nbItems; i++) {
+            int item = bucket.pickInt();
+            assertThat(picked[item], is(false));
+            picked[item] = true;
+        }
+        assertThat(bucket.size(), is(0));
+    }
+
+    @Test
+    public void testCopyIsIndependentFromOriginal() {
+        IntBucket bucket = new WeightedBucket(new int[] {5, 6}, new int[] {3, 1});
+        IntBucket copy = bucket.getCopy();
+        bucket.pickInt();
+        bucket.pickInt();
+        assertThat(copy.size(), is(2));
+        assertThat(copy.pickInt() + copy.pickInt(), is(11));
+    }
+
+    @Test
+    public void testWeightedLotteryDraw() {
+        IntBucket bucket = new WeightedBucket(new int[] {1, 2, 3}, new int[] {1, 2, 3});
+        LotteryDraw lotteryDraw = new LotteryDraw(bucket, 3, 200, 10, mock(PrizeStrategy.class));
+        lotteryDraw.draw();
+        assertThat(lotteryDraw.getNbItems(), is(0));
+    }
+
+    @Test(expected = EmptyBucketException.class)
+    public void testPickMoreItemsThanAvailable() {
+        IntBucket bucket = new WeightedBucket(new int[] {1}, new int[] {4});
+        bucket.pickInt();
+        bucket.pickInt();
+    }
+
+    @Test(expected = BucketInitializationException.class)
+    public void testWeightMustBePositive() {
+        new WeightedBucket(new int[] {1, 2}, new int[] {1, 0});
+    }
+}
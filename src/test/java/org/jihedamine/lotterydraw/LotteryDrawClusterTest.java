@@ -0,0 +1,237 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.lotterydraw.exceptions.LotteryClusterException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotAvailableException;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.jihedamine.random.RandomSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LotteryDrawClusterTest {
+
+    @Mock
+    PrizeStrategy mockPrizeStrategy;
+
+    @Test
+    public void testDrawGathersWinnersAndSalesOfNodes() throws IOException {
+        try (LotteryDrawNode firstNode = new LotteryDrawNode(1, 2, 10);
+             LotteryDrawNode secondNode = new LotteryDrawNode(3, 2, 10)) {
+            List<InetSocketAddress> addresses = Arrays.asList(start(secondNode), start(firstNode));
+            firstNode.purchaseTicket("Jihed", 1);
+            firstNode.purchaseTicket("Aroua", 2);
+            secondNode.purchaseTicket("Zo\u00e9", 3);
+            secondNode.purchaseTicket("Sami", 4);
+
+            try (LotteryDrawCoordinator coordinator = new LotteryDrawCoordinator(addresses, 4, 200, mockPrizeStrategy)) {
+                assertEquals(new BigDecimal("240.00"), coordinator.getPot());
+                coordinator.draw();
+
+                Map<Integer, String> owners = new HashMap<>();
+                owners.put(1, "Jihed");
+                owners.put(2, "Aroua");
+                owners.put(3, "Zo\u00e9");
+                owners.put(4, "Sami");
+                int[] drawnBalls = coordinator.getDrawnBalls();
+                for (int i = 0; i < drawnBalls.length; i++) {
+                    assertEquals(owners.get(drawnBalls[i]), coordinator.getWinner(i));
+                }
+                assertEquals(new BigDecimal("240.00"), coordinator.getPot());
+            }
+        }
+    }
+
+    @Test(expected=LotteryDrawAlreadyHappenedException.class)
+    public void testNodeStopsSellingAfterDraw() throws IOException {
+        try (LotteryDrawNode node = new LotteryDrawNode(1, 10, 10)) {
+            try (LotteryDrawCoordinator coordinator = new LotteryDrawCoordinator(Arrays.asList(start(node)), 2, 200, mockPrizeStrategy)) {
+                coordinator.draw();
+            }
+            node.purchaseTicket("Jihed");
+        }
+    }
+
+    @Test(expected=LotteryTicketNotAvailableException.class)
+    public void testCoordinatorRoutesChosenTicketToItsNode() throws IOException {
+        try (LotteryDrawNode firstNode = new LotteryDrawNode(1, 5, 10);
+             LotteryDrawNode secondNode = new LotteryDrawNode(6, 5, 10)) {
+            List<InetSocketAddress> addresses = Arrays.asList(start(firstNode), start(secondNode));
+            secondNode.purchaseTicket("Jihed", 8);
+            try (LotteryDrawCoordinator coordinator = new LotteryDrawCoordinator(addresses, 2, 200, mockPrizeStrategy)) {
+                coordinator.purchaseTicket("Aroua", 7);
+                assertEquals(new BigDecimal("20.00"), secondNode.getSales());
+                coordinator.purchaseTicket("Aroua", 8);
+            }
+        }
+    }
+
+    @Test(expected=LotteryDrawInitializationException.class)
+    public void testExceptionThrownWhenRangesOfNodesHaveAGap() throws IOException {
+        try (LotteryDrawNode firstNode = new LotteryDrawNode(1, 5, 10);
+             LotteryDrawNode secondNode = new LotteryDrawNode(7, 5, 10)) {
+            new LotteryDrawCoordinator(Arrays.asList(start(firstNode), start(secondNode)), 2, 200, mockPrizeStrategy);
+        }
+    }
+
+    @Test
+    public void testClusterOfLocalProcesses() throws IOException {
+        List<Process> processes = new ArrayList<>();
+        try {
+            List<InetSocketAddress> addresses = new ArrayList<>();
+            for (int firstBall = 1; firstBall <= 30; firstBall += 10) {
+                Process process = new ProcessBuilder(
+                        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                        "-cp", System.getProperty("java.class.path"),
+                        LotteryDrawNode.class.getName(), String.valueOf(firstBall), "10", "10")
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                processes.add(process);
+                BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+                int port = Integer.parseInt(output.readLine().trim());
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            }
+
+            try (LotteryDrawCoordinator coordinator = new LotteryDrawCoordinator(addresses, 30, 200, mockPrizeStrategy)) {
+                assertEquals(3, coordinator.getNbNodes());
+                for (int i = 0; i < 30; i++) {
+                    int ballNumber = coordinator.purchaseTicket("Participant" + i);
+                    assertTrue(ballNumber >= 1 && ballNumber <= 30);
+                }
+                coordinator.draw();
+
+                assertEquals(new BigDecimal("500.00"), coordinator.getPot());
+                for (int i = 0; i < 30; i++) {
+                    assertTrue(coordinator.getWinner(i).startsWith("Participant"));
+                }
+            }
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void testRetriedDrawDrawsTheSameBalls() throws Exception {
+        assertRetriedDrawDrawsTheSameBalls(NodeFailure.ERROR_STATUS);
+    }
+
+    @Test
+    public void testRetriedDrawConnectsAgainToNodeThatClosedItsSocket() throws Exception {
+        assertRetriedDrawDrawsTheSameBalls(NodeFailure.CLOSED_SOCKET);
+    }
+
+    @Test
+    public void testDrawFailsWhenNodeDoesNotAnswer() throws Exception {
+        assertRetriedDrawDrawsTheSameBalls(NodeFailure.NO_RESPONSE);
+    }
+
+    // Fails the first draw on a node failing to answer the owner of the first drawn ball, then retries it
+    private void assertRetriedDrawDrawsTheSameBalls(NodeFailure failure) throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            List<Integer> askedOwners = new CopyOnWriteArrayList<>();
+            Thread node = new Thread(() -> fakeNode(server, failure, askedOwners));
+            node.setDaemon(true);
+            node.start();
+
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            try (LotteryDrawCoordinator coordinator = new LotteryDrawCoordinator(Collections.singletonList(address), 3, 200,
+                    mockPrizeStrategy, RandomSource.threadLocal(), 500)) {
+                try {
+                    coordinator.draw();
+                    throw new AssertionError("LotteryClusterException expected");
+                } catch (LotteryClusterException e) {
+                    // the node failed to answer the owner of the first drawn ball
+                }
+                coordinator.draw();
+                assertEquals(askedOwners.get(0), askedOwners.get(1));
+                assertEquals(askedOwners.get(0).intValue(), coordinator.getDrawnBalls()[0]);
+            }
+        }
+    }
+
+    private enum NodeFailure {
+        ERROR_STATUS, CLOSED_SOCKET, NO_RESPONSE
+    }
+
+    // Answers the requests of one coordinator for a node selling 1000 unsold balls, failing on the first owner request.
+    // A connection dropped by either side is replaced by the next connection of the coordinator.
+    private static void fakeNode(ServerSocket server, NodeFailure failure, List<Integer> askedOwners) {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept();
+                 DataInputStream in = new DataInputStream(socket.getInputStream());
+                 DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+                while (true) {
+                    byte[] request = new byte[in.readInt()];
+                    in.readFully(request);
+                    ByteBuffer body = ByteBuffer.wrap(request);
+                    ByteBuffer response = ByteBuffer.allocate(16);
+                    switch (body.get()) {
+                        case NodeProtocol.RANGE:
+                            response.put(NodeProtocol.OK).putInt(1).putInt(1000);
+                            break;
+                        case NodeProtocol.CUTOFF:
+                            response.put(NodeProtocol.OK).putLong(0);
+                            break;
+                        case NodeProtocol.OWNER:
+                            askedOwners.add(body.getInt());
+                            if (askedOwners.size() > 1) {
+                                response.put(NodeProtocol.NO_OWNER);
+                            } else if (failure == NodeFailure.ERROR_STATUS) {
+                                response.put(NodeProtocol.BAD_REQUEST);
+                            } else if (failure == NodeFailure.CLOSED_SOCKET) {
+                                socket.close();
+                                continue;
+                            } else {
+                                // the coordinator closes the socket once it stops waiting for the response
+                                continue;
+                            }
+                            break;
+                        default:
+                            response.put(NodeProtocol.BAD_REQUEST);
+                    }
+                    out.writeInt(response.position());
+                    out.write(response.array(), 0, response.position());
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // the connection was closed
+            }
+        }
+    }
+
+    private static InetSocketAddress start(LotteryDrawNode node) throws IOException {
+        return node.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+}
@@ -0,0 +1,71 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.ConcurrentShuffledBucket;
+import org.jihedamine.bucket.IntBucket;
+import org.jihedamine.bucket.SequentialNumbersBucket;
+import org.jihedamine.prizestrategy.PercentagesOfHalfPotPrizeStrategy;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the throughput of concurrent ticket purchases on a shared lottery draw with 1, 4, 16 and 64 threads,
+ * for a bucket of sequential numbers split into stripes with their own locks and for a lock-free {@link ConcurrentShuffledBucket}.
+ * <p>
+ * This benchmark is not run with the tests. Run its main method to print the number of purchases per second for each number of threads.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class LotteryDrawPurchaseBenchmark {
+
+    private static final int NB_TICKETS = 4_000_000;
+    private static final int[] NB_THREADS = {1, 4, 16, 64};
+    private static final int NB_ROUNDS = 3;
+
+    private LotteryDrawPurchaseBenchmark() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        PrizeStrategy prizeStrategy = new PercentagesOfHalfPotPrizeStrategy(new double[] {0.75, 0.15, 0.10});
+        for (int round = 0; round < NB_ROUNDS; round++) {
+            System.out.printf("Round %d%n", round + 1);
+            for (int nbThreads : NB_THREADS) {
+                benchmark("SequentialNumbersBucket", new SequentialNumbersBucket(1, NB_TICKETS), nbThreads, prizeStrategy);
+                benchmark("ConcurrentShuffledBucket", new ConcurrentShuffledBucket(1, NB_TICKETS), nbThreads, prizeStrategy);
+            }
+        }
+    }
+
+    private static void benchmark(String name, IntBucket bucket, int nbThreads, PrizeStrategy prizeStrategy)
+            throws InterruptedException {
+        LotteryDraw lotteryDraw = new LotteryDraw(bucket, 3, 200, 10, prizeStrategy);
+        int purchasesPerThread = NB_TICKETS / nbThreads;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; t++) {
+            String firstName = "Participant" + t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < purchasesPerThread; i++) {
+                    lotteryDraw.purchaseTicket(firstName);
+                }
+            });
+            threads[t].start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        lotteryDraw.draw();
+
+        System.out.printf("  %-25s %2d threads %8.2f M purchases/s%n",
+                name, nbThreads, (double) purchasesPerThread * nbThreads * 1000 / elapsed);
+    }
+}
@@ -0,0 +1,166 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.SequentialNumbersBucket;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyRegisteredException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawNotFoundException;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LotteryDrawRegistryTest {
+
+    @Mock
+    PrizeStrategy mockPrizeStrategy;
+
+    @Test
+    public void testDrawsAreDrawnAtTheirDrawTime() throws InterruptedException {
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry()) {
+            registry.register("hourly", newLotteryDraw(), Instant.now().plus(50, ChronoUnit.MILLIS));
+            registry.register("monthly", newLotteryDraw(), Instant.now().plus(30, ChronoUnit.DAYS));
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (registry.isLive("hourly") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(registry.isLive("hourly"));
+            assertEquals(3, registry.getArchivedDraw("hourly").getDrawnBalls().length);
+            assertTrue(registry.isLive("monthly"));
+            assertEquals(1, registry.getNbLiveDraws());
+        }
+    }
+
+    @Test
+    public void testArchiveKeepsTheResultOfTheDraw() {
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), eq(0))).thenReturn(BigDecimal.valueOf(12.35));
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry()) {
+            LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 2), 2, 200, 10, mockPrizeStrategy);
+            lotteryDraw.purchaseTicket("Jihed", 1);
+            registry.register("daily", lotteryDraw, Instant.now().plus(1, ChronoUnit.DAYS));
+
+            ArchivedLotteryDraw archivedDraw = registry.drawNow("daily");
+            assertArrayEquals(lotteryDraw.getDrawnBalls(), archivedDraw.getDrawnBalls());
+            assertEquals(lotteryDraw.getDrawWinnersAsString(), archivedDraw.getDrawWinnersAsString());
+            assertEquals(lotteryDraw.getDrawnBallsAsString(), archivedDraw.getDrawnBallsAsString());
+            assertEquals(new BigDecimal("210.00"), archivedDraw.getPot());
+            assertEquals(new BigDecimal("0.00"), archivedDraw.getPrizeAmount(1));
+            assertFalse(registry.isLive("daily"));
+        }
+    }
+
+    @Test
+    public void testOldestArchivesAreEvicted() {
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry(2)) {
+            for (int i = 0; i < 3; i++) {
+                registry.register("draw" + i, newLotteryDraw(), Instant.now().plus(1, ChronoUnit.DAYS));
+                registry.drawNow("draw" + i);
+            }
+            assertEquals(2, registry.getNbArchivedDraws());
+            registry.getArchivedDraw("draw1");
+            registry.getArchivedDraw("draw2");
+        }
+    }
+
+    @Test(expected=LotteryDrawNotFoundException.class)
+    public void testEvictedArchiveIsNotFound() {
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry(1)) {
+            registry.register("draw0", newLotteryDraw(), Instant.now().plus(1, ChronoUnit.DAYS));
+            registry.drawNow("draw0");
+            registry.register("draw1", newLotteryDraw(), Instant.now().plus(1, ChronoUnit.DAYS));
+            registry.drawNow("draw1");
+            registry.getArchivedDraw("draw0");
+        }
+    }
+
+    @Test(expected=LotteryDrawAlreadyRegisteredException.class)
+    public void testExceptionThrownWhenIdIsAlreadyRegistered() {
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry()) {
+            registry.register("daily", newLotteryDraw(), Instant.now().plus(1, ChronoUnit.DAYS));
+            registry.register("daily", newLotteryDraw(), Instant.now().plus(1, ChronoUnit.DAYS));
+        }
+    }
+
+    @Test
+    public void testThousandsOfDrawsShareOneScheduler() throws InterruptedException {
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry()) {
+            int nbThreads = Thread.activeCount();
+            Instant drawTime = Instant.now().plus(100, ChronoUnit.MILLIS);
+            for (int i = 0; i < 5000; i++) {
+                registry.register("draw" + i, newLotteryDraw(), drawTime);
+            }
+            assertEquals(nbThreads, Thread.activeCount());
+
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (registry.getNbLiveDraws() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, registry.getNbLiveDraws());
+            assertEquals(5000, registry.getNbArchivedDraws());
+        }
+    }
+
+    @Test
+    public void testFailedDrawIsDrawnAgainLater() throws InterruptedException {
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry(10, 1)) {
+            LotteryDraw lotteryDraw = spy(newLotteryDraw());
+            doThrow(new IllegalStateException("Transient failure")).doCallRealMethod().when(lotteryDraw).draw();
+            registry.register("daily", lotteryDraw, Instant.now());
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (registry.isLive("daily") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(registry.isLive("daily"));
+            assertEquals(3, registry.getArchivedDraw("daily").getDrawnBalls().length);
+        }
+    }
+
+    @Test
+    public void testDrawFailingEveryAttemptStaysLiveWithItsFailure() throws InterruptedException {
+        try (LotteryDrawRegistry registry = new LotteryDrawRegistry(10, 1)) {
+            LotteryDraw lotteryDraw = spy(newLotteryDraw());
+            IllegalStateException failure = new IllegalStateException("Permanent failure");
+            doThrow(failure).when(lotteryDraw).draw();
+            registry.register("daily", lotteryDraw, Instant.now().plus(50, ChronoUnit.MILLIS));
+            assertNull(registry.getDrawFailure("daily"));
+
+            verify(lotteryDraw, timeout(10_000).times(LotteryDrawRegistry.MAX_DRAW_ATTEMPTS)).draw();
+            // the scheduler gives up after the last attempt
+            Thread.sleep(100);
+            verify(lotteryDraw, times(LotteryDrawRegistry.MAX_DRAW_ATTEMPTS)).draw();
+            assertTrue(registry.isLive("daily"));
+            assertEquals(failure, registry.getDrawFailure("daily"));
+
+            doCallRealMethod().when(lotteryDraw).draw();
+            assertEquals(3, registry.drawNow("daily").getDrawnBalls().length);
+        }
+    }
+
+    private LotteryDraw newLotteryDraw() {
+        return new LotteryDraw(new SequentialNumbersBucket(1, 50), 3, 200, 10, mockPrizeStrategy);
+    }
+}
@@ -1,26 +1,44 @@
 package org.jihedamine.lotterydraw;
 
 import org.jihedamine.bucket.Bucket;
+import org.jihedamine.bucket.ConcurrentShuffledBucket;
+import org.jihedamine.bucket.IntBucket;
+import org.jihedamine.bucket.MultiPoolBucket;
+import org.jihedamine.bucket.OffHeapIntBucket;
 import org.jihedamine.bucket.SequentialNumbersBucket;
 import org.jihedamine.bucket.exceptions.EmptyBucketException;
 import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
 import org.jihedamine.lotterydraw.exceptions.LotteryDrawDidNotHappenException;
 import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotAvailableException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotPurchasedException;
 import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.jihedamine.random.RandomSource;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import static org.hamcrest.CoreMatchers.anyOf;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -64,6 +82,24 @@ public class LotteryDrawTest {
         new LotteryDraw(mockBucket, 3, -200, 10, mockPrizeStrategy);
     }
 
+    @Test(expected=LotteryDrawInitializationException.class)
+    public void testExceptionThrownWhenInitialPotIsTooLargeToCountInCents() {
+        when(mockBucket.size()).thenReturn(5);
+        new LotteryDraw(mockBucket, 3, 1e17, 10, mockPrizeStrategy);
+    }
+
+    @Test(expected=LotteryDrawInitializationException.class)
+    public void testExceptionThrownWhenTicketPriceIsNotFinite() {
+        when(mockBucket.size()).thenReturn(5);
+        new LotteryDraw(mockBucket, 3, 200, Double.NaN, mockPrizeStrategy);
+    }
+
+    @Test(expected=LotteryDrawInitializationException.class)
+    public void testExceptionThrownWhenSellingEveryTicketOverflowsThePot() {
+        when(mockBucket.size()).thenReturn(1_000_000);
+        new LotteryDraw(mockBucket, 3, 200, 1e12, mockPrizeStrategy);
+    }
+
     @Test(expected=LotteryDrawInitializationException.class)
     public void testExceptionThrownWhenBucketSizeIsNegative() {
         when(mockBucket.size()).thenReturn(-2);
@@ -219,4 +255,397 @@ public class LotteryDrawTest {
         lotteryDraw.draw();
     }
 
+    @Test
+    public void testSeededDrawCanBeReplayed() {
+        Bucket<Integer> bucket = new SequentialNumbersBucket(1, 1000);
+        LotteryDraw lotteryDraw = new LotteryDraw(bucket, 10, 200, 10, mockPrizeStrategy, RandomSource.seeded(42));
+        LotteryDraw replayedLotteryDraw = new LotteryDraw(bucket, 10, 200, 10, mockPrizeStrategy, RandomSource.seeded(42));
+        assertEquals(lotteryDraw.purchaseTicket("Jihed"), replayedLotteryDraw.purchaseTicket("Jihed"));
+        lotteryDraw.draw();
+        replayedLotteryDraw.draw();
+        assertArrayEquals(lotteryDraw.getDrawnBalls(), replayedLotteryDraw.getDrawnBalls());
+    }
+
+    @Test
+    public void testBallsAreDrawnWithTheInjectedSecureRandom() {
+        AtomicInteger nbCalls = new AtomicInteger();
+        SecureRandom secureRandom = new SecureRandom() {
+            @Override
+            public synchronized void nextBytes(byte[] bytes) {
+                nbCalls.incrementAndGet();
+                super.nextBytes(bytes);
+            }
+        };
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 1000), 10, 200, 10, mockPrizeStrategy,
+                RandomSource.secure(secureRandom));
+        lotteryDraw.draw();
+        assertEquals(1, nbCalls.get());
+    }
+
+    @Test
+    public void testSeededTicketDoesNotDependOnThePurchasingThread() throws Exception {
+        Bucket<Integer> bucket = new SequentialNumbersBucket(1, 1000);
+        LotteryDraw lotteryDraw = new LotteryDraw(bucket, 10, 200, 10, mockPrizeStrategy, RandomSource.seeded(42));
+        LotteryDraw replayedLotteryDraw = new LotteryDraw(bucket, 10, 200, 10, mockPrizeStrategy, RandomSource.seeded(42));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(lotteryDraw.purchaseTicket("Jihed"), (int) executor.submit(() -> replayedLotteryDraw.purchaseTicket("Jihed")).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDrawFromSeveralPools() {
+        MultiPoolBucket bucket = new MultiPoolBucket(
+                new IntBucket[] {new SequentialNumbersBucket(1, 50), new SequentialNumbersBucket(51, 12)},
+                new int[] {5, 2});
+        LotteryDraw lotteryDraw = new LotteryDraw(bucket, 200, 10, mockPrizeStrategy);
+        assertEquals(7, lotteryDraw.getNbDraws());
+
+        lotteryDraw.draw();
+        int[] drawnBalls = lotteryDraw.getDrawnBalls();
+        assertTrue(IntStream.range(0, 5).allMatch(i -> drawnBalls[i] >= 1 && drawnBalls[i] <= 50));
+        assertTrue(IntStream.range(5, 7).allMatch(i -> drawnBalls[i] >= 51 && drawnBalls[i] <= 62));
+    }
+
+    @Test
+    public void testTicketsOfSeveralPoolsArePickedFromTheirUnion() {
+        // a batch of as many tickets as the drawn balls is not split between the pools like a draw
+        boolean otherSplitPicked = false;
+        for (int i = 0; i < 200 && !otherSplitPicked; i++) {
+            MultiPoolBucket bucket = new MultiPoolBucket(
+                    new IntBucket[] {new SequentialNumbersBucket(1, 50), new SequentialNumbersBucket(51, 12)},
+                    new int[] {5, 2});
+            LotteryDraw lotteryDraw = new LotteryDraw(bucket, 200, 10, mockPrizeStrategy);
+            int[] tickets = lotteryDraw.purchaseTickets(Collections.nCopies(7, "Jihed"));
+            otherSplitPicked = Arrays.stream(tickets).filter(ticket -> ticket > 50).count() != 2;
+        }
+        assertTrue(otherSplitPicked);
+    }
+
+    @Test
+    public void testPurchaseChosenTicket() {
+        Bucket<Integer> bucket = new SequentialNumbersBucket(1, 3);
+        LotteryDraw lotteryDraw = new LotteryDraw(bucket, 1, 200, 10, mockPrizeStrategy);
+        assertTrue(lotteryDraw.isTicketAvailable(2));
+        lotteryDraw.purchaseTicket("Aroua", 2);
+        assertThat(lotteryDraw.isTicketAvailable(2), is(false));
+        assertEquals("Aroua", lotteryDraw.getPurchasedBallsMap().get(2));
+        assertEquals(0, BigDecimal.valueOf(210).compareTo(lotteryDraw.getPot()));
+
+        // random purchases never give out the chosen ticket
+        assertThat(lotteryDraw.purchaseTicket("Jihed") + lotteryDraw.purchaseTicket("Jihed"), is(4));
+    }
+
+    @Test
+    public void testPurchaseWithNullFirstNameDoesNotLoseTheTicket() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 1), 1, 200, 10, mockPrizeStrategy);
+        try {
+            lotteryDraw.purchaseTicket(null);
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(lotteryDraw.isTicketAvailable(1));
+        }
+        try {
+            lotteryDraw.purchaseTicket(null, 1);
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(lotteryDraw.isTicketAvailable(1));
+        }
+        assertThat(lotteryDraw.purchaseTicket("Jihed"), is(1));
+        assertEquals(0, BigDecimal.valueOf(210).compareTo(lotteryDraw.getPot()));
+    }
+
+    @Test(expected = LotteryTicketNotAvailableException.class)
+    public void testPurchaseChosenTicketTwice() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 3), 1, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Aroua", 2);
+        lotteryDraw.purchaseTicket("Jihed", 2);
+    }
+
+    @Test(expected = LotteryTicketNotAvailableException.class)
+    public void testPurchaseChosenTicketOutsideOfBalls() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 3), 1, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Aroua", 4);
+    }
+
+    @Test
+    public void testRefundTicket() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 1), 1, 200, 10, mockPrizeStrategy);
+        int ballNumber = lotteryDraw.purchaseTicket("Aroua");
+        assertEquals("Aroua", lotteryDraw.refundTicket(ballNumber));
+        assertTrue(lotteryDraw.getPurchasedBallsMap().isEmpty());
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(lotteryDraw.getPot()));
+
+        // the refunded ticket is for sale again
+        assertThat(lotteryDraw.purchaseTicket("Jihed"), is(ballNumber));
+    }
+
+    @Test
+    public void testChosenTicketAndRefundFromLockFreeBucket() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new ConcurrentShuffledBucket(1, 3), 1, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Aroua", 2);
+        assertThat(lotteryDraw.isTicketAvailable(2), is(false));
+        assertThat(lotteryDraw.purchaseTicket("Jihed") + lotteryDraw.purchaseTicket("Jihed"), is(4));
+
+        assertEquals("Aroua", lotteryDraw.refundTicket(2));
+        assertThat(lotteryDraw.purchaseTicket("Jihed"), is(2));
+        assertEquals(0, BigDecimal.valueOf(230).compareTo(lotteryDraw.getPot()));
+    }
+
+    @Test(expected = LotteryTicketNotPurchasedException.class)
+    public void testRefundTicketNotPurchased() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 3), 1, 200, 10, mockPrizeStrategy);
+        lotteryDraw.refundTicket(2);
+    }
+
+    @Test(expected = LotteryDrawAlreadyHappenedException.class)
+    public void testRefundTicketAfterDraw() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 3), 1, 200, 10, mockPrizeStrategy);
+        int ballNumber = lotteryDraw.purchaseTicket("Aroua");
+        lotteryDraw.draw();
+        lotteryDraw.refundTicket(ballNumber);
+    }
+
+    @Test
+    public void testConcurrentPurchasesAndRefunds() throws InterruptedException {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 4000), 1, 200, 10, mockPrizeStrategy);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    int ballNumber = lotteryDraw.purchaseTicket("Jihed");
+                    // every other ticket payment fails
+                    if (i % 2 == 0) {
+                        lotteryDraw.refundTicket(ballNumber);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2000, lotteryDraw.getPurchasedBallsMap().size());
+        assertEquals(0, BigDecimal.valueOf(200 + 2000 * 10).compareTo(lotteryDraw.getPot()));
+    }
+
+    @Test
+    public void testDrawCutsOffConcurrentPurchases() throws InterruptedException {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 100_000), 1, 200, 10, mockPrizeStrategy);
+        int[] nbPurchases = new int[4];
+        Thread[] threads = new Thread[nbPurchases.length];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    while (true) {
+                        lotteryDraw.purchaseTicket("Jihed");
+                        nbPurchases[thread]++;
+                    }
+                } catch (LotteryDrawAlreadyHappenedException e) {
+                    // the draw started
+                }
+            });
+            threads[t].start();
+        }
+        Thread.sleep(20);
+        lotteryDraw.draw();
+        int nbPurchasesAtDraw = lotteryDraw.getPurchasedBallsMap().size();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // no purchase completes once the draw started
+        assertEquals(nbPurchasesAtDraw, IntStream.of(nbPurchases).sum());
+        assertEquals(nbPurchasesAtDraw, lotteryDraw.getPurchasedBallsMap().size());
+        assertEquals(0, BigDecimal.valueOf(200 + nbPurchasesAtDraw * 10).compareTo(lotteryDraw.getPot()));
+    }
+
+    @Test
+    public void testPotIsCountedInCents() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 10), 1, 200, 0.1, mockPrizeStrategy);
+        for (int i = 0; i < 3; i++) {
+            lotteryDraw.purchaseTicket("Jihed");
+        }
+        // adding 0.1 three times as a double would not give exactly 0.3
+        assertEquals(new BigDecimal("200.30"), lotteryDraw.getPot());
+    }
+
+    @Test
+    public void testPurchaseTickets() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 4), 1, 200, 10, mockPrizeStrategy);
+        int[] ballNumbers = lotteryDraw.purchaseTickets(Arrays.asList("Jihed", "Aroua", "Jihed"));
+        assertEquals(3, IntStream.of(ballNumbers).distinct().count());
+        assertEquals("Aroua", lotteryDraw.getPurchasedBallsMap().get(ballNumbers[1]));
+        assertEquals("Jihed", lotteryDraw.getPurchasedBallsMap().get(ballNumbers[2]));
+        assertEquals(0, BigDecimal.valueOf(230).compareTo(lotteryDraw.getPot()));
+    }
+
+    @Test
+    public void testPurchaseTicketsIsAtomic() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 2), 1, 200, 10, mockPrizeStrategy);
+        try {
+            lotteryDraw.purchaseTickets(Arrays.asList("Jihed", "Aroua", "Jihed"));
+        } catch (EmptyBucketException e) {
+            // not enough tickets for the whole batch
+        }
+        assertTrue(lotteryDraw.getPurchasedBallsMap().isEmpty());
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(lotteryDraw.getPot()));
+        assertEquals(2, lotteryDraw.purchaseTickets(Arrays.asList("Jihed", "Aroua")).length);
+    }
+
+    @Test
+    public void testPurchaseTicketsWithNullFirstNameDoesNotPickTickets() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 2), 1, 200, 10, mockPrizeStrategy);
+        try {
+            lotteryDraw.purchaseTickets(Arrays.asList("Jihed", null));
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(lotteryDraw.isTicketAvailable(1));
+            assertTrue(lotteryDraw.isTicketAvailable(2));
+        }
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(lotteryDraw.getPot()));
+    }
+
+    @Test
+    public void testPurchaseTicketsPutsTicketsBackWhenRecordingFails() {
+        ParticipantDictionary participants = mock(ParticipantDictionary.class);
+        when(participants.getId("Jihed")).thenReturn(0);
+        // an id that the ticket index can't store makes recording the second purchase fail
+        when(participants.getId("Aroua")).thenReturn(-2);
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 2), 1, 200, 10, mockPrizeStrategy, null, participants);
+        try {
+            lotteryDraw.purchaseTickets(Arrays.asList("Jihed", "Aroua"));
+            throw new AssertionError("RuntimeException expected");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            assertTrue(lotteryDraw.isTicketAvailable(1));
+            assertTrue(lotteryDraw.isTicketAvailable(2));
+        }
+        assertEquals(0, lotteryDraw.getTickets("Jihed").length);
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(lotteryDraw.getPot()));
+        assertEquals(2, lotteryDraw.purchaseTickets(Arrays.asList("Jihed", "Jihed")).length);
+    }
+
+    @Test
+    public void testTicketsOfParticipant() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 100), 1, 200, 10, mockPrizeStrategy);
+        assertEquals(0, lotteryDraw.getTickets("Aroua").length);
+
+        lotteryDraw.purchaseTicket("Aroua", 100);
+        // enough tickets for the positions of the tickets of the participant to be indexed
+        int[] ballNumbers = lotteryDraw.purchaseTickets(Collections.nCopies(40, "Aroua"));
+        lotteryDraw.purchaseTicket("Jihed");
+        for (int i = 0; i < 40; i += 2) {
+            lotteryDraw.refundTicket(ballNumbers[i]);
+        }
+
+        int[] expectedBallNumbers = IntStream.concat(
+                IntStream.range(0, 40).filter(i -> i % 2 == 1).map(i -> ballNumbers[i]),
+                IntStream.of(100)).sorted().toArray();
+        int[] tickets = lotteryDraw.getTickets("Aroua");
+        Arrays.sort(tickets);
+        assertArrayEquals(expectedBallNumbers, tickets);
+        assertEquals(21, lotteryDraw.getNbTickets("Aroua"));
+        assertEquals(1, lotteryDraw.getNbTickets("Jihed"));
+
+        int[] sum = new int[1];
+        lotteryDraw.forEachTicket("Aroua", ballNumber -> sum[0] += ballNumber);
+        assertEquals(IntStream.of(expectedBallNumbers).sum(), sum[0]);
+    }
+
+    @Test
+    public void testDrawResultIsComputedOnceByTheDraw() {
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), eq(0))).thenReturn(BigDecimal.valueOf(12.345));
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 1), 1, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Jihed");
+        lotteryDraw.draw();
+
+        DrawResult drawResult = lotteryDraw.getDrawResult();
+        for (int i = 0; i < 3; i++) {
+            assertSame(drawResult.getWinnersAsString(), lotteryDraw.getDrawWinnersAsString());
+            assertSame(drawResult.getDrawnBallsAsString(), lotteryDraw.getDrawnBallsAsString());
+        }
+        verify(mockPrizeStrategy, times(1)).getPrizeAmount(any(BigDecimal.class), eq(0));
+
+        assertEquals(1, drawResult.getDrawnBall(0));
+        assertEquals("Jihed", drawResult.getWinner(0));
+        assertEquals(1235, drawResult.getPrizeCents(0));
+        assertEquals(new BigDecimal("210.00"), drawResult.getPot());
+    }
+
+    @Test
+    public void testDrawResultHasNoWinnerForBallNotPurchased() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 1), 1, 200, 10, mockPrizeStrategy);
+        lotteryDraw.draw();
+        assertEquals(DrawResult.NO_WINNER, lotteryDraw.getDrawResult().getWinnerId(0));
+        assertEquals(0, lotteryDraw.getDrawResult().getPrizeCents(0));
+    }
+
+    @Test(expected=LotteryDrawDidNotHappenException.class)
+    public void testExceptionThrownWhenGettingDrawResultBeforeDraw() {
+        new LotteryDraw(new SequentialNumbersBucket(1, 1), 1, 200, 10, mockPrizeStrategy).getDrawResult();
+    }
+
+    @Test
+    public void testWinnersIteratorSkipsBallsWithoutWinner() {
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), anyInt())).thenReturn(BigDecimal.valueOf(2.5));
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 3), 3, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Jihed", 2);
+        lotteryDraw.draw();
+
+        int nbWinners = 0;
+        for (Winner winner : lotteryDraw.getDrawResult().getWinners()) {
+            assertEquals("Jihed", winner.getFirstName());
+            assertEquals(2, winner.getBallNumber());
+            assertEquals(2, lotteryDraw.getDrawnBalls()[winner.getDrawIndex()]);
+            assertEquals(250, winner.getPrizeCents());
+            nbWinners++;
+        }
+        assertEquals(1, nbWinners);
+    }
+
+    @Test
+    public void testCloseReleasesOffHeapBallsAndTickets() {
+        LotteryDraw lotteryDraw;
+        try (OffHeapIntBucket bucket = new OffHeapIntBucket(1, 10)) {
+            lotteryDraw = new LotteryDraw(bucket, 2, 200, 10, mockPrizeStrategy);
+        }
+        int ballNumber = lotteryDraw.purchaseTicket("Jihed");
+        lotteryDraw.close();
+        lotteryDraw.close();
+
+        assertEquals(0, lotteryDraw.getNbItems());
+        assertEquals("Jihed", lotteryDraw.getPurchasedBallsMap().get(ballNumber));
+        try {
+            lotteryDraw.purchaseTicket("Aroua");
+            throw new AssertionError("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals(new BigDecimal("210.00"), lotteryDraw.getPot());
+        }
+    }
+
+    @Test
+    public void testCloseReleasesOffHeapParticipantDictionary() {
+        ParticipantDictionary participants = ParticipantDictionary.offHeap();
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 10), 2, 200, 10, mockPrizeStrategy,
+                null, participants);
+        lotteryDraw.purchaseTicket("Jihed");
+        lotteryDraw.close();
+
+        try {
+            participants.getId("Jihed");
+            throw new AssertionError("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals(new BigDecimal("210.00"), lotteryDraw.getPot());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDrawAfterClose() {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 2), 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.close();
+        lotteryDraw.draw();
+    }
 }
@@ -0,0 +1,70 @@
+package org.jihedamine.lotterydraw;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class OwnershipTableTest {
+
+    @Test
+    public void testDenseBallNumbers() {
+        OwnershipTable owners = new OwnershipTable(-5, 94, 100);
+        assertTrue(owners.isDense());
+        checkOwnership(owners, -5, 94);
+    }
+
+    @Test
+    public void testSparseBallNumbers() {
+        OwnershipTable owners = new OwnershipTable(Integer.MIN_VALUE, Integer.MAX_VALUE, 100);
+        assertFalse(owners.isDense());
+        checkOwnership(owners, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testLargeDenseRangeMovesToArrayOncePurchasesJustifyIt() {
+        int nbBalls = 1 << 20;
+        OwnershipTable owners = new OwnershipTable(1, nbBalls, nbBalls);
+        assertFalse(owners.isDense());
+        checkOwnership(owners, 1, nbBalls);
+
+        // the owners take less memory in an array once a quarter of the balls is purchased
+        for (int ballNumber = 11; ballNumber <= nbBalls / 2; ballNumber++) {
+            owners.setOwner(ballNumber, ballNumber % 100);
+        }
+        assertTrue(owners.isDense());
+        assertEquals(0, owners.getOwner(1));
+        assertEquals(7, owners.getOwner(nbBalls));
+        assertEquals(12, owners.getOwner(1012));
+        assertEquals(OwnershipTable.NO_OWNER, owners.getOwner(10));
+        assertEquals(12, owners.removeOwner(1012));
+        assertEquals(OwnershipTable.NO_OWNER, owners.getOwner(1012));
+    }
+
+    private static void checkOwnership(OwnershipTable owners, int lowestBall, int highestBall) {
+        owners.setOwner(lowestBall, 0);
+        owners.setOwner(highestBall, 7);
+        owners.setOwner(10, 3);
+        assertEquals(0, owners.getOwner(lowestBall));
+        assertEquals(7, owners.getOwner(highestBall));
+        assertEquals(OwnershipTable.NO_OWNER, owners.getOwner(11));
+
+        assertEquals(3, owners.removeOwner(10));
+        assertEquals(OwnershipTable.NO_OWNER, owners.removeOwner(10));
+        assertEquals(OwnershipTable.NO_OWNER, owners.getOwner(10));
+
+        Map<Integer, Integer> entries = new HashMap<>();
+        owners.forEach(entries::put);
+        Map<Integer, Integer> expectedEntries = new HashMap<>();
+        expectedEntries.put(lowestBall, 0);
+        expectedEntries.put(highestBall, 7);
+        assertEquals(expectedEntries, entries);
+    }
+}
@@ -0,0 +1,61 @@
+package org.jihedamine.lotterydraw;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class ParticipantDictionaryTest {
+
+    @Test
+    public void testOnHeapDictionary() {
+        checkDictionary(ParticipantDictionary.onHeap());
+    }
+
+    @Test
+    public void testOffHeapDictionary() {
+        checkDictionary(ParticipantDictionary.offHeap());
+    }
+
+    @Test
+    public void testClosedOnHeapDictionaryCanStillBeUsed() {
+        ParticipantDictionary dictionary = ParticipantDictionary.onHeap();
+        int jihed = dictionary.getId("Jihed");
+        dictionary.close();
+        assertEquals("Jihed", dictionary.getFirstName(jihed));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedOffHeapDictionaryCantBeUsed() {
+        ParticipantDictionary dictionary = ParticipantDictionary.offHeap();
+        int jihed = dictionary.getId("Jihed");
+        dictionary.close();
+        dictionary.close();
+        dictionary.getFirstName(jihed);
+    }
+
+    private static void checkDictionary(ParticipantDictionary dictionary) {
+        int jihed = dictionary.getId("Jihed");
+        int aroua = dictionary.getId("Aroua");
+        assertNotEquals(jihed, aroua);
+        assertEquals(jihed, dictionary.getId(new String("Jihed")));
+        assertEquals(aroua, dictionary.findId("Aroua"));
+        assertEquals(-1, dictionary.findId("Nobody"));
+        assertEquals("Aroua", dictionary.getFirstName(aroua));
+        assertEquals("Zo\u00e9", dictionary.getFirstName(dictionary.getId("Zo\u00e9")));
+        assertEquals("", dictionary.getFirstName(dictionary.getId("")));
+
+        // enough names to grow the storage of the dictionary several times
+        for (int i = 0; i < 20_000; i++) {
+            dictionary.getId("Participant" + i);
+        }
+        assertEquals(20_004, dictionary.size());
+        assertEquals("Participant12345", dictionary.getFirstName(dictionary.getId("Participant12345")));
+        assertEquals(jihed, dictionary.getId("Jihed"));
+        assertEquals(20_004, dictionary.size());
+        assertEquals(-1, dictionary.findId("Nobody"));
+    }
+}
@@ -0,0 +1,202 @@
+package org.jihedamine.lotterydraw;
+
+import org.jihedamine.bucket.exceptions.EmptyBucketException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawAlreadyHappenedException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawDidNotHappenException;
+import org.jihedamine.lotterydraw.exceptions.LotteryDrawInitializationException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotAvailableException;
+import org.jihedamine.lotterydraw.exceptions.LotteryTicketNotPurchasedException;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.jihedamine.random.RandomSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ShardedLotteryDrawTest {
+
+    @Mock
+    PrizeStrategy mockPrizeStrategy;
+
+    @Test(expected=LotteryDrawInitializationException.class)
+    public void testExceptionThrownWhenTicketPriceIsTooLargeToCountInCents() {
+        new ShardedLotteryDraw(1, 4, 2, 2, 200, 1e17, mockPrizeStrategy);
+    }
+
+    @Test(expected=LotteryDrawInitializationException.class)
+    public void testExceptionThrownWhenMoreShardsThanBalls() {
+        new ShardedLotteryDraw(1, 4, 5, 2, 200, 10, mockPrizeStrategy);
+    }
+
+    @Test
+    public void testEveryTicketIsSoldOnce() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 50, 7, 3, 200, 10, mockPrizeStrategy);
+        Set<Integer> ballNumbers = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            int ballNumber = lotteryDraw.purchaseTicket("Jihed");
+            assertTrue(ballNumber >= 1 && ballNumber <= 50);
+            assertTrue(ballNumbers.add(ballNumber));
+        }
+        assertEquals(new BigDecimal("700.00"), lotteryDraw.getPot());
+    }
+
+    @Test(expected=EmptyBucketException.class)
+    public void testExceptionThrownWhenAllShardsAreSoldOut() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 5, 2, 1, 200, 10, mockPrizeStrategy);
+        for (int i = 0; i < 6; i++) {
+            lotteryDraw.purchaseTicket("Jihed");
+        }
+    }
+
+    @Test
+    public void testPurchasesAreSpreadOverShards() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 1000, 4, 3, 200, 10, mockPrizeStrategy);
+        for (int i = 0; i < 400; i++) {
+            lotteryDraw.purchaseTicket("Jihed");
+        }
+        for (int shard = 0; shard < lotteryDraw.getNbShards(); shard++) {
+            assertTrue(lotteryDraw.getNbTicketsSold(shard) > 0);
+        }
+    }
+
+    @Test(expected=LotteryTicketNotAvailableException.class)
+    public void testExceptionThrownWhenChosenTicketIsAlreadyPurchased() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Jihed", 7);
+        lotteryDraw.purchaseTicket("Aroua", 7);
+    }
+
+    @Test(expected=LotteryTicketNotAvailableException.class)
+    public void testExceptionThrownWhenChosenTicketIsOutOfRange() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Jihed", 11);
+    }
+
+    @Test
+    public void testRefundPutsTicketBackForSale() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Jihed", 10);
+        assertEquals("Jihed", lotteryDraw.refundTicket(10));
+        assertEquals(new BigDecimal("200.00"), lotteryDraw.getPot());
+        lotteryDraw.purchaseTicket("Aroua", 10);
+    }
+
+    @Test(expected=LotteryTicketNotPurchasedException.class)
+    public void testExceptionThrownWhenRefundingTicketNotPurchased() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.refundTicket(4);
+    }
+
+    @Test
+    public void testWinnersAreFoundInTheirShard() {
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), eq(0))).thenReturn(BigDecimal.valueOf(12.35));
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), eq(1))).thenReturn(BigDecimal.valueOf(2.3));
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 2, 2, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Jihed", 1);
+        lotteryDraw.purchaseTicket("Aroua", 2);
+        lotteryDraw.draw();
+
+        int[] drawnBalls = lotteryDraw.getDrawnBalls();
+        String firstWinner = drawnBalls[0] == 1 ? "Jihed" : "Aroua";
+        String secondWinner = drawnBalls[1] == 1 ? "Jihed" : "Aroua";
+        String expected = "            1st ball            2nd ball" + System.lineSeparator()
+                + String.format("%12s: 12.35$%12s: 02.30$", firstWinner, secondWinner);
+        assertEquals(expected, lotteryDraw.getDrawWinnersAsString());
+    }
+
+    @Test
+    public void testWinnersAndPrizesAreComputedOnceByTheDraw() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Jihed");
+        lotteryDraw.draw();
+        assertEquals(lotteryDraw.getDrawWinnersAsString(), lotteryDraw.getDrawWinnersAsString());
+        lotteryDraw.getWinner(0);
+        assertEquals(new BigDecimal("210.00"), lotteryDraw.getDrawResult().getPot());
+        verify(mockPrizeStrategy, times(2)).getPrizeAmount(any(BigDecimal.class), anyInt());
+    }
+
+    @Test
+    public void testSeededPurchasesAreRoutedTheSameWayFromAnyThread() throws Exception {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 1000, 4, 3, 200, 10, mockPrizeStrategy, RandomSource.seeded(42));
+        ShardedLotteryDraw replayedLotteryDraw = new ShardedLotteryDraw(1, 1000, 4, 3, 200, 10, mockPrizeStrategy, RandomSource.seeded(42));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(lotteryDraw.purchaseTicket("Jihed"),
+                        (int) executor.submit(() -> replayedLotteryDraw.purchaseTicket("Jihed")).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExceptionThrownWhenFirstNameIsNull() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        try {
+            lotteryDraw.purchaseTicket(null);
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // no ticket was sold
+        }
+        try {
+            lotteryDraw.purchaseTicket(null, 4);
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // the ticket is still for sale
+        }
+        lotteryDraw.purchaseTicket("Jihed", 4);
+        assertEquals(new BigDecimal("210.00"), lotteryDraw.getPot());
+    }
+
+    @Test(expected=LotteryDrawAlreadyHappenedException.class)
+    public void testExceptionThrownWhenPurchasingAfterDraw() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.draw();
+        lotteryDraw.purchaseTicket("Jihed");
+    }
+
+    @Test(expected=LotteryDrawDidNotHappenException.class)
+    public void testExceptionThrownWhenDisplayingWinnersBeforeDraw() {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 10, 3, 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.getDrawWinnersAsString();
+    }
+
+    @Test
+    public void testConcurrentPurchases() throws InterruptedException {
+        ShardedLotteryDraw lotteryDraw = new ShardedLotteryDraw(1, 4000, 8, 3, 200, 10, mockPrizeStrategy);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            executor.execute(() -> lotteryDraw.purchaseTicket("Jihed"));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        int nbTicketsSold = 0;
+        for (int shard = 0; shard < lotteryDraw.getNbShards(); shard++) {
+            nbTicketsSold += lotteryDraw.getNbTicketsSold(shard);
+        }
+        assertEquals(4000, nbTicketsSold);
+        assertEquals(new BigDecimal("40200.00"), lotteryDraw.getPot());
+    }
+}
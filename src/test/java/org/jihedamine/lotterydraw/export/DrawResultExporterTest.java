@@ -0,0 +1,131 @@
+package org.jihedamine.lotterydraw.export;
+
+import org.jihedamine.bucket.SequentialNumbersBucket;
+import org.jihedamine.lotterydraw.DrawResult;
+import org.jihedamine.lotterydraw.LotteryDraw;
+import org.jihedamine.prizestrategy.PrizeStrategy;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DrawResultExporterTest {
+
+    @Mock
+    PrizeStrategy mockPrizeStrategy;
+
+    @Test
+    public void testCsvExport() throws IOException {
+        DrawResult drawResult = drawTwoWinners("Smith, \"Jo\"");
+
+        String[] firstNames = {"Zo\u00e9 \ud83c\udf89", "\"Smith, \"\"Jo\"\"\""};
+        String expected = CsvDrawResultExporter.HEADER + "\r\n"
+                + "0," + drawResult.getDrawnBall(0) + "," + (drawResult.getDrawnBall(0) - 1) + "," + firstNames[drawResult.getDrawnBall(0) - 1] + ",12.35\r\n"
+                + "1," + drawResult.getDrawnBall(1) + "," + (drawResult.getDrawnBall(1) - 1) + "," + firstNames[drawResult.getDrawnBall(1) - 1] + ",2.30\r\n";
+        // a buffer smaller than a line makes every line span several flushes
+        assertEquals(expected, export(new CsvDrawResultExporter(5), drawResult));
+        assertEquals(expected, export(new CsvDrawResultExporter(), drawResult));
+    }
+
+    @Test
+    public void testJsonExport() throws IOException {
+        DrawResult drawResult = drawTwoWinners("Jo \"Bo\"\\\n");
+
+        String[] firstNames = {"\"Zo\u00e9 \ud83c\udf89\"", "\"Jo \\\"Bo\\\"\\\\\\u000a\""};
+        String expected = "{\"pot\":220.00,\"winners\":[\n"
+                + "{\"drawIndex\":0,\"ball\":" + drawResult.getDrawnBall(0) + ",\"participantId\":" + (drawResult.getDrawnBall(0) - 1)
+                + ",\"firstName\":" + firstNames[drawResult.getDrawnBall(0) - 1] + ",\"prize\":12.35},\n"
+                + "{\"drawIndex\":1,\"ball\":" + drawResult.getDrawnBall(1) + ",\"participantId\":" + (drawResult.getDrawnBall(1) - 1)
+                + ",\"firstName\":" + firstNames[drawResult.getDrawnBall(1) - 1] + ",\"prize\":2.30}\n"
+                + "]}";
+        assertEquals(22_000, drawResult.getPotCents());
+        assertEquals(expected, export(new JsonDrawResultExporter(3), drawResult));
+    }
+
+    @Test
+    public void testDrawsWithoutWinnerAreSkipped() throws IOException {
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 2), 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.draw();
+        assertEquals(CsvDrawResultExporter.HEADER + "\r\n", export(new CsvDrawResultExporter(), lotteryDraw.getDrawResult()));
+        assertEquals("{\"pot\":200.00,\"winners\":[]}", export(new JsonDrawResultExporter(), lotteryDraw.getDrawResult()));
+    }
+
+    @Test
+    public void testExportOfManyWinnersIsStreamedInFixedSizeWrites() throws IOException {
+        int nbWinners = 200_000;
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), anyInt())).thenReturn(BigDecimal.ONE);
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, nbWinners), nbWinners, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTickets(Collections.nCopies(nbWinners, "Jihed"));
+        lotteryDraw.draw();
+
+        CountingChannel channel = new CountingChannel();
+        new CsvDrawResultExporter(4096).export(lotteryDraw.getDrawResult(), channel);
+        assertEquals(nbWinners + 1, channel.nbLines);
+        assertTrue(channel.maxWriteSize <= 4096);
+    }
+
+    private DrawResult drawTwoWinners(String secondWinner) {
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), eq(0))).thenReturn(BigDecimal.valueOf(12.35));
+        when(mockPrizeStrategy.getPrizeAmount(any(BigDecimal.class), eq(1))).thenReturn(BigDecimal.valueOf(2.3));
+        // the participant of ball 1 gets the id 0 and the participant of ball 2 the id 1
+        LotteryDraw lotteryDraw = new LotteryDraw(new SequentialNumbersBucket(1, 2), 2, 200, 10, mockPrizeStrategy);
+        lotteryDraw.purchaseTicket("Zo\u00e9 \ud83c\udf89", 1);
+        lotteryDraw.purchaseTicket(secondWinner, 2);
+        lotteryDraw.draw();
+        return lotteryDraw.getDrawResult();
+    }
+
+    private static String export(DrawResultExporter exporter, DrawResult drawResult) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(drawResult, Channels.newChannel(out));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Counts the lines written to it without keeping them
+    private static final class CountingChannel implements WritableByteChannel {
+
+        private int nbLines;
+        private int maxWriteSize;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int size = src.remaining();
+            maxWriteSize = Math.max(maxWriteSize, size);
+            while (src.hasRemaining()) {
+                if (src.get() == '\n') {
+                    nbLines++;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.jihedamine.random;
+
+import org.jihedamine.bucket.IntBucket;
+import org.jihedamine.bucket.SequentialNumbersBucket;
+
+import java.security.SecureRandom;
+
+/**
+ * Compares the cost of picking bucket items with the thread local, secure buffered and plain SecureRandom generators.
+ * <p>
+ * This benchmark is not run with the tests. Run its main method to print the average time of a pick for each generator.
+ *
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class RandomSourceBenchmark {
+
+    private static final int NB_ITEMS = 10_000_000;
+    private static final int NB_ROUNDS = 5;
+
+    private RandomSourceBenchmark() {}
+
+    public static void main(String[] args) {
+        SecureRandom secureRandom = new SecureRandom();
+        // A random source calling the SecureRandom once per number, which is what the buffered secure source avoids
+        RandomSource unbufferedSecure = new RandomSource() {
+            @Override
+            public int nextInt(int bound) {
+                return secureRandom.nextInt(bound);
+            }
+
+            @Override
+            public long nextLong(long bound) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public RandomSource split() {
+                return this;
+            }
+        };
+
+        for (int round = 0; round < NB_ROUNDS; round++) {
+            System.out.printf("Round %d%n", round + 1);
+            benchmark("ThreadLocalRandom", RandomSource.threadLocal());
+            benchmark("Buffered SecureRandom", RandomSource.secure());
+            benchmark("Unbuffered SecureRandom", unbufferedSecure);
+        }
+    }
+
+    private static void benchmark(String name, RandomSource randomSource) {
+        IntBucket bucket = new SequentialNumbersBucket(0, NB_ITEMS, randomSource);
+        long checksum = 0;
+        long start = System.nanoTime();
+        while (bucket.size() > 0) {
+            checksum += bucket.pickInt();
+        }
+        long elapsed = System.nanoTime() - start;
+        // printing the checksum keeps the picks from being optimized away
+        System.out.printf("  %-25s %6.1f ns/pick (checksum %d)%n", name, (double) elapsed / NB_ITEMS, checksum);
+    }
+}
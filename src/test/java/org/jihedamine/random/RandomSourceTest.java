@@ -0,0 +1,75 @@
+package org.jihedamine.random;
+
+import org.junit.Test;
+
+import java.security.SecureRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class RandomSourceTest {
+
+    @Test
+    public void testSeededRandomSourcesProduceSameNumbers() {
+        RandomSource randomSource = RandomSource.seeded(42);
+        RandomSource replayedRandomSource = RandomSource.seeded(42);
+        RandomSource split = randomSource.split();
+        RandomSource replayedSplit = replayedRandomSource.split();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(randomSource.nextInt(1000), replayedRandomSource.nextInt(1000));
+            assertEquals(split.nextInt(1000), replayedSplit.nextInt(1000));
+        }
+    }
+
+    @Test
+    public void testSecureRandomSourceIsBoundedAndUniform() {
+        RandomSource randomSource = RandomSource.secure();
+        int[] counts = new int[6];
+        for (int i = 0; i < 60_000; i++) {
+            counts[randomSource.nextInt(6)]++;
+        }
+        // each value is expected to be returned 10000 times
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 600);
+        }
+    }
+
+    @Test
+    public void testSplitOfSecureRandomSourceReadsTheSameSecureRandom() {
+        CountingSecureRandom secureRandom = new CountingSecureRandom();
+        RandomSource split = RandomSource.secure(secureRandom).split().split();
+        split.nextInt(10);
+        assertEquals(1, secureRandom.nbCalls);
+    }
+
+    @Test
+    public void testSecureRandomSourceLargeBound() {
+        RandomSource randomSource = RandomSource.secure();
+        for (int i = 0; i < 10_000; i++) {
+            int value = randomSource.nextInt(Integer.MAX_VALUE);
+            assertTrue(value >= 0 && value < Integer.MAX_VALUE);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSecureRandomSourceRejectsInvalidBound() {
+        RandomSource.secure().nextInt(0);
+    }
+
+    // Counts the blocks of random bytes read from it
+    static final class CountingSecureRandom extends SecureRandom {
+
+        private static final long serialVersionUID = 1L;
+
+        int nbCalls;
+
+        @Override
+        public synchronized void nextBytes(byte[] bytes) {
+            nbCalls++;
+            super.nextBytes(bytes);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.jihedamine.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jihed Amine Maaref on 25-Dec-16.
+ */
+public class IntIntHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(0, 10);
+        map.put(-3, 30);
+        map.put(7, 70);
+        assertEquals(10, map.get(0, -1));
+        assertEquals(30, map.get(-3, -1));
+        assertEquals(-1, map.get(8, -1));
+        assertEquals(3, map.size());
+        assertEquals(70, map.remove(7, -1));
+        assertFalse(map.containsKey(7));
+        assertTrue(map.containsKey(0));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testBehavesLikeHashMap() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals((int) expected.getOrDefault(key, -1), map.remove(key, -1));
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals((int) expected.getOrDefault(key, -1), map.get(key, -1));
+        }
+    }
+}